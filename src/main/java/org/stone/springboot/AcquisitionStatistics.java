@@ -0,0 +1,91 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted moving averages of connection acquisition latency and error rate,
+ * values are stored as double bits in atomic longs and updated by lock-free CAS.
+ *
+ * <p>Averages decay toward zero by time since last sample,so a source not borrowed from any longer(such as a replica
+ * losing in selection after a slow spike or a failure burst) gets back to selection after a while,then its averages
+ * are corrected by new samples.
+ *
+ * @author Chris Liao
+ */
+final class AcquisitionStatistics {
+    //weight of latest sample
+    private static final double Alpha = 0.2D;
+    //default time constant of decay(nanoseconds)
+    private static final long Default_Decay_Time = TimeUnit.SECONDS.toNanos(10L);
+    private final double decayTime;
+    //time(nanoseconds) of last sample
+    private volatile long lastSampleTime = System.nanoTime();
+    //average latency in milliseconds
+    private final AtomicLong latencyBits = new AtomicLong(Double.doubleToRawLongBits(0D));
+    //average error rate,range[0,1]
+    private final AtomicLong errorRateBits = new AtomicLong(Double.doubleToRawLongBits(0D));
+
+    AcquisitionStatistics() {
+        this(Default_Decay_Time);
+    }
+
+    AcquisitionStatistics(long decayTime) {
+        if (decayTime <= 0L) throw new IllegalArgumentException("Decay time must be greater than zero");
+        this.decayTime = decayTime;
+    }
+
+    //old value is decayed before new sample is weighted in
+    private static void update(AtomicLong bits, double sample, double decayFactor) {
+        long oldBits, newBits;
+        do {
+            oldBits = bits.get();
+            double oldValue = Double.longBitsToDouble(oldBits) * decayFactor;
+            newBits = Double.doubleToRawLongBits(oldValue + Alpha * (sample - oldValue));
+        } while (!bits.compareAndSet(oldBits, newBits));
+    }
+
+    private double decayFactor(long time) {
+        long elapsed = time - lastSampleTime;
+        return elapsed <= 0L ? 1D : Math.exp(-elapsed / decayTime);
+    }
+
+    void success(long elapsedNanos) {
+        record(elapsedNanos, 0D);
+    }
+
+    void failure(long elapsedNanos) {
+        record(elapsedNanos, 1D);
+    }
+
+    private void record(long elapsedNanos, double error) {
+        long time = System.nanoTime();
+        double decayFactor = decayFactor(time);
+        update(latencyBits, elapsedNanos / 1_000_000D, decayFactor);
+        update(errorRateBits, error, decayFactor);
+        lastSampleTime = time;
+    }
+
+    double getLatency() {
+        return Double.longBitsToDouble(latencyBits.get()) * decayFactor(System.nanoTime());
+    }
+
+    double getErrorRate() {
+        return Double.longBitsToDouble(errorRateBits.get()) * decayFactor(System.nanoTime());
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control of borrowing from a pool,a borrow is rejected(shed) immediately when count of threads in borrowing
+ * exceeds max waiters,or when other threads are borrowing and predicted wait exceeds max predicted wait.
+ *
+ * <p>Borrows on an available pooled element return in microseconds,so threads in borrowing are mostly pool waiters;
+ * they are counted by an atomic counter instead of reading pool monitor vo on every borrow.
+ *
+ * <p>Predicted wait is the larger of two values:waiters ahead multiplied by average borrow time and divided by pool
+ * max size,where waiters ahead are the larger of other borrowing threads and pool semaphore/transfer waiters;and
+ * elapsed time since last borrow completed while threads are borrowing,which rises at once in a sudden stall
+ * when average borrow time is still low.Pool load is read only when other threads are borrowing,from one monitor vo.
+ *
+ * <p>Prediction is a heuristic:wait of a queued borrow is governed by hold time of borrowed elements,which is not
+ * measured;average borrow time is used instead,it includes waits of recent borrows,so it follows hold time only
+ * when pool is saturated and underestimates wait of a queue built up faster than average moves.Stall time bounds
+ * such underestimate.
+ *
+ * @author Chris Liao
+ */
+final class AdmissionController {
+    //max count of threads in borrowing,zero means no limit
+    private final int maxWaiters;
+    //max predicted wait time(milliseconds),zero means no limit
+    private final long maxPredictedWait;
+    private final AtomicInteger borrowingSize = new AtomicInteger();
+    private final AtomicLong shedCount = new AtomicLong();
+    //time(nanoseconds) of last borrow completed,or of first borrow started after pool was free of borrowers
+    private volatile long lastProgressTime = System.nanoTime();
+
+    AdmissionController(int maxWaiters, long maxPredictedWait) {
+        if (maxWaiters < 0) throw new IllegalArgumentException("Max waiters can't be less than zero");
+        if (maxPredictedWait < 0L) throw new IllegalArgumentException("Max predicted wait can't be less than zero");
+        this.maxWaiters = maxWaiters;
+        this.maxPredictedWait = maxPredictedWait;
+    }
+
+    /**
+     * Attempts to admit a borrow,{@link #exit()} must be called after an admitted borrow.
+     *
+     * @param averageWaitMillis average borrow time(milliseconds)
+     * @param load              load of pool,which is used to predict wait
+     * @return true that borrow is admitted,false that it is shed
+     */
+    boolean tryEnter(double averageWaitMillis, PoolLoad load) {
+        int size = borrowingSize.incrementAndGet();
+        if (size == 1) lastProgressTime = System.nanoTime();
+        if ((maxWaiters > 0 && size > maxWaiters) ||
+                (maxPredictedWait > 0L && size > 1 && predictWait(size - 1, averageWaitMillis, load) > maxPredictedWait)) {
+            borrowingSize.decrementAndGet();
+            shedCount.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void exit() {
+        lastProgressTime = System.nanoTime();
+        borrowingSize.decrementAndGet();
+    }
+
+    //predicted wait(milliseconds) of a borrow behind other borrowers
+    private double predictWait(int otherBorrowers, double averageWaitMillis, PoolLoad load) {
+        double stalledMillis = (System.nanoTime() - lastProgressTime) / 1_000_000D;
+        if (stalledMillis > maxPredictedWait) return stalledMillis;
+
+        LoadSample sample = load.sample();
+        int waiters = sample != null ? Math.max(otherBorrowers, sample.waitingSize()) : otherBorrowers;
+        int maxSize = sample != null ? Math.max(1, sample.maxSize()) : 1;
+        return Math.max(stalledMillis, waiters * averageWaitMillis / maxSize);
+    }
+
+    int getBorrowingSize() {
+        return borrowingSize.get();
+    }
+
+    long getShedCount() {
+        return shedCount.get();
+    }
+
+    /**
+     * Load of a pool,implementations read it from one pool monitor vo and return null when it is not available.
+     */
+    @FunctionalInterface
+    interface PoolLoad {
+        LoadSample sample();
+    }
+
+    //waiting size is count of threads waiting on pool semaphore and waiting for transferred elements
+    record LoadSample(int waitingSize, int maxSize) {
+    }
+}
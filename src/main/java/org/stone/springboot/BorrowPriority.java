@@ -0,0 +1,49 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.stone.springboot.dynamic.RoutingContext;
+
+/**
+ * Borrow priority of current call,calls are high priority by default;a low priority call borrows connections
+ * from low priority lane of data sources,which is capped to a share of pool max size and served after high priority.
+ *
+ * <pre>{@code
+ * BorrowPriority.callAtLowPriority(() -> reportService.buildDailyReport());
+ * }</pre>
+ *
+ * @author Chris Liao
+ */
+public final class BorrowPriority {
+    private static final RoutingContext<Boolean> context = RoutingContext.create(false);
+
+    private BorrowPriority() {
+    }
+
+    public static boolean isLowPriority() {
+        return Boolean.TRUE.equals(context.get());
+    }
+
+    //runs a call at low priority,connections borrowed in the call are from low priority lanes
+    public static Object callAtLowPriority(RoutingContext.RoutingCall call) throws Throwable {
+        return context.call(Boolean.TRUE, call);
+    }
+
+    //runs a call at high priority,which is used to escape from an outer low priority call
+    public static Object callAtHighPriority(RoutingContext.RoutingCall call) throws Throwable {
+        return context.call(Boolean.FALSE, call);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.stone.springboot.exception.BulkheadRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulkhead of a group of annotated methods,which limits concurrent calls of the group routed to a source,so that
+ * a runaway group can't drain pool shared with other groups;calls beyond max concurrency wait in a bounded queue.
+ *
+ * <p>Bulkhead itself is not reentrant,each {@link #enter()} takes a permit.Nested calls are checked by dynamic aspect
+ * on route bound to routing context:a call directly nested in a call of same group(such as a method of a class level
+ * annotated group calling another method of the group) passes through without entering,so it never waits on itself;
+ * a group reentered through a call routed to another group takes a permit again.
+ *
+ * @author Chris Liao
+ */
+public final class Bulkhead {
+    private final String name;
+    private final int maxConcurrency;
+    private final int maxQueue;
+    private final long maxWait;
+    private final Semaphore semaphore;
+    private final AtomicInteger queuedSize = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    Bulkhead(String name, int maxConcurrency, int maxQueue, long maxWait) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("Max concurrency of bulkhead must be greater than zero");
+        if (maxQueue < 0) throw new IllegalArgumentException("Max queue of bulkhead can't be less than zero");
+        if (maxWait < 0L) throw new IllegalArgumentException("Max wait of bulkhead can't be less than zero");
+
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.semaphore = new Semaphore(maxConcurrency);
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: enter and exit(2)                                                      //
+    //***************************************************************************************************************//
+
+    /**
+     * Enters bulkhead,{@link #exit()} must be called after entered.
+     *
+     * @throws InterruptedException       when interrupted in waiting
+     * @throws BulkheadRejectedException when queue is full or wait timeout
+     */
+    public void enter() throws InterruptedException {
+        if (semaphore.tryAcquire()) return;
+
+        if (queuedSize.incrementAndGet() > maxQueue) {
+            queuedSize.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            throw new BulkheadRejectedException("Bulkhead '" + name + "' is full");
+        }
+        try {
+            if (maxWait == 0L) {
+                semaphore.acquire();
+            } else if (!semaphore.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                rejectedCount.incrementAndGet();
+                throw new BulkheadRejectedException("Timeout at waiting in bulkhead '" + name + "'");
+            }
+        } finally {
+            queuedSize.decrementAndGet();
+        }
+    }
+
+    public void exit() {
+        semaphore.release();
+    }
+
+    //true that bulkhead was created with given limits
+    boolean hasLimits(int maxConcurrency, int maxQueue, long maxWait) {
+        return this.maxConcurrency == maxConcurrency && this.maxQueue == maxQueue && this.maxWait == maxWait;
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: monitoring(7)                                                          //
+    //***************************************************************************************************************//
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    //count of calls in bulkhead
+    public int getActiveSize() {
+        return maxConcurrency - semaphore.availablePermits();
+    }
+
+    public int getQueuedSize() {
+        return queuedSize.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker of a data source,driven by failures of connection acquisition(including acquisition timeout).
+ *
+ * <p>Breaker opens when failure rate in a time window reaches threshold,or immediately when pool reports connection
+ * creation timeout;an open breaker rejects acquisitions until open time elapsed,then half-opens to let some probe
+ * acquisitions pass,breaker is closed when all probes succeed and reopened when any probe fails.
+ *
+ * @author Chris Liao
+ */
+public final class CircuitBreaker {
+    public static final int State_Closed = 0;
+    public static final int State_Open = 1;
+    public static final int State_Half_Open = 2;
+    private static final String[] State_Names = {"CLOSED", "OPEN", "HALF_OPEN"};
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private final String dsId;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long windowMillis;
+    private final long openMillis;
+    private final int probeSize;
+
+    private final AtomicInteger state = new AtomicInteger(State_Closed);
+    //counts of current window,replaced with its start time together on rollover
+    private final AtomicReference<WindowCounts> windowCounts;
+    private final AtomicInteger probePermits = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private final AtomicLong transitionCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private volatile long openUntilTime;
+    private volatile long lastTransitionTime;
+
+    public CircuitBreaker(String dsId, double failureRateThreshold, int minimumCalls, long windowMillis, long openMillis, int probeSize) {
+        if (failureRateThreshold <= 0D || failureRateThreshold > 1D)
+            throw new IllegalArgumentException("Failure rate threshold of circuit breaker must be in range(0,1]");
+        if (minimumCalls <= 0) throw new IllegalArgumentException("Minimum calls of circuit breaker must be greater than zero");
+        if (windowMillis <= 0L) throw new IllegalArgumentException("Window time of circuit breaker must be greater than zero");
+        if (openMillis <= 0L) throw new IllegalArgumentException("Open time of circuit breaker must be greater than zero");
+        if (probeSize <= 0) throw new IllegalArgumentException("Probe size of circuit breaker must be greater than zero");
+
+        this.dsId = dsId;
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = minimumCalls;
+        this.windowMillis = windowMillis;
+        this.openMillis = openMillis;
+        this.probeSize = probeSize;
+        this.lastTransitionTime = System.currentTimeMillis();
+        this.windowCounts = new AtomicReference<>(new WindowCounts(lastTransitionTime, 0, 0));
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: acquisition permit and result(3)                                       //
+    //***************************************************************************************************************//
+
+    /**
+     * Checks whether an acquisition is permitted.
+     *
+     * @return true that acquisition can go on,false that breaker rejects it
+     */
+    boolean tryAcquire() {
+        int currentState = state.get();
+        if (currentState == State_Closed) return true;
+
+        if (currentState == State_Open) {
+            if (System.currentTimeMillis() < openUntilTime) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (transit(State_Open, State_Half_Open)) {
+                probeSuccesses.set(0);
+                probePermits.set(probeSize);
+            }
+        }
+
+        //half open:only probes are permitted
+        if (state.get() == State_Half_Open && tryAcquireProbe()) return true;
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    //permits stop at zero,so they are not driven negative by rejected probes
+    private boolean tryAcquireProbe() {
+        for (; ; ) {
+            int permits = probePermits.get();
+            if (permits <= 0) return false;
+            if (probePermits.compareAndSet(permits, permits - 1)) return true;
+        }
+    }
+
+    void onSuccess() {
+        int currentState = state.get();
+        if (currentState == State_Half_Open) {
+            if (probeSuccesses.incrementAndGet() >= probeSize && transit(State_Half_Open, State_Closed))
+                resetWindow(System.currentTimeMillis());
+        } else if (currentState == State_Closed) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a failed acquisition.
+     *
+     * @param creationTimeout true that pool has timed out connection creations,breaker opens immediately
+     */
+    void onFailure(boolean creationTimeout) {
+        int currentState = state.get();
+        if (currentState == State_Half_Open) {
+            open(State_Half_Open);
+        } else if (currentState == State_Closed) {
+            WindowCounts counts = record(true);
+            if (creationTimeout || (counts.calls >= minimumCalls && counts.failures >= failureRateThreshold * counts.calls))
+                open(State_Closed);
+        }
+    }
+
+    //counts are added to current window or to a new window on rollover in one CAS,so no count is lost at rollover
+    private WindowCounts record(boolean failure) {
+        int failureIncrement = failure ? 1 : 0;
+        for (; ; ) {
+            WindowCounts counts = windowCounts.get();
+            long now = System.currentTimeMillis();
+            WindowCounts newCounts = now - counts.startTime >= windowMillis ?
+                    new WindowCounts(now, 1, failureIncrement) :
+                    new WindowCounts(counts.startTime, counts.calls + 1, counts.failures + failureIncrement);
+            if (windowCounts.compareAndSet(counts, newCounts)) return newCounts;
+        }
+    }
+
+    private void resetWindow(long now) {
+        windowCounts.set(new WindowCounts(now, 0, 0));
+    }
+
+    private void open(int fromState) {
+        openUntilTime = System.currentTimeMillis() + openMillis;
+        transit(fromState, State_Open);
+    }
+
+    private boolean transit(int fromState, int toState) {
+        if (!state.compareAndSet(fromState, toState)) return false;
+        lastTransitionTime = System.currentTimeMillis();
+        transitionCount.incrementAndGet();
+        if (toState == State_Open) {
+            log.warn("Circuit breaker of data source({}) changed from {} to {}", dsId, State_Names[fromState], State_Names[toState]);
+        } else {
+            log.info("Circuit breaker of data source({}) changed from {} to {}", dsId, State_Names[fromState], State_Names[toState]);
+        }
+        return true;
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: state(5)                                                               //
+    //***************************************************************************************************************//
+    public int getState() {
+        return state.get();
+    }
+
+    public String getStateName() {
+        return State_Names[state.get()];
+    }
+
+    public long getTransitionCount() {
+        return transitionCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getLastTransitionTime() {
+        return lastTransitionTime;
+    }
+
+    private record WindowCounts(long startTime, int calls, int failures) {
+    }
+}
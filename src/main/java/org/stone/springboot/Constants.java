@@ -36,6 +36,34 @@ public class Constants {
     public static final String Config_Virtual_Thread = "spring.threads.virtual.enabled";
     //thread local enable
     public static final String Config_ThreadLocal_Enable = "useThreadLocal";
+    //create sources in parallel at startup(spring.datasource.parallelInit,spring.objectSource.parallelInit)
+    public static final String Config_Parallel_Init = "parallelInit";
+    //max count of threads in borrowing from a source,borrow beyond it is shed(spring.datasource.<id>.maxWaiters)
+    public static final String Config_Max_Waiters = "maxWaiters";
+    //max predicted wait of borrowing from a source(milliseconds),borrow beyond it is shed
+    public static final String Config_Max_Predicted_Wait = "maxPredictedWait";
+    //count of independent pools(stripes) backing a source,max size and initial size are split to stripes
+    public static final String Config_Stripes = "stripes";
+    //enable autoscaling on max size of a pool(spring.datasource.<id>.autoscale)
+    public static final String Config_Autoscale = "autoscale";
+    //lower bound of max size in autoscaling,default is configured max size
+    public static final String Config_Autoscale_Min_Size = "autoscaleMinSize";
+    //upper bound of max size in autoscaling
+    public static final String Config_Autoscale_Max_Size = "autoscaleMaxSize";
+    //size changed on each resize
+    public static final String Config_Autoscale_Step = "autoscaleStep";
+    //no resize in this time after a resize(milliseconds)
+    public static final String Config_Autoscale_Cooldown = "autoscaleCooldown";
+    //pool grows when utilization(borrowed/max) reaches it,range(0,1]
+    public static final String Config_Autoscale_Grow_Utilization = "autoscaleGrowUtilization";
+    //pool shrinks when utilization falls to it,range[0,grow utilization)
+    public static final String Config_Autoscale_Shrink_Utilization = "autoscaleShrinkUtilization";
+    //count of consecutive samples required by a resize decision
+    public static final String Config_Autoscale_Samples = "autoscaleSamples";
+    //max borrowed size of current pool at a resize,a resize is skipped over it,default is half of upper bound
+    public static final String Config_Autoscale_Max_Overshoot = "autoscaleMaxOvershoot";
+    //sampling interval of autoscaler(milliseconds)
+    public static final String Config_Autoscale_Interval = "autoscaleInterval";
 
     //***************************************************************************************************************//
     //                                     3: Data Source                                                            //
@@ -52,12 +80,52 @@ public class Constants {
     public static final String Config_DS_Primary = "primary";
     //factory class name to create datasource
     public static final String Config_DS_Factory = "factory";
+    //pool physical XA connections of a configured XADataSource type
+    public static final String Config_DS_XA_Pooled = "xaPooled";
+    //max wait time of draining old pool after hot swap or autoscaling resize(milliseconds)
+    public static final String Config_DS_Drain_Timeout = "drainTimeout";
+    //hot swap pools of bee data sources on spring cloud environment change(spring.datasource.hotSwapOnRefresh)
+    public static final String Config_DS_Hot_Swap_On_Refresh = "hotSwapOnRefresh";
+    //enable circuit breaker on connection acquisition
+    public static final String Config_DS_Circuit_Breaker = "circuitBreaker";
+    //failure rate to open breaker,range(0,1]
+    public static final String Config_DS_Breaker_Failure_Rate = "breakerFailureRate";
+    //minimum acquisitions in a window before failure rate is evaluated
+    public static final String Config_DS_Breaker_Minimum_Calls = "breakerMinimumCalls";
+    //time window of failure rate(milliseconds)
+    public static final String Config_DS_Breaker_Window = "breakerWindow";
+    //open time of breaker before half-open(milliseconds)
+    public static final String Config_DS_Breaker_Open_Time = "breakerOpenTime";
+    //count of probe acquisitions in half-open state
+    public static final String Config_DS_Breaker_Probe_Size = "breakerProbeSize";
+    //ID of standby data source,acquisitions fail over to it when breaker is open
+    public static final String Config_DS_Standby_Id = "standbyDsId";
+    //share of pool max size for low priority borrowers,range(0,1),priority lanes enabled when set
+    public static final String Config_DS_Low_Priority_Share = "lowPriorityShare";
+    //max wait time of low priority borrowers in lane(milliseconds)
+    public static final String Config_DS_Low_Priority_Max_Wait = "lowPriorityMaxWait";
 
     //Composited data source registered to spring with this id
     public static final String Config_Dyn_DS_Id = "dynDsId";
     //ID of primary datasource in composited data source
     public static final String Config_Dyn_DS_PrimaryId = "dynDsPrimaryId";
 
+    //id list of read/write splitting data sources
+    public static final String Config_RW_DS_Id = "rwDsId";
+    //ID of write data source in a read/write splitting data source
+    public static final String Config_RW_Write_DS_Id = "writeDsId";
+    //ID list of read data sources in a read/write splitting data source
+    public static final String Config_RW_Read_DS_Ids = "readDsIds";
+    //selector of read data sources(roundRobin,leastBorrowed or class name of selector)
+    public static final String Config_RW_Read_Selector = "readSelector";
+
+    //id list of sharding data sources
+    public static final String Config_Shard_DS_Id = "shardDsId";
+    //ID list of shard data sources in a sharding data source
+    public static final String Config_Shard_DS_Ids = "shardDsIds";
+    //virtual node size of each shard on hash ring
+    public static final String Config_Shard_Virtual_Nodes = "virtualNodes";
+
     //***************************************************************************************************************//
     //                                     4: Object Source                                                          //
     //***************************************************************************************************************//
@@ -15,11 +15,18 @@
  */
 package org.stone.springboot;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.stone.beecp.BeeConnectionPoolMonitorVo;
 import org.stone.beecp.BeeDataSource;
+import org.stone.beecp.BeeDataSourceConfig;
 import org.stone.beecp.BeeMethodExecutionListener;
 import org.stone.beecp.BeeMethodExecutionLog;
 import org.stone.beecp.jta.BeeJtaDataSource;
+import org.stone.springboot.dynamic.ReadWriteDataSource;
+import org.stone.springboot.dynamic.ShardingDataSource;
+import org.stone.springboot.exception.DataSourceException;
+import org.stone.springboot.exception.DataSourceOverloadException;
 
 import javax.sql.DataSource;
 import javax.sql.XAConnection;
@@ -28,9 +35,9 @@ import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
-import java.util.Collections;
-import java.util.List;
-import java.util.UUID;
+import java.sql.SQLTransientConnectionException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A data Source wrapper
@@ -38,25 +45,48 @@ import java.util.UUID;
  * @author Chris Liao
  */
 public final class DataSourceBean implements DataSource, XADataSource {
+    private static final Logger log = LoggerFactory.getLogger(DataSourceBean.class);
     private final String dsId;
     private final boolean jndiDs;
     private final boolean primary;
+    private final boolean routingDs;
 
     private final boolean isDs;
     private final boolean isXaDs;
-    private final DataSource ds;
-    private final XADataSource xaDs;
+    //pool of bee data source can be swapped(blue/green),so below three are volatile
+    private volatile DataSource ds;
+    private volatile XADataSource xaDs;
 
     private final boolean isBeeDs;
     private final boolean isBeeJtaDs;
-    private final BeeDataSource beeDs;
+    private volatile BeeDataSource beeDs;
     private final BeeJtaDataSource beeJtaDs;
+    private final boolean isStripedDs;
+    private final StripedDataSource stripedDs;
     private final DataSourcePoolMonitorVo poolMonitorVo;
+    private final AcquisitionStatistics acquisitionStatistics;
+    private volatile CircuitBreaker circuitBreaker;
+    private volatile DataSourceBean standbyDs;
+    private volatile AdmissionController admissionController;
+    private volatile PriorityLanes priorityLanes;
+    private volatile BeeMethodExecutionListener methodExecutionListener;
+    //configuration items of data source registered at runtime,null if registered from spring environment
+    private volatile Map<String, String> runtimeProperties;
+    //set on runtime removal,pool can't be swapped any longer;guarded by lock of this bean
+    private boolean removed;
+    private final Map<String, Bulkhead> bulkheadMap = new ConcurrentHashMap<>(1);
+    //load of pool to predict wait in admission control
+    private final AdmissionController.PoolLoad poolLoad = () -> {
+        BeeConnectionPoolMonitorVo vo = readRawPoolMonitorVo();
+        return vo != null ? new AdmissionController.LoadSample(vo.getSemaphoreWaitingSize() + vo.getTransferWaitingSize(),
+                vo.getMaxSize()) : null;
+    };
 
     public DataSourceBean(String dsId, boolean jndiDs, boolean primary, Object ids) {
         this.dsId = dsId;
         this.jndiDs = jndiDs;
         this.primary = primary;
+        this.routingDs = ids instanceof ReadWriteDataSource || ids instanceof ShardingDataSource;
 
         boolean isDs = false;
         boolean isXaDs = false;
@@ -71,7 +101,8 @@ public final class DataSourceBean implements DataSource, XADataSource {
         if (ids instanceof DataSource) {
             isDs = true;
             ds = (DataSource) ids;
-        } else {
+        }
+        if (ids instanceof XADataSource) {//bee data source is also a XA data source
             isXaDs = true;
             xaDs = (XADataSource) ids;
         }
@@ -93,11 +124,14 @@ public final class DataSourceBean implements DataSource, XADataSource {
         this.ds = ds;
         this.xaDs = xaDs;
         this.isBeeJtaDs = isBeeJtaDs;
-        this.poolMonitorVo = new DataSourcePoolMonitorVo(dsId, UUID.randomUUID().toString());
+        this.isStripedDs = ds instanceof StripedDataSource;
+        this.stripedDs = isStripedDs ? (StripedDataSource) ds : null;
+        this.acquisitionStatistics = new AcquisitionStatistics();
+        this.poolMonitorVo = new DataSourcePoolMonitorVo(dsId, UUID.randomUUID().toString(), acquisitionStatistics, this);
     }
 
     //***************************************************************************************************************//
-    //                                     1: Base properties (3)                                                    //
+    //                                     1: Base properties (6)                                                    //
     //***************************************************************************************************************//
     public String getDsId() {
         return dsId;
@@ -111,22 +145,127 @@ public final class DataSourceBean implements DataSource, XADataSource {
         return poolMonitorVo.getDsUUID();
     }
 
+    //wrapped data source,which is a routing data source when this is a routing bean
+    DataSource getDelegate() {
+        return ds;
+    }
+
+    boolean isBeeDs() {
+        return isBeeDs;
+    }
+
+    boolean isBeeJtaDs() {
+        return isBeeJtaDs;
+    }
+
+    //true that wrapped data source routes to a group of data sources(read/write splitting or sharding)
+    boolean isRoutingDs() {
+        return routingDs;
+    }
+
+    Map<String, String> getRuntimeProperties() {
+        return runtimeProperties;
+    }
+
+    void setRuntimeProperties(Map<String, String> runtimeProperties) {
+        this.runtimeProperties = runtimeProperties;
+    }
+
+    /**
+     * Gets exponentially weighted moving average of connection acquisition time.
+     *
+     * @return average time in milliseconds
+     */
+    public double getAcquisitionLatencyEwma() {
+        return acquisitionStatistics.getLatency();
+    }
+
+    /**
+     * Gets exponentially weighted moving average of connection acquisition failures.
+     *
+     * @return average error rate,range[0,1]
+     */
+    public double getAcquisitionErrorRateEwma() {
+        return acquisitionStatistics.getErrorRate();
+    }
+
     //***************************************************************************************************************//
     //                                     2: Connection get(4)                                                      //
     //***************************************************************************************************************//
     public Connection getConnection() throws SQLException {
-        if (isDs) {
-            return ds.getConnection();
-        } else {
-            return this.getXAConnection().getConnection();
-        }
+        return getConnection(null, null, false, true);
     }
 
     public Connection getConnection(String username, String password) throws SQLException {
-        if (isDs) {
-            return ds.getConnection(username, password);
-        } else {
-            return this.getXAConnection(username, password).getConnection();
+        return getConnection(username, password, true, true);
+    }
+
+    private Connection getConnection(String username, String password, boolean withUser, boolean failover) throws SQLException {
+        //1: admission control,shed borrow when pool is overloaded
+        AdmissionController admission = this.admissionController;
+        if (admission == null) return getConnectionInLane(username, password, withUser, failover);
+        if (!admission.tryEnter(acquisitionStatistics.getLatency(), poolLoad))
+            throw new DataSourceOverloadException("Connection borrow was shed by overloaded data source:" + dsId);
+        try {
+            return getConnectionInLane(username, password, withUser, failover);
+        } finally {
+            admission.exit();
+        }
+    }
+
+    //borrows in priority lane,low priority borrowers are capped and served after high priority borrowers
+    private Connection getConnectionInLane(String username, String password, boolean withUser, boolean failover) throws SQLException {
+        PriorityLanes lanes = this.priorityLanes;
+        CircuitBreaker breaker = this.circuitBreaker;
+        if (lanes == null) return getConnection(username, password, withUser, failover, breaker);
+        return lanes.borrow(() -> getConnection(username, password, withUser, failover, breaker));
+    }
+
+    private Connection getConnection(String username, String password, boolean withUser, boolean failover, CircuitBreaker breaker) throws SQLException {
+        //2: check circuit breaker,fail over to standby data source when open
+        if (breaker != null && !breaker.tryAcquire()) {
+            DataSourceBean standby = this.standbyDs;
+            if (failover && standby != null) return standby.getConnection(username, password, withUser, false);
+            throw new SQLTransientConnectionException("Circuit breaker is open on data source:" + dsId);
+        }
+
+        //3: get connection
+        long startTime = System.nanoTime();
+        try {
+            Connection con;
+            if (withUser) {
+                con = isDs ? ds.getConnection(username, password) : this.getXAConnection(username, password).getConnection();
+            } else {
+                con = isDs ? ds.getConnection() : this.getXAConnection().getConnection();
+            }
+            acquisitionStatistics.success(System.nanoTime() - startTime);
+            if (breaker != null) breaker.onSuccess();
+            return con;
+        } catch (SQLException | RuntimeException e) {
+            acquisitionStatistics.failure(System.nanoTime() - startTime);
+            if (breaker != null) breaker.onFailure(hasCreationTimeout());
+            throw e;
+        }
+    }
+
+    //true that pool has timed out connection creations(database stalls)
+    private boolean hasCreationTimeout() {
+        BeeConnectionPoolMonitorVo vo = readRawPoolMonitorVo();
+        return vo != null && vo.getCreatingTimeoutSize() > 0;
+    }
+
+    //true that pool has no idle connections
+    private boolean isPoolExhausted() {
+        BeeConnectionPoolMonitorVo vo = readRawPoolMonitorVo();
+        return vo != null && vo.getIdleSize() == 0;
+    }
+
+    //monitor vo of bee pool,null if not a bee pool or failed to read it
+    private BeeConnectionPoolMonitorVo readRawPoolMonitorVo() {
+        try {
+            return getRawPoolMonitorVo();
+        } catch (Throwable e) {
+            return null;
         }
     }
 
@@ -141,19 +280,105 @@ public final class DataSourceBean implements DataSource, XADataSource {
     }
 
     //***************************************************************************************************************//
-    //                                     3: Data Source Monitor VO                                                 //
+    //                                     3: Circuit breaker,admission control and priority lanes(9)                //
+    //***************************************************************************************************************//
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public DataSourceBean getStandbyDs() {
+        return standbyDs;
+    }
+
+    void setStandbyDs(DataSourceBean standbyDs) {
+        this.standbyDs = standbyDs;
+    }
+
+    void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    //count of borrows shed by admission control
+    public long getShedCount() {
+        AdmissionController admission = this.admissionController;
+        return admission != null ? admission.getShedCount() : 0L;
+    }
+
+    //count of threads in borrowing,zero if admission control not enabled
+    public int getBorrowingSize() {
+        AdmissionController admission = this.admissionController;
+        return admission != null ? admission.getBorrowingSize() : 0;
+    }
+
+    //enables priority lanes,low priority borrowers are capped to lane size
+    void setPriorityLanes(int lowLaneSize, long lowLaneMaxWait) {
+        this.priorityLanes = new PriorityLanes(dsId, lowLaneSize, lowLaneMaxWait, this::isPoolExhausted);
+    }
+
+    PriorityLanes getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    //***************************************************************************************************************//
+    //                                     4: Bulkheads of annotated methods(2)                                      //
+    //***************************************************************************************************************//
+
+    /**
+     * Gets a bulkhead with name,created with given limits if not exists.
+     *
+     * @param name           bulkhead name
+     * @param maxConcurrency max concurrent calls
+     * @param maxQueue       max waiting calls
+     * @param maxWait        max wait time(milliseconds),zero means waiting until entered
+     * @return bulkhead
+     * @throws DataSourceException when bulkhead exists with different limits
+     */
+    public Bulkhead getOrCreateBulkhead(String name, int maxConcurrency, int maxQueue, long maxWait) {
+        Bulkhead bulkhead = bulkheadMap.computeIfAbsent(name, k -> new Bulkhead(k, maxConcurrency, maxQueue, maxWait));
+        if (!bulkhead.hasLimits(maxConcurrency, maxQueue, maxWait))
+            throw new DataSourceException("Bulkhead '" + name + "' of data source(" + dsId + ") exists with different limits,maxConcurrency:"
+                    + bulkhead.getMaxConcurrency() + ",maxQueue:" + bulkhead.getMaxQueue() + ",maxWait:" + bulkhead.getMaxWait());
+        return bulkhead;
+    }
+
+    public Collection<Bulkhead> getBulkheads() {
+        return bulkheadMap.values();
+    }
+
+    //***************************************************************************************************************//
+    //                                     5: Data Source Monitor VO(2)                                              //
     //***************************************************************************************************************//
     public BeeConnectionPoolMonitorVo getPoolMonitorVo() throws SQLException {
         if (isBeeDs) {
             poolMonitorVo.setVo(beeDs.getPoolMonitorVo());
         } else if (isBeeJtaDs) {
             poolMonitorVo.setVo(beeJtaDs.getPoolMonitorVo());
+        } else if (isStripedDs) {
+            poolMonitorVo.setVo(stripedDs.getPoolMonitorVo());
+        } else {//no pool monitor(jndi data source,routing data source)
+            return null;
         }
         return poolMonitorVo;
     }
 
+    /**
+     * Gets monitor vo read from pool directly,which is not set to shared vo wrapper of {@link #getPoolMonitorVo()},
+     * so it is safe to be read by concurrent borrowers(such as load based selectors).
+     *
+     * @return monitor vo of pool,null if no pool monitor(jndi data source,routing data source)
+     * @throws SQLException when fail to read monitor vo from pool
+     */
+    public BeeConnectionPoolMonitorVo getRawPoolMonitorVo() throws SQLException {
+        return isBeeDs ? beeDs.getPoolMonitorVo() : isBeeJtaDs ? beeJtaDs.getPoolMonitorVo()
+                : isStripedDs ? stripedDs.getPoolMonitorVo() : null;
+    }
+
     //***************************************************************************************************************//
-    //                                     4: Data source close and start(3)                                         //
+    //                                     6: Data source close,start,reconfigure and swap(6)                        //
     //***************************************************************************************************************//
     public void close() throws SQLException {
         if (jndiDs) return;
@@ -162,6 +387,8 @@ public final class DataSourceBean implements DataSource, XADataSource {
             beeDs.close();
         } else if (isBeeJtaDs) {
             beeJtaDs.close();
+        } else if (isStripedDs) {
+            stripedDs.close();
         }
     }
 
@@ -170,7 +397,137 @@ public final class DataSourceBean implements DataSource, XADataSource {
             ((BeeDataSource) ds).restart(force);
         } else if (isBeeJtaDs) {
             beeJtaDs.restart(force);
+        } else if (isStripedDs) {
+            stripedDs.restart(force);
+        }
+    }
+
+    /**
+     * Resizes pool to a new max size without clearing it:a new pool is created with configuration copied from current
+     * pool and new max size,then it is swapped in(blue/green),current pool is drained in background and closed after
+     * its borrowed connections returned or drain timeout. Low priority lane is resized in proportion.
+     *
+     * @param maxActive    new max size of pool
+     * @param drainTimeout max wait time of draining current pool(milliseconds)
+     * @throws SQLException when data source is not a bee data source or fail to create new pool,current pool is kept on failure
+     */
+    public synchronized void reconfigure(int maxActive, long drainTimeout) throws SQLException {
+        if (removed) throw new DataSourceException("Data source has been removed:" + dsId);
+        if (!isBeeDs && !isStripedDs) throw new SQLFeatureNotSupportedException("Reconfiguration only supported on bee data source");
+        if (maxActive <= 0) throw new IllegalArgumentException("Max active must be greater than zero");
+        if (isStripedDs) {
+            int oldMaxActive = stripedDs.getPoolMonitorVo().getMaxSize();
+            BeeDataSource[] oldStripes = stripedDs.swapStripes(maxActive, methodExecutionListener);
+            resizePriorityLanes(oldMaxActive, maxActive);
+            log.info("Swapped stripes of data source({}),max size:{}->{},draining old stripes in {}ms", dsId, oldMaxActive, maxActive, drainTimeout);
+            startDrainThread(drainTimeout, oldStripes);
+            return;
         }
+
+        BeeDataSourceConfig config = new BeeDataSourceConfig();
+        beeDs.copyTo(config);
+        config.setMaxActive(maxActive);
+        if (config.getInitialSize() > maxActive) config.setInitialSize(maxActive);
+        swapPool(new BeeDataSource(config), drainTimeout);
+    }
+
+    /**
+     * Swaps pool with pool of another bee data source(blue/green),new pool is warmed up before new borrows are
+     * redirected to it,then old pool is drained in background and closed after all its borrowed connections
+     * returned or drain timeout.
+     *
+     * @param newPool      a data source bean wrapping new pool,it is discarded after swap
+     * @param drainTimeout max wait time of draining old pool(milliseconds)
+     * @throws SQLException        when not bee data sources or fail to warm up new pool,current pool is kept on failure
+     * @throws DataSourceException when this data source has been removed,new pool is closed
+     */
+    synchronized void swapPool(DataSourceBean newPool, long drainTimeout) throws SQLException {
+        if (removed) {
+            newPool.close();
+            throw new DataSourceException("Data source has been removed:" + dsId);
+        }
+        if (!isBeeDs || !newPool.isBeeDs) {
+            newPool.close();
+            throw new SQLFeatureNotSupportedException("Hot swap only supported on bee data source");
+        }
+        swapPool(newPool.beeDs, drainTimeout);
+    }
+
+    private void swapPool(BeeDataSource newDs, long drainTimeout) throws SQLException {
+        BeeDataSource oldDs = this.beeDs;
+        int oldMaxSize, newMaxSize;
+        try {
+            //initial connections are created with pool,a borrow verifies url and credentials
+            newDs.getConnection().close();
+            newDs.enableLogPrint(oldDs.isEnabledLogPrint());
+            newDs.enableMethodExecutionLogCache(oldDs.isEnabledMethodExecutionLogCache());
+            BeeMethodExecutionListener listener = this.methodExecutionListener;
+            if (listener != null) newDs.setMethodExecutionListener(listener);
+            oldMaxSize = oldDs.getPoolMonitorVo().getMaxSize();
+            newMaxSize = newDs.getPoolMonitorVo().getMaxSize();
+        } catch (SQLException | RuntimeException e) {
+            newDs.close();
+            throw e;
+        }
+
+        this.beeDs = newDs;
+        this.ds = newDs;
+        this.xaDs = newDs;
+        resizePriorityLanes(oldMaxSize, newMaxSize);
+        log.info("Swapped pool of data source({}),max size:{}->{},draining old pool in {}ms", dsId, oldMaxSize, newMaxSize, drainTimeout);
+        startDrainThread(drainTimeout, oldDs);
+    }
+
+    //closes data source after borrowed connections returned or drain timeout,used on runtime removal;
+    //pool swaps are serialized with it by lock of this bean and rejected after it
+    synchronized void closeAfterDrained(long drainTimeout) throws SQLException {
+        removed = true;
+        if (isBeeDs) {
+            startDrainThread(drainTimeout, beeDs);
+        } else if (isStripedDs) {
+            startDrainThread(drainTimeout, stripedDs.getStripes());
+        } else {
+            close();
+        }
+    }
+
+    private void startDrainThread(long drainTimeout, BeeDataSource... pools) {
+        Thread drainThread = new Thread(() -> drainPools(drainTimeout, pools), "StoneDataSourceDrainThread");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    //pools are closed together after all of them drained or timeout
+    private void drainPools(long drainTimeout, BeeDataSource[] pools) {
+        long deadline = System.currentTimeMillis() + drainTimeout;
+        int borrowedSize = 0;
+        try {
+            while ((borrowedSize = getBorrowedSize(pools)) > 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(100L);
+        } catch (Throwable e) {
+            log.warn("Interrupted in draining pool of data source({})", dsId, e);
+        } finally {
+            for (BeeDataSource pool : pools)
+                pool.close();
+            if (borrowedSize > 0)
+                log.warn("Closed pool of data source({}) on drain timeout,{} connections were in use", dsId, borrowedSize);
+            else
+                log.info("Closed pool of data source({}) after drained", dsId);
+        }
+    }
+
+    private static int getBorrowedSize(BeeDataSource[] pools) throws SQLException {
+        int borrowedSize = 0;
+        for (BeeDataSource pool : pools)
+            borrowedSize += pool.getPoolMonitorVo().getBorrowedSize();
+        return borrowedSize;
+    }
+
+    //low priority lane is resized in proportion to pool max size
+    private void resizePriorityLanes(int oldMaxSize, int newMaxSize) {
+        PriorityLanes lanes = this.priorityLanes;
+        if (lanes != null && oldMaxSize > 0 && oldMaxSize != newMaxSize)
+            lanes.resize(Math.max(1, (int) ((long) lanes.getLowLaneSize() * newMaxSize / oldMaxSize)));
     }
 
     public boolean isClosed() throws SQLException {
@@ -178,19 +535,23 @@ public final class DataSourceBean implements DataSource, XADataSource {
             return beeDs.isClosed();
         } else if (isBeeJtaDs) {
             return beeJtaDs.isClosed();
+        } else if (isStripedDs) {
+            return stripedDs.isClosed();
         } else {//jndi datasource
             return false;
         }
     }
 
     //***************************************************************************************************************//
-    //                                     5: Log print(2)                                                              //
+    //                                     7: Log print(2)                                                           //
     //***************************************************************************************************************//
     public boolean isEnabledLogPrint() throws SQLException {
         if (isBeeDs) {
             return beeDs.isEnabledLogPrint();
         } else if (isBeeJtaDs) {
             return beeJtaDs.isEnabledLogPrint();
+        } else if (isStripedDs) {
+            return stripedDs.isEnabledLogPrint();
         } else {
             return false;
         }
@@ -201,17 +562,21 @@ public final class DataSourceBean implements DataSource, XADataSource {
             beeDs.enableLogPrint(printRuntimeLog);
         } else if (isBeeJtaDs) {
             beeJtaDs.enableLogPrint(printRuntimeLog);
+        } else if (isStripedDs) {
+            stripedDs.enableLogPrint(printRuntimeLog);
         }
     }
 
     //***************************************************************************************************************//
-    //                                     6: Method execution Log(5)                                                //
+    //                                     8: Method execution Log(5)                                                //
     //***************************************************************************************************************//
     public boolean isEnabledMethodExecutionLogCache() throws SQLException {
         if (isBeeDs) {
             return this.beeDs.isEnabledMethodExecutionLogCache();
         } else if (isBeeJtaDs) {
             return this.beeJtaDs.isEnabledMethodExecutionLogCache();
+        } else if (isStripedDs) {
+            return stripedDs.isEnabledMethodExecutionLogCache();
         } else {
             return false;
         }
@@ -222,6 +587,8 @@ public final class DataSourceBean implements DataSource, XADataSource {
             this.beeDs.enableMethodExecutionLogCache(enable);
         } else if (isBeeJtaDs) {
             this.beeJtaDs.enableMethodExecutionLogCache(enable);
+        } else if (isStripedDs) {
+            stripedDs.enableMethodExecutionLogCache(enable);
         }
     }
 
@@ -230,6 +597,8 @@ public final class DataSourceBean implements DataSource, XADataSource {
             return beeDs.getMethodExecutionLog(type);
         } else if (isBeeJtaDs) {
             return beeJtaDs.getMethodExecutionLog(type);
+        } else if (isStripedDs) {
+            return stripedDs.getMethodExecutionLog(type);
         } else {
             return Collections.emptyList();
         }
@@ -240,21 +609,26 @@ public final class DataSourceBean implements DataSource, XADataSource {
             return beeDs.cancelStatement(logId);
         } else if (isBeeJtaDs) {
             return beeJtaDs.cancelStatement(logId);
+        } else if (isStripedDs) {
+            return stripedDs.cancelStatement(logId);
         } else {
             return false;
         }
     }
 
     public void setMethodExecutionListener(BeeMethodExecutionListener listener) throws SQLException {
+        this.methodExecutionListener = listener;
         if (isBeeDs) {
             this.beeDs.setMethodExecutionListener(listener);
         } else if (isBeeJtaDs) {
             this.beeJtaDs.setMethodExecutionListener(listener);
+        } else if (isStripedDs) {
+            stripedDs.setMethodExecutionListener(listener);
         }
     }
 
     //***************************************************************************************************************//
-    //                                    7: Other implementation methods (7)                                        //
+    //                                    9: Other implementation methods (7)                                        //
     //***************************************************************************************************************//
     public PrintWriter getLogWriter() throws SQLException {
         return isDs ? ds.getLogWriter() : xaDs.getLogWriter();
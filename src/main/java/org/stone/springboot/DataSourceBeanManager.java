@@ -15,13 +15,24 @@
  */
 package org.stone.springboot;
 
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
 import org.stone.beecp.BeeConnectionPoolMonitorVo;
 import org.stone.beecp.BeeMethodExecutionLog;
+import org.stone.springboot.dynamic.ReadWriteDataSource;
+import org.stone.springboot.dynamic.ShardingDataSource;
 import org.stone.springboot.exception.DataSourceException;
 
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 
 /**
  * A Management tool to maintain registered datasource beans.
@@ -30,28 +41,81 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class DataSourceBeanManager {
     private static final DataSourceBeanManager single = new DataSourceBeanManager();
+    //configuration items accepted in runtime registration(relaxed names:lower case,without '-' and '_'),items to load
+    //classes or lookup objects(type,factory,jndiName,xaPooled,driverClassName...) are not accepted
+    private static final Set<String> Runtime_Config_Items = Set.of(
+            "jdbcurl", "url", "username", "user", "password", "poolname", "fairmode", "initialsize", "maxactive",
+            "borrowsemaphoresize", "maxwait", "idletimeout", "holdtimeout", "alivetestsql", "alivetesttimeout",
+            "aliveassumetime", "timercheckinterval", "forcerecycleborrowedonclose", "parktimeforretry",
+            "defaultcatalog", "defaultschema", "defaultreadonly", "defaultautocommit", "defaulttransactionisolationcode",
+            "defaulttransactionisolationname", "enablemethodexecutionlogcache", "stripes", "maxwaiters",
+            "maxpredictedwait", "autoscale", "autoscaleminsize", "autoscalemaxsize", "autoscalestep",
+            "autoscalecooldown", "autoscalegrowutilization", "autoscaleshrinkutilization", "autoscalesamples",
+            "autoscaleinterval", "draintimeout", "circuitbreaker", "breakerfailurerate", "breakerminimumcalls",
+            "breakerwindow", "breakeropentime", "breakerprobesize", "standbydsid", "lowpriorityshare",
+            "lowprioritymaxwait");
     private final Map<String, DataSourceBean> dataSourceMap = new ConcurrentHashMap<>(1);
+    //increased when data sources changed(added,restarted,removed),cached routes are invalid on version change
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile Environment environment;
 
     public static DataSourceBeanManager getInstance() {
         return single;
     }
 
     //***************************************************************************************************************//
-    //                                     1: ds maintenance(4)                                                      //
+    //                                     1: ds maintenance(7)                                                      //
     //***************************************************************************************************************//
+    public int getVersion() {
+        return version.get();
+    }
+
     public DataSourceBean getDataSource(String dsId) {
         return dataSourceMap.get(dsId);
     }
 
-    void addDataSource(DataSourceBean ds) {
+    //writes are serialized by lock,reads from map are lock-free
+    synchronized void addDataSource(DataSourceBean ds) {
         dataSourceMap.put(ds.getDsId(), ds);
+        version.incrementAndGet();
     }
 
-
     public void restart(String dsId, boolean force) throws SQLException {
         DataSourceBean ds = dataSourceMap.get(dsId);
         if (ds == null) throw new DataSourceException("Data source not found with id:" + dsId);
-        ds.restart(force);
+        try {
+            ds.restart(force);
+        } finally {
+            version.incrementAndGet();
+        }
+    }
+
+    void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Creates a new pool from current spring environment and swaps it into data source(blue/green),
+     * old pool is drained and closed in background. Pool of a data source registered at runtime is created from its
+     * registration items in front of current spring environment.
+     *
+     * @param dsId id of a bee data source
+     * @throws SQLException when fail to create or warm up new pool,current pool is kept on failure
+     * @throws DataSourceException when data source not found or removed before swap
+     */
+    public void hotSwap(String dsId) throws SQLException {
+        DataSourceBean ds = dataSourceMap.get(dsId);
+        if (ds == null) throw new DataSourceException("Data source not found with id:" + dsId);
+        Environment environment = this.environment;
+        if (environment == null) throw new DataSourceException("Hot swap not available before data sources registered");
+        Map<String, String> runtimeProperties = ds.getRuntimeProperties();
+        if (runtimeProperties != null)
+            environment = createRuntimeEnvironment(Constants.Config_DS_Prefix + "." + dsId, runtimeProperties, environment);
+        try {
+            new DataSourceHotSwapper(environment).swap(ds);
+        } finally {
+            version.incrementAndGet();
+        }
     }
 
     public boolean cancelStatement(String dsId, String logID) throws SQLException {
@@ -70,6 +134,7 @@ public final class DataSourceBeanManager {
             if (vo == null) continue;
             if (vo.isClosed()) {
                 iterator.remove();
+                version.incrementAndGet();
             } else {
                 poolMonitorVoList.add(vo);
             }
@@ -84,4 +149,174 @@ public final class DataSourceBeanManager {
         }
         return logList;
     }
+
+    //***************************************************************************************************************//
+    //                                     2: runtime registration and removal(3)                                    //
+    //***************************************************************************************************************//
+
+    /**
+     * Creates a data source with configuration items(same as items under 'spring.datasource.[dsId]') and registers
+     * it to manager,then it can be routed by {@code @BeeDsId} and be monitored;items not in map are read from spring
+     * environment. Data source created at runtime is not registered to spring container. Only pool items are accepted
+     * in map,items to load classes or lookup objects(type,factory,jndiName,xaPooled,driverClassName...) are rejected.
+     * Pool is created and warmed up out of manager lock,so a slow database doesn't block other registrations.
+     *
+     * @param dsId       id of data source
+     * @param properties configuration items,for example:jdbcUrl,username,password,maxActive
+     * @return created data source
+     * @throws SQLException when id exists,an item not accepted or fail to create data source
+     */
+    public DataSourceBean addDataSource(String dsId, Map<String, String> properties) throws SQLException {
+        if (dsId == null || dsId.isBlank()) throw new DataSourceException("Data source id can't be null or blank");
+        dsId = dsId.trim();
+        if (dataSourceMap.containsKey(dsId)) throw new DataSourceException("Data source already exists with id:" + dsId);
+        Environment environment = this.environment;
+        if (environment == null)
+            throw new DataSourceException("Runtime registration not available before data sources registered");
+
+        String prefix = Constants.Config_DS_Prefix + "." + dsId;
+        Environment runtimeEnvironment = createRuntimeEnvironment(prefix, properties, environment);
+        DataSourceBeanRegister register = new DataSourceBeanRegister();
+        DataSourceBean ds = register.createDataSourceBean(prefix, dsId, runtimeEnvironment);
+        ds.setRuntimeProperties(properties != null ? Collections.unmodifiableMap(new HashMap<>(properties)) : Collections.emptyMap());
+        try {
+            register.configureDataSourceBean(ds, runtimeEnvironment);
+            String standbyDsId = SpringBootEnvironmentUtil.getConfigValue(prefix, Constants.Config_DS_Standby_Id, runtimeEnvironment);
+            synchronized (this) {//id and standby are checked again with registration
+                if (dataSourceMap.containsKey(dsId)) throw new DataSourceException("Data source already exists with id:" + dsId);
+                if (standbyDsId != null && !standbyDsId.isBlank()) {
+                    DataSourceBean standbyDs = dataSourceMap.get(standbyDsId.trim());
+                    if (standbyDs == null) throw new DataSourceException("Standby data source not found with id:" + standbyDsId);
+                    ds.setStandbyDs(standbyDs);
+                }
+                register.registerAutoscaling(Collections.singletonMap(dsId, ds), runtimeEnvironment);
+                addDataSource(ds);
+            }
+        } catch (Throwable e) {
+            PoolAutoscaler.getInstance().removeTarget(ds);
+            ds.close();
+            if (e instanceof SQLException sqlException) throw sqlException;
+            if (e instanceof RuntimeException runtimeException) throw runtimeException;
+            throw new DataSourceException("Failed to configure data source:" + dsId, e);
+        }
+        return ds;
+    }
+
+    /**
+     * Removes a data source from manager,new routes to it fail,then its pool is closed after borrowed connections
+     * returned or drain timeout. A data source in use by others(standby,read/write splitting or sharding member)
+     * can't be removed.
+     *
+     * @param dsId         id of data source
+     * @param drainTimeout max wait time of draining pool(milliseconds)
+     * @throws SQLException when not found or in use
+     */
+    public synchronized void removeDataSource(String dsId, long drainTimeout) throws SQLException {
+        DataSourceBean ds = dataSourceMap.get(dsId);
+        if (ds == null) throw new DataSourceException("Data source not found with id:" + dsId);
+        for (DataSourceBean other : dataSourceMap.values()) {
+            if (other == ds) continue;
+            if (other.getStandbyDs() == ds || isMemberOf(ds, other))
+                throw new DataSourceException("Data source(" + dsId + ") is in use by data source:" + other.getDsId());
+        }
+
+        dataSourceMap.remove(dsId);
+        version.incrementAndGet();
+        PoolAutoscaler.getInstance().removeTarget(ds);
+        ds.closeAfterDrained(drainTimeout);
+    }
+
+    private static boolean isMemberOf(DataSourceBean ds, DataSourceBean routingDs) {
+        if (routingDs.getDelegate() instanceof ReadWriteDataSource rwDs)
+            return rwDs.getWriteDs() == ds || Arrays.asList(rwDs.getReadDs()).contains(ds);
+        if (routingDs.getDelegate() instanceof ShardingDataSource shardDs)
+            return Arrays.asList(shardDs.getRing().getShards()).contains(ds);
+        return false;
+    }
+
+    //configuration items in map are in front of spring environment
+    private static Environment createRuntimeEnvironment(String prefix, Map<String, String> properties, Environment environment) {
+        Map<String, Object> sourceMap = new HashMap<>(properties != null ? properties.size() : 0);
+        if (properties != null) {
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                String name = entry.getKey();
+                if (name == null || !Runtime_Config_Items.contains(toRelaxedName(name)))
+                    throw new DataSourceException("Configuration item not accepted in runtime registration:" + name);
+                sourceMap.put(prefix + "." + name.trim(), entry.getValue());
+            }
+        }
+
+        StandardEnvironment runtimeEnvironment = new StandardEnvironment();
+        MutablePropertySources sources = runtimeEnvironment.getPropertySources();
+        sources.addFirst(new MapPropertySource("stone-runtime:" + prefix, sourceMap));
+        if (environment instanceof ConfigurableEnvironment configurableEnvironment) {
+            for (PropertySource<?> source : configurableEnvironment.getPropertySources())
+                if (!sources.contains(source.getName())) sources.addLast(source);
+        }
+        return runtimeEnvironment;
+    }
+
+    private static String toRelaxedName(String name) {
+        StringBuilder builder = new StringBuilder(name.length());
+        for (int i = 0, l = name.length(); i < l; i++) {
+            char c = name.charAt(i);
+            if (c != '-' && c != '_' && !Character.isWhitespace(c)) builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: scatter-gather query(2)                                                //
+    //***************************************************************************************************************//
+
+    /**
+     * Runs a query on some data sources in parallel,rows are streamed back in arrival order.
+     *
+     * @param dsIds        id list of data sources,null or empty means all registered data sources(except routing groups)
+     * @param sql          query statement
+     * @param params       parameters of statement
+     * @param rowMapper    row mapper
+     * @param shardTimeout idle timeout of each data source,max wait time of its first row and next rows
+     * @param unit         time unit of timeout
+     * @param <T>          type of mapped row
+     * @return cursor of rows
+     */
+    public <T> ScatterGatherCursor<T> scatterGather(Collection<String> dsIds, String sql, Object[] params, ShardRowMapper<T> rowMapper,
+                                                    long shardTimeout, TimeUnit unit) {
+        return scatterGather(dsIds, sql, params, rowMapper, null, shardTimeout, unit);
+    }
+
+    /**
+     * Runs a query on some data sources in parallel,sorted rows of data sources are k-way merged by comparator.
+     *
+     * @param dsIds        id list of data sources,null or empty means all registered data sources(except routing groups)
+     * @param sql          query statement,rows of which should be sorted in same order as comparator
+     * @param params       parameters of statement
+     * @param rowMapper    row mapper
+     * @param comparator   comparator to merge rows,null means rows in arrival order
+     * @param shardTimeout idle timeout of each data source,max wait time of its first row and next rows
+     * @param unit         time unit of timeout
+     * @param <T>          type of mapped row
+     * @return cursor of rows
+     */
+    public <T> ScatterGatherCursor<T> scatterGather(Collection<String> dsIds, String sql, Object[] params, ShardRowMapper<T> rowMapper,
+                                                    Comparator<? super T> comparator, long shardTimeout, TimeUnit unit) {
+        if (sql == null || sql.isBlank()) throw new DataSourceException("Query statement can't be null or blank");
+        if (rowMapper == null) throw new DataSourceException("Row mapper can't be null");
+        if (shardTimeout <= 0L || unit == null) throw new DataSourceException("Shard timeout must be greater than zero");
+
+        Map<String, DataSourceBean> targetMap = new LinkedHashMap<>();
+        if (dsIds == null || dsIds.isEmpty()) {
+            for (DataSourceBean ds : dataSourceMap.values()) {
+                if (!ds.isRoutingDs()) targetMap.put(ds.getDsId(), ds);
+            }
+        } else {
+            for (String dsId : dsIds) {
+                DataSourceBean ds = dataSourceMap.get(dsId);
+                if (ds == null) throw new DataSourceException("Data source not found with id:" + dsId);
+                targetMap.put(dsId, ds);
+            }
+        }
+        return new ScatterGatherCursor<>(targetMap, sql, params, rowMapper, comparator, shardTimeout, unit);
+    }
 }
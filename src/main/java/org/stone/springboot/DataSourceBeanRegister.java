@@ -23,10 +23,14 @@ import org.springframework.context.EnvironmentAware;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
 import org.springframework.core.env.Environment;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
 import org.stone.beecp.BeeDataSource;
 import org.stone.springboot.annotation.EnableBeeDs;
+import org.stone.springboot.builder.SpringBeeDataSourceBuilder;
 import org.stone.springboot.builder.SpringDataSourceBuilder;
 import org.stone.springboot.builder.SpringXADataSourceBuilder;
+import org.stone.springboot.dynamic.*;
 import org.stone.springboot.exception.ConfigurationException;
 import org.stone.springboot.exception.DataSourceException;
 import org.stone.springboot.monitor.MonitorBeansRegister;
@@ -37,10 +41,7 @@ import javax.sql.DataSource;
 import javax.sql.XADataSource;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 import static org.stone.springboot.Constants.*;
 import static org.stone.tools.CommonUtil.isBlank;
@@ -49,6 +50,8 @@ import static org.stone.tools.CommonUtil.isNotBlank;
 /*
  * #ids of datasource
  * spring.datasource.dsId=ds1,ds2,ds3
+ * #create data sources in parallel(optional,default is false)
+ * spring.datasource.parallelInit=true
  *
  * #ds1
  * spring.datasource.ds1.primary=true
@@ -61,6 +64,31 @@ import static org.stone.tools.CommonUtil.isNotBlank;
  * spring.datasource.ds1.initialSize=10
  * spring.datasource.ds1.maxActive=10
  * spring.datasource.ds1.enableMethodExecutionLogCache=true
+ * #circuit breaker on connection acquisition(optional),fail over to standby data source when open
+ * spring.datasource.ds1.circuitBreaker=true
+ * spring.datasource.ds1.breakerFailureRate=0.5
+ * spring.datasource.ds1.breakerMinimumCalls=10
+ * spring.datasource.ds1.breakerWindow=10000
+ * spring.datasource.ds1.breakerOpenTime=5000
+ * spring.datasource.ds1.breakerProbeSize=3
+ * spring.datasource.ds1.standbyDsId=ds2
+ * #shed connection borrows when too many threads are borrowing or average borrow time is too long(optional)
+ * spring.datasource.ds1.maxWaiters=50
+ * spring.datasource.ds1.maxPredictedWait=2000
+ * #priority lanes(optional),low priority borrowers(@BeeDsId(lowPriority=true)) are capped to a share of max size
+ * spring.datasource.ds1.lowPriorityShare=0.3
+ * spring.datasource.ds1.lowPriorityMaxWait=8000
+ * #autoscaling on max size of pool(optional),sampled every 'spring.datasource.autoscaleInterval' milliseconds
+ * spring.datasource.ds1.autoscale=true
+ * spring.datasource.ds1.autoscaleMinSize=10
+ * spring.datasource.ds1.autoscaleMaxSize=50
+ * spring.datasource.ds1.autoscaleStep=2
+ * spring.datasource.ds1.autoscaleCooldown=60000
+ * spring.datasource.ds1.autoscaleGrowUtilization=0.9
+ * spring.datasource.ds1.autoscaleShrinkUtilization=0.5
+ * spring.datasource.ds1.autoscaleSamples=3
+ * #max wait time of draining old pool after hot swap or autoscaling resize(optional,default 30000)
+ * spring.datasource.ds1.drainTimeout=30000
  * ......
  *
  * #ds2
@@ -74,12 +102,40 @@ import static org.stone.tools.CommonUtil.isNotBlank;
  * spring.datasource.ds2.initialSize=10
  * spring.datasource.ds2.maxActive=10
  * spring.datasource.ds2.enableMethodExecutionLogCache=true
+ * #striped mode(optional),backed by 4 independent pools,maxActive and initialSize are split to them
+ * spring.datasource.ds2.stripes=4
  * ......
  *
+ * #hot swap pools of bee data sources on spring cloud environment change(optional,default is false)
+ * spring.datasource.hotSwapOnRefresh=true
+ *
  * #ds3
  * spring.datasource.ds3.primary=false
  * spring.datasource.ds3.jndiName=DsJndi
  *
+ * #dynamic data source(routes to a data source by annotation @BeeDsId on methods)
+ * spring.datasource.dynDsId=dynDs
+ * spring.datasource.dynDsPrimaryId=ds1
+ *
+ * #read/write splitting data sources(read-only work is balanced across read data sources)
+ * spring.datasource.rwDsId=rwDs
+ * spring.datasource.rwDs.writeDsId=ds1
+ * spring.datasource.rwDs.readDsIds=ds2,ds3
+ * spring.datasource.rwDs.readSelector=leastBorrowed #roundRobin(default),leastBorrowed,leastLatency,or a class name of DataSourceSelector
+ *
+ * #sharding data sources(routes by hash of shard key declared with @BeeDsId(value="tenantDs",shardKey="tenantId"))
+ * spring.datasource.shardDsId=tenantDs
+ * spring.datasource.tenantDs.shardDsIds=ds1,ds2,ds3
+ * spring.datasource.tenantDs.virtualNodes=160
+ *
+ * #ds4(physical XA connections pooled)
+ * spring.datasource.ds4.type=com.mysql.cj.jdbc.MysqlXADataSource
+ * spring.datasource.ds4.xaPooled=true
+ * spring.datasource.ds4.url=jdbc:mysql://localhost:3306/test
+ * spring.datasource.ds4.user=root
+ * spring.datasource.ds4.password=root
+ * spring.datasource.ds4.maxActive=10
+ *
  *
  * @author Chris Liao
  */
@@ -106,13 +162,33 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
         //1: read out data source id list
         List<String> dsIdList = getDsIdList(environment, registry);
 
-        //2: Creates Data source beans
+        //2: read out id list of read/write splitting data sources
+        List<String> rwDsIdList = getReadWriteDsIdList(dsIdList, environment, registry);
+
+        //3: read out id list of sharding data sources
+        List<String> shardDsIdList = getShardingDsIdList(dsIdList, rwDsIdList, environment, registry);
+
+        //4: read out configuration of dynamic data source
+        List<String> routingDsIdList = new ArrayList<>(rwDsIdList);
+        routingDsIdList.addAll(shardDsIdList);
+        Properties dynProperties = getDynamicDsInfo(dsIdList, routingDsIdList, environment, registry);
+
+        //5: Creates Data source beans
         Map<String, DataSourceBean> dsMap = this.createDataSourceBean(dsIdList, environment);
 
-        //3: Registers Created Data source beans to springboot
-        this.registerDataSourceBean(dsMap, registry);
+        //6: Creates read/write splitting data source beans and sharding data source beans
+        boolean enableVirtualThread = Boolean.parseBoolean(environment.getProperty(Config_Virtual_Thread, "false"));
+        RoutingContext<DataSourceRoute> dsContext = RoutingContext.create(enableVirtualThread);
+        this.createReadWriteDataSourceBean(rwDsIdList, dsMap, dsContext, environment);
+        this.createShardingDataSourceBean(shardDsIdList, dsMap, dsContext, environment);
+
+        //7: Registers Created Data source beans to springboot
+        this.registerDataSourceBean(dsMap, dynProperties, dsContext, registry);
 
-        //4: Registers monitor controller to springboot
+        //8: Enables hot swap of pools and runtime registration of data sources
+        this.registerHotSwapper(registry);
+
+        //9: Registers monitor controller to springboot
         Map<String, Object> attributes = classMetadata.getAnnotationAttributes(EnableBeeDs.class.getName(), false);
         if (((Boolean) attributes.get(Annotation_Console_Attribute_Name)).booleanValue()) {//enable web console
             new MonitorBeansRegister().registerBeanDefinitions(classMetadata, registry, environment);
@@ -121,7 +197,7 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
 
 
     //***************************************************************************************************************//
-    //                                    2: Private methods(3)                                                      //
+    //                                    2: Private methods(8)                                                      //
     //***************************************************************************************************************//
 
     /**
@@ -150,7 +226,133 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
     }
 
     /**
-     * 2: Loads Data source configuration and build Data source beans.
+     * 2: get configured id list of read/write splitting data sources
+     *
+     * @param dsIdList    datasource name list
+     * @param environment spring boot environment
+     * @param registry    spring boot registry
+     * @return id list of read/write splitting data sources
+     */
+    private List<String> getReadWriteDsIdList(List<String> dsIdList, Environment environment, BeanDefinitionRegistry registry) {
+        String rwDsIdsText = SpringBootEnvironmentUtil.getConfigValue(Config_DS_Prefix, Config_RW_DS_Id, environment);
+        if (isBlank(rwDsIdsText)) return Collections.emptyList();
+
+        List<String> rwDsIdList = new ArrayList<>(1);
+        for (String id : rwDsIdsText.trim().split(",")) {
+            id = id.trim();
+            if (isBlank(id) || rwDsIdList.contains(id)) continue;
+            if (dsIdList.contains(id))
+                throw new ConfigurationException("Read/write data source id '" + id + "' can't be in ds-id list");
+            if (SpringBootEnvironmentUtil.existsBeanDefinition(id, registry))
+                throw new ConfigurationException("Read/write data source id '" + id + "' has been registered by another bean");
+
+            String rwPrefix = Config_DS_Prefix + "." + id;
+            String writeDsId = SpringBootEnvironmentUtil.getConfigValue(rwPrefix, Config_RW_Write_DS_Id, environment);
+            if (isBlank(writeDsId) || !dsIdList.contains(writeDsId.trim()))
+                throw new ConfigurationException("Write data source of '" + id + "' not found in ds-id list");
+            for (String readDsId : getIdList(rwPrefix, Config_RW_Read_DS_Ids, environment)) {
+                if (!dsIdList.contains(readDsId))
+                    throw new ConfigurationException("Read data source '" + readDsId + "' of '" + id + "' not found in ds-id list");
+            }
+            rwDsIdList.add(id);
+        }
+        return rwDsIdList;
+    }
+
+    private List<String> getIdList(String prefix, String itemName, Environment environment) {
+        String idsText = SpringBootEnvironmentUtil.getConfigValue(prefix, itemName, environment);
+        if (isBlank(idsText))
+            throw new ConfigurationException("Missed or not found config item '" + prefix + "." + itemName + "'");
+
+        List<String> idList = new ArrayList<>(2);
+        for (String id : idsText.trim().split(",")) {
+            id = id.trim();
+            if (isNotBlank(id) && !idList.contains(id)) idList.add(id);
+        }
+        return idList;
+    }
+
+    /**
+     * 3: get configured id list of sharding data sources
+     *
+     * @param dsIdList    datasource name list
+     * @param rwDsIdList  id list of read/write splitting data sources
+     * @param environment spring boot environment
+     * @param registry    spring boot registry
+     * @return id list of sharding data sources
+     */
+    private List<String> getShardingDsIdList(List<String> dsIdList, List<String> rwDsIdList, Environment environment, BeanDefinitionRegistry registry) {
+        String shardDsIdsText = SpringBootEnvironmentUtil.getConfigValue(Config_DS_Prefix, Config_Shard_DS_Id, environment);
+        if (isBlank(shardDsIdsText)) return Collections.emptyList();
+
+        List<String> shardDsIdList = new ArrayList<>(1);
+        for (String id : shardDsIdsText.trim().split(",")) {
+            id = id.trim();
+            if (isBlank(id) || shardDsIdList.contains(id)) continue;
+            if (dsIdList.contains(id) || rwDsIdList.contains(id))
+                throw new ConfigurationException("Sharding data source id '" + id + "' can't be in ds-id list");
+            if (SpringBootEnvironmentUtil.existsBeanDefinition(id, registry))
+                throw new ConfigurationException("Sharding data source id '" + id + "' has been registered by another bean");
+
+            String shardPrefix = Config_DS_Prefix + "." + id;
+            for (String shardId : getIdList(shardPrefix, Config_Shard_DS_Ids, environment)) {
+                if (!dsIdList.contains(shardId) && !rwDsIdList.contains(shardId))
+                    throw new ConfigurationException("Shard data source '" + shardId + "' of '" + id + "' not found in ds-id list");
+            }
+            getVirtualNodes(shardPrefix, environment);
+            shardDsIdList.add(id);
+        }
+        return shardDsIdList;
+    }
+
+    private int getVirtualNodes(String shardPrefix, Environment environment) {
+        String virtualNodesText = SpringBootEnvironmentUtil.getConfigValue(shardPrefix, Config_Shard_Virtual_Nodes, environment);
+        if (isBlank(virtualNodesText)) return 160;
+        try {
+            int virtualNodes = Integer.parseInt(virtualNodesText.trim());
+            if (virtualNodes > 0) return virtualNodes;
+        } catch (NumberFormatException e) {
+            //fall through
+        }
+        throw new ConfigurationException("Config item '" + shardPrefix + "." + Config_Shard_Virtual_Nodes + "' must be a positive integer");
+    }
+
+    /**
+     * 4: get configuration of dynamic data source
+     *
+     * @param dsIdList        datasource name list
+     * @param routingDsIdList id list of read/write splitting data sources and sharding data sources
+     * @param environment     spring boot environment
+     * @param registry        spring boot registry
+     * @return dynamic configuration
+     */
+    private Properties getDynamicDsInfo(List<String> dsIdList, List<String> routingDsIdList, Environment environment, BeanDefinitionRegistry registry) {
+        String dynId = SpringBootEnvironmentUtil.getConfigValue(Config_DS_Prefix, Config_Dyn_DS_Id, environment);
+        String primaryDs = SpringBootEnvironmentUtil.getConfigValue(Config_DS_Prefix, Config_Dyn_DS_PrimaryId, environment);
+
+        dynId = (dynId == null) ? "" : dynId.trim();
+        primaryDs = (primaryDs == null) ? "" : primaryDs.trim();
+
+        if (isNotBlank(dynId)) {
+            if (dsIdList.contains(dynId) || routingDsIdList.contains(dynId))
+                throw new ConfigurationException("Dynamic data source id '" + dynId + "' can't be in ds-id list");
+            if (SpringBootEnvironmentUtil.existsBeanDefinition(dynId, registry))
+                throw new ConfigurationException("Dynamic data source id '" + dynId + "' has been registered by another bean");
+
+            if (isBlank(primaryDs))
+                throw new ConfigurationException("Missed or not found config item '" + Config_DS_Prefix + "." + Config_Dyn_DS_PrimaryId + "'");
+            if (!dsIdList.contains(primaryDs) && !routingDsIdList.contains(primaryDs))
+                throw new ConfigurationException("Dynamic primary data source '" + primaryDs + "' not found in ds-id list");
+        }
+
+        Properties dynProperties = new Properties();
+        dynProperties.put(Config_Dyn_DS_Id, dynId);
+        dynProperties.put(Config_Dyn_DS_PrimaryId, primaryDs);
+        return dynProperties;
+    }
+
+    /**
+     * 5: Loads Data source configuration and build Data source beans.
      *
      * @param dsIdList    datasource name list
      * @param environment spring boot environment
@@ -159,10 +361,15 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
     private Map<String, DataSourceBean> createDataSourceBean(List<String> dsIdList, Environment environment) {
         Map<String, DataSourceBean> dsMap = new LinkedHashMap<>(dsIdList.size());
         try {
-            for (String dsId : dsIdList) {
-                String dsPrefix = Config_DS_Prefix + "." + dsId;
-                dsMap.put(dsId, createDataSourceBean(dsPrefix, dsId, environment));//create datasource instance
-            }
+            boolean parallel = SourceBeanCreationUtil.isParallelInit(Config_DS_Prefix, environment);
+            SourceBeanCreationUtil.createSourceBeans(dsIdList,
+                    dsId -> createDataSourceBean(Config_DS_Prefix + "." + dsId, dsId, environment),//create datasource instance
+                    DataSourceBean::close, dsMap, parallel, log, "Data source");
+
+            for (DataSourceBean ds : dsMap.values())
+                this.configureDataSourceBean(ds, environment);
+            this.setStandbyDataSource(dsMap, environment);
+            this.registerAutoscaling(dsMap, environment);
             return dsMap;
         } catch (Throwable e) {//failed then close all created dataSource
             for (DataSourceBean ds : dsMap.values()) {
@@ -177,11 +384,83 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
     }
 
     /**
-     * 3: Registers Data source to Spring container
+     * 6: Creates read/write splitting data sources and put them to data source map
+     *
+     * @param rwDsIdList  id list of read/write splitting data sources
+     * @param dsMap       datasource map
+     * @param dsContext   routing context of data source
+     * @param environment spring boot environment
+     */
+    private void createReadWriteDataSourceBean(List<String> rwDsIdList, Map<String, DataSourceBean> dsMap,
+                                               RoutingContext<DataSourceRoute> dsContext, Environment environment) {
+        for (String rwDsId : rwDsIdList) {
+            String rwPrefix = Config_DS_Prefix + "." + rwDsId;
+            String writeDsId = SpringBootEnvironmentUtil.getConfigValue(rwPrefix, Config_RW_Write_DS_Id, environment).trim();
+            List<String> readDsIdList = getIdList(rwPrefix, Config_RW_Read_DS_Ids, environment);
+            DataSourceBean[] readDs = new DataSourceBean[readDsIdList.size()];
+            for (int i = 0; i < readDs.length; i++)
+                readDs[i] = dsMap.get(readDsIdList.get(i));
+
+            String selectorName = SpringBootEnvironmentUtil.getConfigValue(rwPrefix, Config_RW_Read_Selector, environment);
+            String primaryText = SpringBootEnvironmentUtil.getConfigValue(rwPrefix, Config_DS_Primary, environment);
+            boolean isPrimary = isNotBlank(primaryText) && Boolean.parseBoolean(primaryText);
+
+            ReadWriteDataSource rwDs = new ReadWriteDataSource(rwDsId, dsMap.get(writeDsId), readDs, createDataSourceSelector(rwDsId, selectorName), dsContext);
+            dsMap.put(rwDsId, new DataSourceBean(rwDsId, false, isPrimary, rwDs));
+        }
+    }
+
+    /**
+     * 7: Creates sharding data sources and put them to data source map
+     *
+     * @param shardDsIdList id list of sharding data sources
+     * @param dsMap         datasource map
+     * @param dsContext     routing context of data source
+     * @param environment   spring boot environment
+     */
+    private void createShardingDataSourceBean(List<String> shardDsIdList, Map<String, DataSourceBean> dsMap,
+                                              RoutingContext<DataSourceRoute> dsContext, Environment environment) {
+        for (String shardDsId : shardDsIdList) {
+            String shardPrefix = Config_DS_Prefix + "." + shardDsId;
+            List<String> shardIdList = getIdList(shardPrefix, Config_Shard_DS_Ids, environment);
+            DataSourceBean[] shards = new DataSourceBean[shardIdList.size()];
+            for (int i = 0; i < shards.length; i++)
+                shards[i] = dsMap.get(shardIdList.get(i));
+
+            String primaryText = SpringBootEnvironmentUtil.getConfigValue(shardPrefix, Config_DS_Primary, environment);
+            boolean isPrimary = isNotBlank(primaryText) && Boolean.parseBoolean(primaryText);
+
+            ConsistentHashRing ring = new ConsistentHashRing(shards, getVirtualNodes(shardPrefix, environment));
+            dsMap.put(shardDsId, new DataSourceBean(shardDsId, false, isPrimary, new ShardingDataSource(shardDsId, ring, dsContext)));
+        }
+    }
+
+    private DataSourceSelector createDataSourceSelector(String dsId, String selectorName) {
+        if (isBlank(selectorName) || "roundRobin".equalsIgnoreCase(selectorName)) return new RoundRobinSelector();
+        if ("leastBorrowed".equalsIgnoreCase(selectorName)) return new LeastBorrowedSelector();
+        if ("leastLatency".equalsIgnoreCase(selectorName)) return new LeastLatencySelector();
+
+        try {
+            Class<?> selectorClass = Class.forName(selectorName.trim());
+            if (!DataSourceSelector.class.isAssignableFrom(selectorClass))
+                throw new ConfigurationException("Selector class of '" + dsId + "' must implement interface " + DataSourceSelector.class.getName());
+            return (DataSourceSelector) selectorClass.getDeclaredConstructor().newInstance();
+        } catch (ConfigurationException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ConfigurationException("Failed to create data source selector of '" + dsId + "' with name:" + selectorName, e);
+        }
+    }
+
+    /**
+     * 8: Registers Data source to Spring container
      *
-     * @param dsMap datasource list
+     * @param dsMap         datasource list
+     * @param dynProperties configuration of dynamic data source
+     * @param dsContext     routing context of data source
      */
-    private void registerDataSourceBean(Map<String, DataSourceBean> dsMap, BeanDefinitionRegistry registry) {
+    private void registerDataSourceBean(Map<String, DataSourceBean> dsMap, Properties dynProperties,
+                                        RoutingContext<DataSourceRoute> dsContext, BeanDefinitionRegistry registry) {
         for (DataSourceBean ds : dsMap.values()) {
             if (SpringBootEnvironmentUtil.existsBeanDefinition(ds.getDsId(), registry)) {
                 log.warn("A bean definition existed in spring container with id:{}", ds.getDsId());
@@ -195,6 +474,37 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
                 dsBeanManager.addDataSource(ds);
             }
         }
+
+        //register dynamic data source
+        String dynDsId = dynProperties.getProperty(Config_Dyn_DS_Id);
+        String primaryDsId = dynProperties.getProperty(Config_Dyn_DS_PrimaryId);
+        if (isNotBlank(dynDsId) && isNotBlank(primaryDsId)) {
+            GenericBeanDefinition define = new GenericBeanDefinition();
+            define.setBeanClass(DynamicDataSource.class);
+            define.setInstanceSupplier(SpringBootEnvironmentUtil.createSpringSupplier(new DynamicDataSource(dsMap.get(primaryDsId), dsContext)));
+            registry.registerBeanDefinition(dynDsId, define);
+            log.info("Registered a dynamic data source(type:{})with bean Id '{}'", define.getBeanClassName(), dynDsId);
+
+            DynamicAspect<?, ?> dynamicAspect = SpringBootEnvironmentUtil.getOrRegisterDynamicAspect(registry);
+            dynamicAspect.setDynDsRoutingContext(primaryDsId, dsContext);
+        }
+    }
+
+    private void registerHotSwapper(BeanDefinitionRegistry registry) {
+        dsBeanManager.setEnvironment(environment);
+
+        String hotSwapText = SpringBootEnvironmentUtil.getConfigValue(Config_DS_Prefix, Config_DS_Hot_Swap_On_Refresh, environment);
+        if (isBlank(hotSwapText) || !Boolean.parseBoolean(hotSwapText.trim())) return;
+        if (!ClassUtils.isPresent("org.springframework.cloud.context.environment.EnvironmentChangeEvent", this.getClass().getClassLoader())) {
+            log.warn("Hot swap on refresh is ignored,not found spring cloud context in classpath");
+            return;
+        }
+
+        GenericBeanDefinition define = new GenericBeanDefinition();
+        define.setBeanClass(DataSourceRefreshListener.class);
+        define.setInstanceSupplier(SpringBootEnvironmentUtil.createSpringSupplier(new DataSourceRefreshListener()));
+        registry.registerBeanDefinition(DataSourceRefreshListener.class.getName(), define);
+        log.info("Registered a listener to hot swap pools of data sources on environment change");
     }
 
     //***************************************************************************************************************//
@@ -212,6 +522,87 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
         }
     }
 
+    private CircuitBreaker createCircuitBreaker(String prefix, String dsId, Environment environment) {
+        String breakerText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_DS_Circuit_Breaker, environment);
+        if (isBlank(breakerText) || !Boolean.parseBoolean(breakerText.trim())) return null;
+
+        try {
+            return new CircuitBreaker(dsId,
+                    Double.parseDouble(getConfigValue(prefix, Config_DS_Breaker_Failure_Rate, "0.5", environment)),
+                    Integer.parseInt(getConfigValue(prefix, Config_DS_Breaker_Minimum_Calls, "10", environment)),
+                    Long.parseLong(getConfigValue(prefix, Config_DS_Breaker_Window, "10000", environment)),
+                    Long.parseLong(getConfigValue(prefix, Config_DS_Breaker_Open_Time, "5000", environment)),
+                    Integer.parseInt(getConfigValue(prefix, Config_DS_Breaker_Probe_Size, "3", environment)));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid circuit breaker configuration of data source(" + dsId + "):" + e.getMessage(), e);
+        }
+    }
+
+    private void setPriorityLanes(DataSourceBean ds, String prefix, Environment environment) throws SQLException {
+        String shareText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_DS_Low_Priority_Share, environment);
+        if (isBlank(shareText)) return;
+
+        BeeConnectionPoolMonitorVo vo = ds.getPoolMonitorVo();
+        if (vo == null)
+            throw new ConfigurationException("Priority lanes of data source(" + ds.getDsId() + ") are only supported on bee data source");
+        try {
+            double share = Double.parseDouble(shareText.trim());
+            if (share <= 0D || share >= 1D) throw new IllegalArgumentException("share must be in range(0,1)");
+            long maxWait = Long.parseLong(getConfigValue(prefix, Config_DS_Low_Priority_Max_Wait, "8000", environment));
+            ds.setPriorityLanes(Math.max(1, (int) (vo.getMaxSize() * share)), maxWait);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid priority lanes configuration of data source(" + ds.getDsId() + "):" + e.getMessage(), e);
+        }
+    }
+
+    //sets circuit breaker,admission control and priority lanes of data source
+    void configureDataSourceBean(DataSourceBean ds, Environment environment) throws SQLException {
+        String prefix = Config_DS_Prefix + "." + ds.getDsId();
+        ds.setCircuitBreaker(createCircuitBreaker(prefix, ds.getDsId(), environment));
+        ds.setAdmissionController(SourceBeanCreationUtil.createAdmissionController(prefix, environment));
+        this.setPriorityLanes(ds, prefix, environment);
+    }
+
+    //registers bee data sources with autoscaling enabled to autoscaler
+    void registerAutoscaling(Map<String, DataSourceBean> dsMap, Environment environment) throws SQLException {
+        Map<DataSourceBean, PoolAutoscaler.ScalingPolicy> policyMap = new LinkedHashMap<>(1);
+        for (DataSourceBean ds : dsMap.values()) {
+            String prefix = Config_DS_Prefix + "." + ds.getDsId();
+            String autoscaleText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_Autoscale, environment);
+            if (isBlank(autoscaleText) || !Boolean.parseBoolean(autoscaleText.trim())) continue;
+
+            BeeConnectionPoolMonitorVo vo = ds.getPoolMonitorVo();
+            if (vo == null || ds.isBeeJtaDs())
+                throw new ConfigurationException("Autoscaling of data source(" + ds.getDsId() + ") is only supported on bee data source");
+            policyMap.put(ds, SourceBeanCreationUtil.createScalingPolicy(prefix, vo.getMaxSize(), environment));
+        }
+        if (policyMap.isEmpty()) return;
+
+        long interval = SourceBeanCreationUtil.getAutoscaleInterval(Config_DS_Prefix, environment);
+        PoolAutoscaler autoscaler = PoolAutoscaler.getInstance();
+        policyMap.forEach((ds, policy) -> autoscaler.addTarget(PoolAutoscaler.forDataSource(ds, policy), interval));
+    }
+
+    private static String getConfigValue(String prefix, String itemName, String defaultValue, Environment environment) {
+        String value = SpringBootEnvironmentUtil.getConfigValue(prefix, itemName, environment);
+        return isBlank(value) ? defaultValue : value.trim();
+    }
+
+    //sets standby data sources,which are failover targets when circuit breaker is open
+    private void setStandbyDataSource(Map<String, DataSourceBean> dsMap, Environment environment) {
+        for (DataSourceBean ds : dsMap.values()) {
+            String prefix = Config_DS_Prefix + "." + ds.getDsId();
+            String standbyDsId = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_DS_Standby_Id, environment);
+            if (isBlank(standbyDsId)) continue;
+
+            standbyDsId = standbyDsId.trim();
+            DataSourceBean standbyDs = dsMap.get(standbyDsId);
+            if (standbyDs == null || standbyDs == ds)
+                throw new ConfigurationException("Standby data source '" + standbyDsId + "' of '" + ds.getDsId() + "' not found in ds-id list or same to itself");
+            ds.setStandbyDs(standbyDs);
+        }
+    }
+
     private DataSourceBean createJndiDataSourceBean(String dsId, String jndiName, boolean isPrimary) {
         try {
             Object namingObj = new InitialContext().lookup(jndiName);
@@ -277,7 +668,15 @@ public class DataSourceBeanRegister implements EnvironmentAware, ImportBeanDefin
             SpringBootEnvironmentUtil.setConfigPropertiesValue(ds, prefix, dsId, environment);
         }
 
-        //5: create a data source bean
+        //5: pool physical XA connections when pooled XA mode is enabled
+        if (ds instanceof XADataSource && !(ds instanceof BeeDataSource)) {
+            String xaPooledText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_DS_XA_Pooled, environment);
+            if (isNotBlank(xaPooledText) && Boolean.parseBoolean(xaPooledText)) {
+                ds = new SpringBeeDataSourceBuilder().createXaPool(prefix, dsId, (XADataSource) ds, environment);
+            }
+        }
+
+        //6: create a data source bean
         return new DataSourceBean(dsId, false, isPrimary, ds);
     }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.springframework.core.env.Environment;
+import org.stone.springboot.exception.ConfigurationException;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import static org.stone.springboot.Constants.Config_DS_Drain_Timeout;
+import static org.stone.springboot.Constants.Config_DS_Prefix;
+import static org.stone.tools.CommonUtil.isBlank;
+
+/**
+ * Hot swapper of data source pools,which creates a new pool from refreshed spring environment and swaps it into
+ * data source bean(blue/green),so changes of url,credentials or size take effect without application restart.
+ *
+ * @author Chris Liao
+ */
+final class DataSourceHotSwapper {
+    private final Environment environment;
+
+    DataSourceHotSwapper(Environment environment) {
+        this.environment = environment;
+    }
+
+    void swap(DataSourceBean ds) throws SQLException {
+        if (!ds.isBeeDs())
+            throw new SQLFeatureNotSupportedException("Hot swap only supported on bee data source:" + ds.getDsId());
+
+        SpringBootEnvironmentUtil.clearPropertyIndex();//re-read refreshed properties
+        String prefix = Config_DS_Prefix + "." + ds.getDsId();
+        long drainTimeout;
+        try {
+            String drainTimeoutText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_DS_Drain_Timeout, environment);
+            drainTimeout = isBlank(drainTimeoutText) ? 30000L : Long.parseLong(drainTimeoutText.trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException("Invalid drain timeout of data source(" + ds.getDsId() + "):" + e.getMessage(), e);
+        }
+
+        DataSourceBean newPool = new DataSourceBeanRegister().createDataSourceBean(prefix, ds.getDsId(), environment);
+        ds.swapPool(newPool, drainTimeout);
+    }
+}
@@ -17,6 +17,8 @@ package org.stone.springboot;
 
 import org.stone.beecp.BeeConnectionPoolMonitorVo;
 
+import java.util.Collection;
+
 /*
  * monitor vo
  *
@@ -25,11 +27,15 @@ import org.stone.beecp.BeeConnectionPoolMonitorVo;
 public final class DataSourcePoolMonitorVo implements BeeConnectionPoolMonitorVo {
     private final String dsId;
     private final String dsUUID;
+    private final AcquisitionStatistics acquisitionStatistics;
+    private final DataSourceBean ds;
     private BeeConnectionPoolMonitorVo vo;
 
-    DataSourcePoolMonitorVo(String dsId, String dsUUID) {
+    DataSourcePoolMonitorVo(String dsId, String dsUUID, AcquisitionStatistics acquisitionStatistics, DataSourceBean ds) {
         this.dsId = dsId;
         this.dsUUID = dsUUID;
+        this.acquisitionStatistics = acquisitionStatistics;
+        this.ds = ds;
     }
 
     void setVo(BeeConnectionPoolMonitorVo vo) {
@@ -107,4 +113,77 @@ public final class DataSourcePoolMonitorVo implements BeeConnectionPoolMonitorVo
     public boolean isEnabledMethodExecutionLogCache() {
         return vo.isEnabledMethodExecutionLogCache();
     }
+
+    //average time of connection acquisition(milliseconds)
+    public double getAcquisitionLatencyEwma() {
+        return acquisitionStatistics.getLatency();
+    }
+
+    //average error rate of connection acquisition,range[0,1]
+    public double getAcquisitionErrorRateEwma() {
+        return acquisitionStatistics.getErrorRate();
+    }
+
+    //state of circuit breaker(CLOSED,OPEN,HALF_OPEN),DISABLED if no breaker
+    public String getCircuitState() {
+        CircuitBreaker breaker = ds.getCircuitBreaker();
+        return breaker != null ? breaker.getStateName() : "DISABLED";
+    }
+
+    public long getCircuitTransitionCount() {
+        CircuitBreaker breaker = ds.getCircuitBreaker();
+        return breaker != null ? breaker.getTransitionCount() : 0L;
+    }
+
+    public long getCircuitRejectedCount() {
+        CircuitBreaker breaker = ds.getCircuitBreaker();
+        return breaker != null ? breaker.getRejectedCount() : 0L;
+    }
+
+    public long getCircuitLastTransitionTime() {
+        CircuitBreaker breaker = ds.getCircuitBreaker();
+        return breaker != null ? breaker.getLastTransitionTime() : 0L;
+    }
+
+    public long getShedCount() {
+        return ds.getShedCount();
+    }
+
+    public int getBorrowingSize() {
+        return ds.getBorrowingSize();
+    }
+
+    //size of low priority lane,zero if priority lanes not enabled
+    public int getLowLaneSize() {
+        PriorityLanes lanes = ds.getPriorityLanes();
+        return lanes != null ? lanes.getLowLaneSize() : 0;
+    }
+
+    //count of connections borrowed by low priority borrowers
+    public int getLowLaneBorrowedSize() {
+        PriorityLanes lanes = ds.getPriorityLanes();
+        return lanes != null ? lanes.getLowLaneBorrowedSize() : 0;
+    }
+
+    //average wait time of high priority borrowers(milliseconds)
+    public double getHighLaneWaitEwma() {
+        PriorityLanes lanes = ds.getPriorityLanes();
+        return lanes != null ? lanes.getHighLaneWaitEwma() : 0D;
+    }
+
+    //average wait time of low priority borrowers(milliseconds)
+    public double getLowLaneWaitEwma() {
+        PriorityLanes lanes = ds.getPriorityLanes();
+        return lanes != null ? lanes.getLowLaneWaitEwma() : 0D;
+    }
+
+    //bulkheads of annotated methods routed to this data source
+    public Collection<Bulkhead> getBulkheads() {
+        return ds.getBulkheads();
+    }
+
+    public String getStandbyDsId() {
+        DataSourceBean standby = ds.getStandbyDs();
+        return standby != null ? standby.getDsId() : null;
+    }
 }
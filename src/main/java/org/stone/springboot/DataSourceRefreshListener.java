@@ -0,0 +1,57 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.stone.springboot.Constants.Config_DS_Prefix;
+
+/**
+ * Listener of spring cloud environment change,pools of bee data sources are hot swapped when their properties changed.
+ *
+ * @author Chris Liao
+ */
+public final class DataSourceRefreshListener implements ApplicationListener<EnvironmentChangeEvent> {
+    private final Logger log = LoggerFactory.getLogger(DataSourceRefreshListener.class);
+
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        //changed keys like 'spring.datasource.ds1.jdbcUrl'
+        String keyPrefix = Config_DS_Prefix + ".";
+        Set<String> dsIdSet = new LinkedHashSet<>(1);
+        for (String key : event.getKeys()) {
+            if (!key.startsWith(keyPrefix)) continue;
+            int index = key.indexOf('.', keyPrefix.length());
+            if (index > keyPrefix.length()) dsIdSet.add(key.substring(keyPrefix.length(), index));
+        }
+
+        DataSourceBeanManager dsManager = DataSourceBeanManager.getInstance();
+        for (String dsId : dsIdSet) {
+            DataSourceBean ds = dsManager.getDataSource(dsId);
+            if (ds == null || !ds.isBeeDs()) continue;
+            try {
+                dsManager.hotSwap(dsId);
+            } catch (Throwable e) {
+                log.error("Failed to hot swap pool of data source({}) on environment change,current pool is kept", dsId, e);
+            }
+        }
+    }
+}
@@ -20,13 +20,14 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Schedule service to run two tasks(expiration sql-execution scan and push pools snapshot data to cache)
+ * Schedule service to run tasks(expiration sql-execution scan,push pools snapshot data to cache,push pool metrics to
+ * prometheus gateway and pool autoscaling)
  *
  * @author Chris Liao
  */
 public class LocalScheduleService {
     private static final LocalScheduleService single = new LocalScheduleService();
-    private final int maxScheduleSize = 2;
+    private final int maxScheduleSize = 4;
     private int scheduledCount;
     private ScheduledThreadPoolExecutor scheduledExecutor;
 
@@ -34,7 +35,7 @@ public class LocalScheduleService {
         return single;
     }
 
-    public void scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+    public synchronized void scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
         if (scheduledCount == maxScheduleSize) return;
 
         if (scheduledExecutor == null) {
@@ -48,7 +49,7 @@ public class LocalScheduleService {
         scheduledCount++;
     }
 
-    public boolean isFull() {
+    public synchronized boolean isFull() {
         return scheduledCount == maxScheduleSize;
     }
 
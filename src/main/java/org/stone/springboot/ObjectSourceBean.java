@@ -22,8 +22,11 @@ import org.stone.beeop.BeeObjectPoolMonitorVo;
 import org.stone.beeop.BeeObjectSource;
 import org.stone.beeop.BeeObjectSourceConfig;
 import org.stone.beeop.pool.exception.PoolNotCreatedException;
+import org.stone.springboot.exception.ObjectSourceException;
+import org.stone.springboot.exception.ObjectSourceOverloadException;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A wrapper around Object source(only support BeeObjectSource)
@@ -31,22 +34,45 @@ import java.util.List;
  * @author Chris Liao
  */
 public class ObjectSourceBean<K, V> extends BeeObjectSource<K, V> {
+    private static final int Min_Key_Prune_Size = 64;
     private final String osId;
     private final boolean primary;
-    private final BeeObjectSource<K, V> os;
+    //pool can be swapped on resize,so it is volatile
+    private volatile BeeObjectSource<K, V> os;
     private final ObjectSourcePoolMonitorVo voWrapper;
+    private final AcquisitionStatistics acquisitionStatistics = new AcquisitionStatistics();
     private final Logger log = LoggerFactory.getLogger(ObjectSourceBean.class);
+    private volatile AdmissionController admissionController;
+    private final Map<String, Bulkhead> bulkheadMap = new ConcurrentHashMap<>(1);
+    //keys borrowed on this bean,pool has no api to enumerate its keys
+    private final Set<K> keySet = ConcurrentHashMap.newKeySet();
+    //keys not existing in pool are pruned when key set grows to this size,so set is bounded to twice of live keys
+    private volatile int keyPruneSize = Min_Key_Prune_Size;
+    //load of pool to predict wait in admission control
+    private final AdmissionController.PoolLoad poolLoad = () -> {
+        BeeObjectPoolMonitorVo vo = getRawPoolMonitorVo();
+        return vo != null ? new AdmissionController.LoadSample(vo.getSemaphoreWaitingSize() + vo.getTransferWaitingSize(),
+                vo.getPoolMaxSize()) : null;
+    };
 
     public ObjectSourceBean(String osId, boolean primary, BeeObjectSource<K, V> os) {
         if (os == null) throw new IllegalArgumentException("Object source can't be null");
         this.osId = osId;
         this.os = os;
         this.primary = primary;
-        this.voWrapper = new ObjectSourcePoolMonitorVo(osId);
+        this.voWrapper = new ObjectSourcePoolMonitorVo(osId, this);
+    }
+
+    //constructor for routing object source,which has no pool of its own
+    protected ObjectSourceBean(String osId) {
+        this.osId = osId;
+        this.os = null;
+        this.primary = false;
+        this.voWrapper = new ObjectSourcePoolMonitorVo(osId, this);
     }
 
     //***************************************************************************************************************//
-    //                                     1: base operation methods(2)                                              //
+    //                                     1: base operation methods(6)                                              //
     //***************************************************************************************************************//
     public String getOsId() {
         return osId;
@@ -60,28 +86,151 @@ public class ObjectSourceBean<K, V> extends BeeObjectSource<K, V> {
         return voWrapper.getOsUUID();
     }
 
+    void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    //count of borrows shed by admission control
+    public long getShedCount() {
+        AdmissionController admission = this.admissionController;
+        return admission != null ? admission.getShedCount() : 0L;
+    }
+
+    //count of threads in borrowing,zero if admission control not enabled
+    public int getBorrowingSize() {
+        AdmissionController admission = this.admissionController;
+        return admission != null ? admission.getBorrowingSize() : 0;
+    }
+
     //***************************************************************************************************************//
-    //                                     2: Pool Monitor (5)                                                       //
+    //                                     2: Bulkheads of annotated methods(2)                                      //
+    //***************************************************************************************************************//
+
+    /**
+     * Gets a bulkhead with name,created with given limits if not exists.
+     *
+     * @param name           bulkhead name
+     * @param maxConcurrency max concurrent calls
+     * @param maxQueue       max waiting calls
+     * @param maxWait        max wait time(milliseconds),zero means waiting until entered
+     * @return bulkhead
+     * @throws ObjectSourceException when bulkhead exists with different limits
+     */
+    public Bulkhead getOrCreateBulkhead(String name, int maxConcurrency, int maxQueue, long maxWait) {
+        Bulkhead bulkhead = bulkheadMap.computeIfAbsent(name, k -> new Bulkhead(k, maxConcurrency, maxQueue, maxWait));
+        if (!bulkhead.hasLimits(maxConcurrency, maxQueue, maxWait))
+            throw new ObjectSourceException("Bulkhead '" + name + "' of object source(" + osId + ") exists with different limits,maxConcurrency:"
+                    + bulkhead.getMaxConcurrency() + ",maxQueue:" + bulkhead.getMaxQueue() + ",maxWait:" + bulkhead.getMaxWait());
+        return bulkhead;
+    }
+
+    public Collection<Bulkhead> getBulkheads() {
+        return bulkheadMap.values();
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: Pool Monitor (5)                                                       //
     //***************************************************************************************************************//
     public BeeObjectHandle<K, V> getObjectHandle() throws Exception {
-        return os.getObjectHandle();
+        return borrowObjectHandle(null, false);
     }
 
     public BeeObjectHandle<K, V> getObjectHandle(K key) throws Exception {
-        return os.getObjectHandle(key);
+        return borrowObjectHandle(key, true);
+    }
+
+    private BeeObjectHandle<K, V> borrowObjectHandle(K key, boolean withKey) throws Exception {
+        AdmissionController admission = this.admissionController;
+        if (admission != null && !admission.tryEnter(acquisitionStatistics.getLatency(), poolLoad))
+            throw new ObjectSourceOverloadException("Object borrow was shed by overloaded object source:" + osId);
+
+        long startTime = System.nanoTime();
+        try {
+            BeeObjectHandle<K, V> handle = withKey ? os.getObjectHandle(key) : os.getObjectHandle();
+            acquisitionStatistics.success(System.nanoTime() - startTime);
+            if (withKey && key != null && !keySet.contains(key)) addKey(key);
+            return handle;
+        } catch (Exception e) {
+            acquisitionStatistics.failure(System.nanoTime() - startTime);
+            throw e;
+        } finally {
+            if (admission != null) admission.exit();
+        }
     }
 
     //***************************************************************************************************************//
-    //                                      3: clear and monitoring(3)                                               //
+    //                                      4: clear and monitoring(3)                                               //
     //***************************************************************************************************************//
     public void restart(boolean forceRecycleBorrowed) throws Exception {
         os.restart(forceRecycleBorrowed);
     }
 
+    public boolean isClosed() {
+        return os.isClosed();
+    }
+
+    public void close() {
+        os.close();
+    }
+
     public void restart(boolean forceRecycleBorrowed, BeeObjectSourceConfig<K, V> config) throws Exception {
         os.restart(forceRecycleBorrowed, config);
     }
 
+    /**
+     * Resizes pool to a new max size without clearing it:a new pool is created with configuration copied from current
+     * pool and new max size,then it is swapped in,current pool is drained in background and closed after its borrowed
+     * objects returned or drain timeout.
+     *
+     * @param maxActive    new max size of pool
+     * @param drainTimeout max wait time of draining current pool(milliseconds)
+     * @throws Exception when fail to create new pool,current pool is kept on failure
+     */
+    public synchronized void reconfigure(int maxActive, long drainTimeout) throws Exception {
+        if (maxActive <= 0) throw new IllegalArgumentException("Max active must be greater than zero");
+        BeeObjectSource<K, V> oldOs = this.os;
+        int oldMaxActive = oldOs.getPoolMonitorVo().getPoolMaxSize();
+        List<BeeObjectSource<K, V>> oldPools;
+        if (oldOs instanceof StripedObjectSource<K, V> stripedOs) {
+            oldPools = Arrays.asList(stripedOs.swapStripes(maxActive));
+        } else {
+            BeeObjectSourceConfig<K, V> config = new BeeObjectSourceConfig<>();
+            oldOs.copyTo(config);
+            config.setMaxActive(maxActive);
+            if (config.getInitialSize() > maxActive) config.setInitialSize(maxActive);
+            this.os = new BeeObjectSource<>(config);
+            oldPools = Collections.singletonList(oldOs);
+        }
+
+        log.info("Swapped pool of object source({}),max size:{}->{},draining old pool in {}ms", osId, oldMaxActive, maxActive, drainTimeout);
+        Thread drainThread = new Thread(() -> drainPools(oldPools, drainTimeout), "StoneObjectSourceDrainThread");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    //pools are closed together after all of them drained or timeout
+    private void drainPools(List<BeeObjectSource<K, V>> pools, long drainTimeout) {
+        long deadline = System.currentTimeMillis() + drainTimeout;
+        int borrowedSize = 0;
+        try {
+            do {
+                borrowedSize = 0;
+                for (BeeObjectSource<K, V> pool : pools)
+                    borrowedSize += pool.getPoolMonitorVo().getBorrowedSize();
+                if (borrowedSize > 0) Thread.sleep(100L);
+            } while (borrowedSize > 0 && System.currentTimeMillis() < deadline);
+        } catch (Throwable e) {
+            log.warn("Interrupted in draining pool of object source({})", osId, e);
+        } finally {
+            for (BeeObjectSource<K, V> pool : pools)
+                pool.close();
+            if (borrowedSize > 0)
+                log.warn("Closed pool of object source({}) on drain timeout,{} objects were in use", osId, borrowedSize);
+            else
+                log.info("Closed pool of object source({}) after drained", osId);
+        }
+    }
+
     public BeeObjectPoolMonitorVo getPoolMonitorVo() throws Exception {
         try {
             voWrapper.setVo(os.getPoolMonitorVo());
@@ -94,9 +243,53 @@ public class ObjectSourceBean<K, V> extends BeeObjectSource<K, V> {
         return voWrapper;
     }
 
+    //monitor vo of pool,null if no pool or failed to read it
+    private BeeObjectPoolMonitorVo getRawPoolMonitorVo() {
+        try {
+            BeeObjectSource<K, V> pool = this.os;
+            return pool != null ? pool.getPoolMonitorVo() : null;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
     //***************************************************************************************************************//
-    //                                       4: keys maintenance(9)                                                  //
+    //                                       5: keys maintenance(10)                                                 //
     //***************************************************************************************************************//
+
+    /**
+     * Gets keys borrowed on this bean,keys not existing in pool any longer are removed before return.
+     *
+     * @return a read-only view of keys
+     * @throws Exception when fail to check keys in pool
+     */
+    public Collection<K> getKeys() throws Exception {
+        pruneKeys();
+        return Collections.unmodifiableSet(keySet);
+    }
+
+    //called after a handle borrowed,so a pruning failure is not thrown out,keys are pruned again on next growth
+    private void addKey(K key) {
+        if (keySet.add(key) && keySet.size() >= keyPruneSize) {
+            try {
+                pruneKeys();
+            } catch (Throwable e) {
+                keyPruneSize = keySet.size() * 2;
+            }
+        }
+    }
+
+    //removes keys deleted from pool out of this bean(such as keys cleared by pool)
+    private void pruneKeys() throws Exception {
+        synchronized (keySet) {
+            Iterator<K> iterator = keySet.iterator();
+            while (iterator.hasNext()) {
+                if (!os.exists(iterator.next())) iterator.remove();
+            }
+            keyPruneSize = Math.max(Min_Key_Prune_Size, keySet.size() * 2);
+        }
+    }
+
     public boolean exists(K key) throws Exception {
         return os.exists(key);
     }
@@ -111,10 +304,12 @@ public class ObjectSourceBean<K, V> extends BeeObjectSource<K, V> {
 
     public void deleteKey(K key) throws Exception {
         os.deleteKey(key);
+        if (key != null) keySet.remove(key);
     }
 
     public void deleteKey(K key, boolean forceRecycleBorrowed) throws Exception {
         os.deleteKey(key, forceRecycleBorrowed);
+        if (key != null) keySet.remove(key);
     }
 
     public boolean isEnabledLogPrint(K key) throws Exception {
@@ -20,6 +20,7 @@ import org.stone.beeop.BeeObjectSourceConfig;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.stone.beeop.pool.ObjectPoolStatics.POOL_CLOSED;
 import static org.stone.beeop.pool.ObjectPoolStatics.POOL_CLOSING;
@@ -32,6 +33,8 @@ import static org.stone.beeop.pool.ObjectPoolStatics.POOL_CLOSING;
 public class ObjectSourceBeanManager<K, V> {
     private static final ObjectSourceBeanManager single = new ObjectSourceBeanManager();
     private final Map<String, ObjectSourceBean<K, V>> osMap;
+    //increased when object sources changed(added,restarted,removed),cached routes are invalid on version change
+    private final AtomicInteger version = new AtomicInteger();
 
     private ObjectSourceBeanManager() {
         this.osMap = new ConcurrentHashMap<>(1);
@@ -41,22 +44,43 @@ public class ObjectSourceBeanManager<K, V> {
         return single;
     }
 
+    public int getVersion() {
+        return version.get();
+    }
+
     public void addObjectSource(ObjectSourceBean<K, V> os) {
         osMap.put(os.getOsId(), os);
+        version.incrementAndGet();
     }
 
     public ObjectSourceBean<K, V> getObjectSource(String osId) {
         return osMap.get(osId);
     }
 
+    public Collection<ObjectSourceBean<K, V>> getAllObjectSources() {
+        return Collections.unmodifiableCollection(osMap.values());
+    }
+
     public void restart(String osId, boolean forceRecycleBorrowed) throws Exception {
         ObjectSourceBean<K, V> os = osMap.get(osId);
-        if (os != null) os.restart(forceRecycleBorrowed);
+        if (os != null) {
+            try {
+                os.restart(forceRecycleBorrowed);
+            } finally {
+                version.incrementAndGet();
+            }
+        }
     }
 
     public void restart(String osId, boolean forceRecycleBorrowed, BeeObjectSourceConfig<K, V> config) throws Exception {
         ObjectSourceBean<K, V> os = osMap.get(osId);
-        if (os != null) os.restart(forceRecycleBorrowed, config);
+        if (os != null) {
+            try {
+                os.restart(forceRecycleBorrowed, config);
+            } finally {
+                version.incrementAndGet();
+            }
+        }
     }
 
     public Collection<BeeObjectPoolMonitorVo> getOsPoolMonitorVoList() throws Exception {
@@ -71,6 +95,7 @@ public class ObjectSourceBeanManager<K, V> {
             int poolState = vo.getPoolState();
             if (poolState == POOL_CLOSING || poolState == POOL_CLOSED) {//POOL_CLEARING,POOL_CLOSED
                 iterator.remove();
+                version.incrementAndGet();
             } else {
                 poolMonitorVoList.add(vo);
             }
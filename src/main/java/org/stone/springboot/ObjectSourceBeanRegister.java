@@ -24,11 +24,14 @@ import org.springframework.context.EnvironmentAware;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
 import org.springframework.core.env.Environment;
 import org.springframework.core.type.AnnotationMetadata;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
 import org.stone.beeop.BeeObjectSource;
 import org.stone.springboot.annotation.EnableBeeOs;
 import org.stone.springboot.builder.SpringBeeObjectSourceBuilder;
 import org.stone.springboot.dynamic.DynamicAspect;
 import org.stone.springboot.dynamic.DynamicObjectSource;
+import org.stone.springboot.dynamic.ObjectSourceRoute;
+import org.stone.springboot.dynamic.RoutingContext;
 import org.stone.springboot.exception.ConfigurationException;
 import org.stone.springboot.exception.ObjectSourceException;
 import org.stone.springboot.monitor.MonitorBeansRegister;
@@ -42,17 +45,30 @@ import static org.stone.tools.CommonUtil.isNotBlank;
 /*
  * #ids of objectSource
  * spring.objectSource.osId=os1,os2
+ * #create object sources in parallel(optional,default is false)
+ * spring.objectSource.parallelInit=true
  *
  * #os1
  * spring.objectSource.os1.fairMode=true
  * spring.objectSource.os1.initialSize=10
  * spring.objectSource.os1.maxActive=10
+ * #shed object borrows when too many threads are borrowing or average borrow time is too long(optional)
+ * spring.objectSource.os1.maxWaiters=50
+ * spring.objectSource.os1.maxPredictedWait=2000
+ * #autoscaling on max size of pool(optional),sampled every 'spring.objectSource.autoscaleInterval' milliseconds
+ * spring.objectSource.os1.autoscale=true
+ * spring.objectSource.os1.autoscaleMinSize=10
+ * spring.objectSource.os1.autoscaleMaxSize=30
+ * #max wait time of draining old pool after autoscaling resize(optional,default 30000)
+ * spring.objectSource.os1.drainTimeout=30000
  * ......
  *
  * #os2
  * spring.objectSource.os2.fairMode=false
  * spring.objectSource.os2.initialSize=20
  * spring.objectSource.os2.maxActive=50
+ * #striped mode(optional),backed by 2 independent pools
+ * spring.objectSource.os2.stripes=2
  * ......
  *
  * @author Chris Liao
@@ -171,10 +187,14 @@ public class ObjectSourceBeanRegister<K, V> implements EnvironmentAware, ImportB
     private Map<String, ObjectSourceBean<K, V>> createObjectSourceBean(List<String> osIdList, Environment environment) {
         Map<String, ObjectSourceBean<K, V>> osMap = new LinkedHashMap<>(osIdList.size());
         try {
-            for (String osId : osIdList) {
-                String osPrefix = Config_OS_Prefix + "." + osId;
-                osMap.put(osId, createObjectSourceBean(osPrefix, osId, environment));
-            }
+            boolean parallel = SourceBeanCreationUtil.isParallelInit(Config_OS_Prefix, environment);
+            SourceBeanCreationUtil.createSourceBeans(osIdList,
+                    osId -> createObjectSourceBean(Config_OS_Prefix + "." + osId, osId, environment),
+                    ObjectSourceBean::close, osMap, parallel, log, "Object source");
+
+            for (ObjectSourceBean<K, V> os : osMap.values())
+                os.setAdmissionController(SourceBeanCreationUtil.createAdmissionController(Config_OS_Prefix + "." + os.getOsId(), environment));
+            this.registerAutoscaling(osMap, environment);
             return osMap;
         } catch (Throwable e) {//failed then close all created object source
             for (ObjectSourceBean<K, V> ds : osMap.values()) {
@@ -188,6 +208,22 @@ public class ObjectSourceBeanRegister<K, V> implements EnvironmentAware, ImportB
         }
     }
 
+    //registers object sources with autoscaling enabled to autoscaler
+    private void registerAutoscaling(Map<String, ObjectSourceBean<K, V>> osMap, Environment environment) throws Exception {
+        Map<ObjectSourceBean<K, V>, PoolAutoscaler.ScalingPolicy> policyMap = new LinkedHashMap<>(1);
+        for (ObjectSourceBean<K, V> os : osMap.values()) {
+            BeeObjectPoolMonitorVo vo = os.getPoolMonitorVo();
+            PoolAutoscaler.ScalingPolicy policy = SourceBeanCreationUtil.createScalingPolicy(Config_OS_Prefix + "." + os.getOsId(),
+                    vo != null ? vo.getPoolMaxSize() : 1, environment);
+            if (policy != null) policyMap.put(os, policy);
+        }
+        if (policyMap.isEmpty()) return;
+
+        long interval = SourceBeanCreationUtil.getAutoscaleInterval(Config_OS_Prefix, environment);
+        PoolAutoscaler autoscaler = PoolAutoscaler.getInstance();
+        policyMap.forEach((os, policy) -> autoscaler.addTarget(PoolAutoscaler.forObjectSource(os, policy), interval));
+    }
+
     /**
      * 4: register ObjectSource to springBoot
      *
@@ -202,23 +238,17 @@ public class ObjectSourceBeanRegister<K, V> implements EnvironmentAware, ImportB
 
         //register dynamic ObjectSource
         if (isNotBlank(dynOsId) && isNotBlank(primaryOsId)) {
-            ThreadLocal<ObjectSourceBean<K, V>> osThreadLocal = new ThreadLocal<>();
+            boolean enableVirtualThread = Boolean.parseBoolean(environment.getProperty(Config_Virtual_Thread, "false"));
+            RoutingContext<ObjectSourceRoute<K, V>> osContext = RoutingContext.create(enableVirtualThread);
 
             GenericBeanDefinition define = new GenericBeanDefinition();
             define.setBeanClass(DynamicObjectSource.class);
-            define.setInstanceSupplier(SpringBootEnvironmentUtil.createSpringSupplier(new DynamicObjectSource<>(dynOsId, osThreadLocal)));
+            define.setInstanceSupplier(SpringBootEnvironmentUtil.createSpringSupplier(new DynamicObjectSource<>(dynOsId, osContext)));
             registry.registerBeanDefinition(dynOsId, define);
             log.info("Registered a dynamic object source(type:{})with bean Id '{}'", define.getBeanClassName(), dynOsId);
 
-            String aspectBeanId = "beeOs_" + DynamicAspect.class.getName();
-            GenericBeanDefinition osIdSetDefine = new GenericBeanDefinition();
-            osIdSetDefine.setBeanClass(DynamicAspect.class);
-
-            DynamicAspect<K, V> dynamicAspect = new DynamicAspect<>();
-            dynamicAspect.setDynOsThreadLocal(primaryOsId, osThreadLocal);
-            osIdSetDefine.setInstanceSupplier(SpringBootEnvironmentUtil.createSpringSupplier(dynamicAspect));
-            registry.registerBeanDefinition(aspectBeanId, osIdSetDefine);
-            log.info("Registered an aspect component(type:{})for dynamic object source with bean Id '{}'", define.getBeanClassName(), aspectBeanId);
+            DynamicAspect<K, V> dynamicAspect = SpringBootEnvironmentUtil.getOrRegisterDynamicAspect(registry);
+            dynamicAspect.setDynOsRoutingContext(primaryOsId, osContext);
         }
     }
 
@@ -17,6 +17,7 @@ package org.stone.springboot;
 
 import org.stone.beeop.BeeObjectPoolMonitorVo;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /*
@@ -27,11 +28,13 @@ import java.util.UUID;
 public class ObjectSourcePoolMonitorVo implements BeeObjectPoolMonitorVo {
     private final String osId;
     private final String osUUID;
+    private final ObjectSourceBean<?, ?> os;
     private BeeObjectPoolMonitorVo vo;
 
-    ObjectSourcePoolMonitorVo(String osId) {
+    ObjectSourcePoolMonitorVo(String osId, ObjectSourceBean<?, ?> os) {
         this.osId = osId;
         this.osUUID = UUID.randomUUID().toString();
+        this.os = os;
     }
 
     public void setVo(BeeObjectPoolMonitorVo vo) {
@@ -90,4 +93,17 @@ public class ObjectSourcePoolMonitorVo implements BeeObjectPoolMonitorVo {
         return vo.getPoolName();
     }
 
+    //count of borrows shed by admission control
+    public long getShedCount() {
+        return os.getShedCount();
+    }
+
+    public int getBorrowingSize() {
+        return os.getBorrowingSize();
+    }
+
+    //bulkheads of annotated methods routed to this object source
+    public Collection<Bulkhead> getBulkheads() {
+        return os.getBulkheads();
+    }
 }
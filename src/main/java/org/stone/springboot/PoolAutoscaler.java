@@ -0,0 +1,212 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autoscaler of pools,which samples pool monitor vo periodically and grows or shrinks max size of pools within
+ * configured bounds.
+ *
+ * <p>A pool grows when borrowers are waiting on its semaphore or its utilization(borrowed/max) reaches grow threshold,
+ * and shrinks when nobody is waiting and its utilization falls to shrink threshold;gap between two thresholds and
+ * count of consecutive samples required by a decision are hysteresis against flapping,and no decision is made in
+ * cooldown after a resize. A pool doesn't grow when it reports connection(object) creation timeout,since more
+ * connections can't help when server side is saturated. Every decision is logged for audit.
+ *
+ * <p>A resize doesn't clear pool under load:a new pool with new max size is swapped in(blue/green),and old pool is
+ * drained in background until its borrowed connections(objects) returned or drain timeout of policy. Pools have no
+ * resizing in place,so a resize has two costs:new pool is cold(warmed by one connection),and connections to database
+ * overshoot new max size by borrowed size of old pool until it drained,that is,new max size plus old max size at worst.
+ * So a resize is skipped(logged as HOLD) when borrowed size of current pool exceeds max overshoot of policy,which caps
+ * connections in a resize to new max size plus max overshoot.
+ *
+ * <p>Autoscaler runs on {@link LocalScheduleService},one task samples all registered pools.
+ *
+ * @author Chris Liao
+ */
+final class PoolAutoscaler implements Runnable {
+    private static final PoolAutoscaler single = new PoolAutoscaler();
+    private static final Logger log = LoggerFactory.getLogger(PoolAutoscaler.class);
+    private final List<ScalingTarget> targetList = new CopyOnWriteArrayList<>();
+    private boolean scheduled;
+
+    static PoolAutoscaler getInstance() {
+        return single;
+    }
+
+    /**
+     * Registers a pool to autoscaler,sampling task is scheduled on first registration.
+     *
+     * @param target   pool to be scaled
+     * @param interval sampling interval(milliseconds),only interval of first registration takes effect
+     */
+    synchronized void addTarget(ScalingTarget target, long interval) {
+        targetList.add(target);
+        if (!scheduled) {
+            LocalScheduleService.getInstance().scheduleAtFixedRate(this, interval, interval, TimeUnit.MILLISECONDS);
+            scheduled = true;
+        }
+        log.info("Autoscaler registered pool({}) with bounds[{},{}]", target.poolId, target.policy.minSize, target.policy.maxSize);
+    }
+
+    //removes a pool on its runtime removal
+    void removeTarget(Object pool) {
+        targetList.removeIf(target -> target.pool == pool);
+    }
+
+    public void run() {
+        for (ScalingTarget target : targetList) {
+            try {
+                target.scale();
+            } catch (Throwable e) {
+                log.warn("Autoscaler failed to sample or resize pool({})", target.poolId, e);
+            }
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: scaling targets(2)                                                     //
+    //***************************************************************************************************************//
+    static ScalingTarget forDataSource(DataSourceBean ds, ScalingPolicy policy) {
+        return new ScalingTarget(ds.getDsId(), ds, policy) {
+            PoolLoad sample() throws Exception {
+                if (ds.isClosed()) return null;
+                BeeConnectionPoolMonitorVo vo = ds.getPoolMonitorVo();
+                return vo == null ? null : new PoolLoad(vo.getMaxSize(), vo.getBorrowedSize(),
+                        vo.getSemaphoreWaitingSize(), vo.getCreatingTimeoutSize());
+            }
+
+            void resize(int maxSize) throws Exception {
+                ds.reconfigure(maxSize, policy.drainTimeout());
+            }
+        };
+    }
+
+    static ScalingTarget forObjectSource(ObjectSourceBean<?, ?> os, ScalingPolicy policy) {
+        return new ScalingTarget(os.getOsId(), os, policy) {
+            PoolLoad sample() throws Exception {
+                if (os.isClosed()) return null;
+                BeeObjectPoolMonitorVo vo = os.getPoolMonitorVo();
+                return vo == null ? null : new PoolLoad(vo.getPoolMaxSize(), vo.getBorrowedSize(),
+                        vo.getSemaphoreWaitingSize(), vo.getCreatingTimeoutSize());
+            }
+
+            void resize(int maxSize) throws Exception {
+                os.reconfigure(maxSize, policy.drainTimeout());
+            }
+        };
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: policy,load and target(3)                                              //
+    //***************************************************************************************************************//
+    record ScalingPolicy(int minSize, int maxSize, int step, long cooldown, double growUtilization,
+                         double shrinkUtilization, int samples, int maxOvershoot, long drainTimeout) {
+        ScalingPolicy {
+            if (minSize <= 0) throw new IllegalArgumentException("Min size must be greater than zero");
+            if (maxSize < minSize) throw new IllegalArgumentException("Max size can't be less than min size");
+            if (step <= 0) throw new IllegalArgumentException("Step must be greater than zero");
+            if (cooldown < 0L) throw new IllegalArgumentException("Cooldown can't be less than zero");
+            if (growUtilization <= 0D || growUtilization > 1D)
+                throw new IllegalArgumentException("Grow utilization must be in range(0,1]");
+            if (shrinkUtilization < 0D || shrinkUtilization >= growUtilization)
+                throw new IllegalArgumentException("Shrink utilization must be in range[0,growUtilization)");
+            if (samples <= 0) throw new IllegalArgumentException("Samples must be greater than zero");
+            if (maxOvershoot < 0) throw new IllegalArgumentException("Max overshoot can't be less than zero");
+            if (drainTimeout < 0L) throw new IllegalArgumentException("Drain timeout can't be less than zero");
+        }
+    }
+
+    record PoolLoad(int maxSize, int borrowedSize, int waitingSize, int creatingTimeoutSize) {
+    }
+
+    abstract static class ScalingTarget {
+        private final String poolId;
+        private final Object pool;
+        private final ScalingPolicy policy;
+        private int growSamples;
+        private int shrinkSamples;
+        private long lastResizeTime;
+
+        ScalingTarget(String poolId, Object pool, ScalingPolicy policy) {
+            this.poolId = poolId;
+            this.pool = pool;
+            this.policy = policy;
+        }
+
+        abstract PoolLoad sample() throws Exception;
+
+        abstract void resize(int maxSize) throws Exception;
+
+        //run on scheduler thread only,so no synchronization on sample counts
+        void scale() throws Exception {
+            PoolLoad load = sample();
+            if (load == null || load.maxSize <= 0) return;
+
+            double utilization = (double) load.borrowedSize / load.maxSize;
+            growSamples = load.waitingSize > 0 || utilization >= policy.growUtilization ? growSamples + 1 : 0;
+            shrinkSamples = load.waitingSize == 0 && utilization <= policy.shrinkUtilization ? shrinkSamples + 1 : 0;
+
+            if (growSamples >= policy.samples) {
+                if (load.creatingTimeoutSize > 0) {
+                    audit("HOLD", load, load.maxSize, "creation timeout in pool,growing is skipped");
+                    growSamples = 0;
+                } else if (load.maxSize < policy.maxSize && !inCooldown(load)) {
+                    resize(load, Math.min(load.maxSize + policy.step, policy.maxSize), "GROW");
+                }
+            } else if (shrinkSamples >= policy.samples && load.maxSize > policy.minSize && !inCooldown(load)) {
+                resize(load, Math.max(load.maxSize - policy.step, policy.minSize), "SHRINK");
+            }
+        }
+
+        private boolean inCooldown(PoolLoad load) {
+            if (System.currentTimeMillis() - lastResizeTime >= policy.cooldown) return false;
+            if (log.isDebugEnabled())
+                log.debug("Autoscaler skipped resizing pool({}) in cooldown,load:{}", poolId, load);
+            return true;
+        }
+
+        private void resize(PoolLoad load, int newMaxSize, String action) throws Exception {
+            growSamples = 0;
+            shrinkSamples = 0;
+            if (load.borrowedSize > policy.maxOvershoot) {
+                audit("HOLD", load, load.maxSize, action.toLowerCase() + " is skipped,borrowed size is over max overshoot(" + policy.maxOvershoot + ")");
+                return;
+            }
+            lastResizeTime = System.currentTimeMillis();
+            try {
+                resize(newMaxSize);
+                audit(action, load, newMaxSize, "resized");
+            } catch (Exception e) {
+                audit(action, load, newMaxSize, "failed:" + e.getMessage());
+                throw e;
+            }
+        }
+
+        private void audit(String action, PoolLoad load, int newMaxSize, String result) {
+            log.info("Autoscaler decision:pool={},action={},maxSize={}->{},borrowed={},waiting={},creatingTimeout={},result={}",
+                    poolId, action, load.maxSize, newMaxSize, load.borrowedSize, load.waitingSize, load.creatingTimeoutSize, result);
+        }
+    }
+}
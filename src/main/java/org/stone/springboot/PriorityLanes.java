@@ -0,0 +1,240 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Priority lanes in front of a connection pool,high priority borrowers go to pool directly;low priority borrowers
+ * hold a permit of low priority lane until borrowed connection closed,so they are capped to a share of pool max size,
+ * and they yield to high priority borrowers in progress when pool has no idle connections. Yielding borrowers wait
+ * on a condition signalled by high priority borrowers at end of their borrowing,pool state is checked on signals only.
+ *
+ * <p>Connections borrowed at low priority are returned to borrowers without wrapping,they are kept in a lent queue;
+ * permits of connections found closed in queue are reclaimed when lane has no free permits(waiting low priority
+ * borrowers recheck queue in a short interval),so a permit is released however its connection is closed,such as via
+ * {@code Statement.getConnection()}. A connection is closed when it is returned to pool,a physical connection
+ * unwrapped and closed by borrower keeps permit until the pool closes its proxy.
+ *
+ * @author Chris Liao
+ */
+final class PriorityLanes {
+    private static final long Reclaim_Interval = TimeUnit.MILLISECONDS.toNanos(10L);
+
+    private final String dsId;
+    private final long lowLaneMaxWaitNanos;
+    private final LaneSemaphore lowLaneSemaphore;
+    //connections borrowed at low priority and not reclaimed,each one holds a permit of low priority lane
+    private final ConcurrentLinkedQueue<Connection> lentConnections = new ConcurrentLinkedQueue<>();
+    private final BooleanSupplier poolExhausted;
+    private final AtomicInteger highBorrowingSize = new AtomicInteger();
+    private final AtomicInteger lowYieldingSize = new AtomicInteger();
+    private final ReentrantLock yieldLock = new ReentrantLock();
+    private final Condition highBorrowEnded = yieldLock.newCondition();
+    private volatile int lowLaneSize;
+    private final AcquisitionStatistics highLaneStatistics = new AcquisitionStatistics();
+    private final AcquisitionStatistics lowLaneStatistics = new AcquisitionStatistics();
+
+    PriorityLanes(String dsId, int lowLaneSize, long lowLaneMaxWait, BooleanSupplier poolExhausted) {
+        if (lowLaneSize <= 0) throw new IllegalArgumentException("Size of low priority lane must be greater than zero");
+        if (lowLaneMaxWait <= 0L) throw new IllegalArgumentException("Max wait of low priority lane must be greater than zero");
+
+        this.dsId = dsId;
+        this.lowLaneSize = lowLaneSize;
+        this.lowLaneMaxWaitNanos = TimeUnit.MILLISECONDS.toNanos(lowLaneMaxWait);
+        this.lowLaneSemaphore = new LaneSemaphore(lowLaneSize);
+        this.poolExhausted = poolExhausted;
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: borrow(8)                                                              //
+    //***************************************************************************************************************//
+    Connection borrow(ConnectionBorrower borrower) throws SQLException {
+        return BorrowPriority.isLowPriority() ? borrowAtLowPriority(borrower) : borrowAtHighPriority(borrower);
+    }
+
+    private Connection borrowAtHighPriority(ConnectionBorrower borrower) throws SQLException {
+        long startTime = System.nanoTime();
+        highBorrowingSize.incrementAndGet();
+        try {
+            Connection con = borrower.borrow();
+            highLaneStatistics.success(System.nanoTime() - startTime);
+            return con;
+        } catch (SQLException | RuntimeException e) {
+            highLaneStatistics.failure(System.nanoTime() - startTime);
+            throw e;
+        } finally {
+            highBorrowingSize.decrementAndGet();
+            if (lowYieldingSize.get() > 0) signalYieldingBorrowers();
+        }
+    }
+
+    private void signalYieldingBorrowers() {
+        yieldLock.lock();
+        try {
+            highBorrowEnded.signalAll();
+        } finally {
+            yieldLock.unlock();
+        }
+    }
+
+    //waits until no high priority borrowers in progress or pool not exhausted,rechecked on end of each high borrowing
+    private void yieldToHighBorrowers(long deadline) throws SQLException, InterruptedException {
+        lowYieldingSize.incrementAndGet();
+        try {
+            yieldLock.lockInterruptibly();
+            try {
+                while (highBorrowingSize.get() > 0 && poolExhausted.getAsBoolean()) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0L)
+                        throw new SQLTimeoutException("Timeout at waiting high priority borrowers of data source:" + dsId);
+                    highBorrowEnded.awaitNanos(remainingNanos);
+                }
+            } finally {
+                yieldLock.unlock();
+            }
+        } finally {
+            lowYieldingSize.decrementAndGet();
+        }
+    }
+
+    private Connection borrowAtLowPriority(ConnectionBorrower borrower) throws SQLException {
+        long startTime = System.nanoTime();
+        long deadline = startTime + lowLaneMaxWaitNanos;
+        boolean acquired = false;
+        try {
+            //1: get a permit of low priority lane
+            if (!acquireLowLanePermit(deadline))
+                throw new SQLTimeoutException("Timeout at waiting low priority lane of data source:" + dsId);
+            acquired = true;
+
+            //2: yield to high priority borrowers when pool exhausted
+            if (highBorrowingSize.get() > 0 && poolExhausted.getAsBoolean()) yieldToHighBorrowers(deadline);
+
+            //3: borrow and bind permit to connection
+            Connection con = borrower.borrow();
+            lentConnections.offer(con);
+            lowLaneStatistics.success(System.nanoTime() - startTime);
+            return con;
+        } catch (InterruptedException e) {
+            lowLaneStatistics.failure(System.nanoTime() - startTime);
+            if (acquired) lowLaneSemaphore.release();
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted at waiting low priority lane of data source:" + dsId, e);
+        } catch (SQLException | RuntimeException e) {
+            lowLaneStatistics.failure(System.nanoTime() - startTime);
+            if (acquired) lowLaneSemaphore.release();
+            throw e;
+        }
+    }
+
+    //waits a permit until deadline,permits of closed lent connections are reclaimed when no free permits
+    private boolean acquireLowLanePermit(long deadline) throws InterruptedException {
+        while (true) {
+            if (lowLaneSemaphore.tryAcquire()) return true;
+            if (reclaimClosedConnections() > 0) continue;
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0L) return false;
+            if (lowLaneSemaphore.tryAcquire(Math.min(remainingNanos, Reclaim_Interval), TimeUnit.NANOSECONDS))
+                return true;
+        }
+    }
+
+    //releases permits of lent connections which have been closed
+    private int reclaimClosedConnections() {
+        int reclaimedSize = 0;
+        for (Connection con : lentConnections) {
+            if (isClosed(con) && lentConnections.remove(con)) {//only one reclaimer removes it
+                lowLaneSemaphore.release();
+                reclaimedSize++;
+            }
+        }
+        return reclaimedSize;
+    }
+
+    private static boolean isClosed(Connection con) {
+        try {
+            return con.isClosed();
+        } catch (Throwable e) {
+            return true;
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: resize and monitoring(6)                                               //
+    //***************************************************************************************************************//
+
+    //resizes lane in place,permits held by borrowed connections are kept;lane is over size until enough of them released
+    synchronized void resize(int newLowLaneSize) {
+        if (newLowLaneSize <= 0) throw new IllegalArgumentException("Size of low priority lane must be greater than zero");
+        int delta = newLowLaneSize - lowLaneSize;
+        if (delta > 0)
+            lowLaneSemaphore.release(delta);
+        else if (delta < 0)
+            lowLaneSemaphore.reducePermits(-delta);
+        this.lowLaneSize = newLowLaneSize;
+    }
+
+    int getLowLaneSize() {
+        return lowLaneSize;
+    }
+
+    long getLowLaneMaxWait() {
+        return TimeUnit.NANOSECONDS.toMillis(lowLaneMaxWaitNanos);
+    }
+
+    int getLowLaneBorrowedSize() {
+        reclaimClosedConnections();
+        return lowLaneSize - lowLaneSemaphore.availablePermits();
+    }
+
+    double getHighLaneWaitEwma() {
+        return highLaneStatistics.getLatency();
+    }
+
+    double getLowLaneWaitEwma() {
+        return lowLaneStatistics.getLatency();
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: borrower and lane semaphore                                            //
+    //***************************************************************************************************************//
+    @FunctionalInterface
+    interface ConnectionBorrower {
+        Connection borrow() throws SQLException;
+    }
+
+    //semaphore with permits reducible on resize
+    private static final class LaneSemaphore extends Semaphore {
+        LaneSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
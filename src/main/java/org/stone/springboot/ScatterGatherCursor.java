@@ -0,0 +1,333 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.stone.springboot.exception.DataSourceException;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A cursor of scatter-gather query,which runs a statement on some data sources in parallel and streams rows back
+ * as they arrive.Without a comparator,rows are returned in arrival order;with a comparator,rows of each shard
+ * are expected to be sorted by it(for example,by an order by clause) and are k-way merged to a sorted stream.
+ *
+ * <p>Shard timeout is an idle timeout:deadline of a shard is set from submission and is moved forward on each row read
+ * from database,so a shard is timed out only when no row arrived from it in timeout,a shard still streaming rows is
+ * never timed out.Deadline is checked by consumer,which cancels statement of a timed out shard,so no statement
+ * level query timeout is set on shards. A shard failed or timed out is reported in {@link #getFailures()} and rows read from other shards
+ * are still returned.Cursor should be closed after use to cancel running shards.
+ *
+ * @param <T> type of mapped row
+ * @author Chris Liao
+ */
+public final class ScatterGatherCursor<T> implements Iterator<T>, AutoCloseable {
+    private static final int Shard_Queue_Capacity = 256;
+    private static final Object End = new Object();
+    private static volatile ExecutorService executor;
+
+    private final String sql;
+    private final Object[] params;
+    private final ShardRowMapper<T> rowMapper;
+    private final Comparator<? super T> comparator;
+    private final long shardTimeoutNanos;
+    private final List<ShardTask> shardList;
+    private final Map<String, Throwable> failures = new ConcurrentHashMap<>(1);
+    private final BlockingQueue<Object[]> arrivalQueue;//[shard,row] in arrival order(unordered mode)
+    private int activeSize;
+    private volatile boolean closed;
+    private T nextRow;
+    private boolean nextRowReady;
+
+    ScatterGatherCursor(Map<String, DataSourceBean> dsMap, String sql, Object[] params, ShardRowMapper<T> rowMapper,
+                        Comparator<? super T> comparator, long shardTimeout, TimeUnit unit) {
+        this.sql = sql;
+        this.params = params;
+        this.rowMapper = rowMapper;
+        this.comparator = comparator;
+        this.shardTimeoutNanos = unit.toNanos(shardTimeout);
+        this.arrivalQueue = comparator == null ? new LinkedBlockingQueue<>(Shard_Queue_Capacity * Math.max(1, dsMap.size())) : null;
+        this.shardList = new ArrayList<>(dsMap.size());
+
+        ExecutorService executor = getExecutor();
+        long deadline = System.nanoTime() + shardTimeoutNanos;
+        for (Map.Entry<String, DataSourceBean> entry : dsMap.entrySet()) {
+            ShardTask shard = new ShardTask(entry.getKey(), entry.getValue(), deadline);
+            shardList.add(shard);
+            try {
+                shard.future = executor.submit(shard);
+            } catch (RejectedExecutionException e) {
+                shard.reject(e);
+                continue;
+            }
+            activeSize++;
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: executor                                                               //
+    //***************************************************************************************************************//
+    //virtual thread per task executor on JDK21+,otherwise a bounded pool of daemon threads
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (ScatterGatherCursor.class) {
+                if (executor == null) {
+                    try {
+                        executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                    } catch (Throwable e) {
+                        int threadSize = Runtime.getRuntime().availableProcessors() * 2;
+                        ThreadPoolExecutor poolExecutor = new ThreadPoolExecutor(threadSize, threadSize, 60L, TimeUnit.SECONDS,
+                                new LinkedBlockingQueue<>(), r -> {
+                            Thread th = new Thread(r, "StoneScatterGatherThread");
+                            th.setDaemon(true);
+                            return th;
+                        });
+                        poolExecutor.allowCoreThreadTimeOut(true);
+                        executor = poolExecutor;
+                    }
+                }
+            }
+        }
+        return executor;
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: iteration                                                              //
+    //***************************************************************************************************************//
+    public boolean hasNext() {
+        if (!nextRowReady) {
+            if (closed) return false;
+            try {
+                nextRowReady = comparator == null ? readArrivedRow() : readMergedRow();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.close();
+                throw new DataSourceException("Interrupted while waiting rows of scatter-gather query", e);
+            }
+        }
+        return nextRowReady;
+    }
+
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        T row = nextRow;
+        nextRow = null;
+        nextRowReady = false;
+        return row;
+    }
+
+    //reads a row in arrival order
+    @SuppressWarnings("unchecked")
+    private boolean readArrivedRow() throws InterruptedException {
+        while (activeSize > 0) {
+            Object[] element = arrivalQueue.poll(getWaitNanos(), TimeUnit.NANOSECONDS);
+            if (element == null) {
+                timeoutExpiredShards();
+                continue;
+            }
+
+            ShardTask shard = (ShardTask) element[0];
+            if (shard.done) continue;//late row of a timed out shard
+            if (element[1] == End) {
+                shard.done = true;
+                activeSize--;
+            } else {
+                nextRow = (T) element[1];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //reads least row from heads of shards(k-way merge)
+    @SuppressWarnings("unchecked")
+    private boolean readMergedRow() throws InterruptedException {
+        ShardTask least = null;
+        for (ShardTask shard : shardList) {
+            while (!shard.done && !shard.headReady) {
+                long waitNanos = shard.deadline - System.nanoTime();
+                Object element = waitNanos > 0 ? shard.queue.poll(waitNanos, TimeUnit.NANOSECONDS) : shard.queue.poll();
+                if (element == End) {
+                    shard.done = true;
+                    activeSize--;
+                } else if (element != null) {
+                    shard.head = (T) element;
+                    shard.headReady = true;
+                } else if (System.nanoTime() - shard.deadline >= 0) {
+                    shard.timeout();
+                }
+            }
+            if (shard.headReady && (least == null || comparator.compare(shard.head, least.head) < 0))
+                least = shard;
+        }
+
+        if (least == null) return false;
+        nextRow = least.head;
+        least.head = null;
+        least.headReady = false;
+        return true;
+    }
+
+    private long getWaitNanos() {
+        long minDeadline = Long.MAX_VALUE;
+        boolean found = false;
+        for (ShardTask shard : shardList) {
+            if (!shard.done && (!found || shard.deadline - minDeadline < 0)) {
+                minDeadline = shard.deadline;
+                found = true;
+            }
+        }
+        return found ? Math.max(0L, minDeadline - System.nanoTime()) : 0L;
+    }
+
+    private void timeoutExpiredShards() {
+        long now = System.nanoTime();
+        for (ShardTask shard : shardList) {
+            if (!shard.done && now - shard.deadline >= 0) shard.timeout();
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: result status and close                                                //
+    //***************************************************************************************************************//
+
+    /**
+     * Gets failures of shards,key is data source id and value is failure cause(a {@link TimeoutException} on timeout).
+     *
+     * @return failures of shards
+     */
+    public Map<String, Throwable> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    //true that some shards failed,rows read out are partial
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+
+    public void close() {
+        if (closed) return;
+        closed = true;
+        for (ShardTask shard : shardList) {
+            shard.cancel();
+            if (!shard.done) {
+                shard.done = true;
+                activeSize--;
+            }
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     4: shard task                                                             //
+    //***************************************************************************************************************//
+    private final class ShardTask implements Runnable {
+        private final String dsId;
+        private final DataSourceBean ds;
+        private final BlockingQueue<Object> queue;//rows of shard(merge mode)
+        private volatile long deadline;//moved forward on each row by shard thread
+        private volatile Statement statement;
+        private volatile boolean stopped;
+        private volatile Future<?> future;
+        //fields accessed by consumer
+        private boolean done;
+        private boolean headReady;
+        private T head;
+
+        ShardTask(String dsId, DataSourceBean ds, long deadline) {
+            this.dsId = dsId;
+            this.ds = ds;
+            this.deadline = deadline;
+            this.queue = comparator != null ? new LinkedBlockingQueue<>(Shard_Queue_Capacity) : null;
+        }
+
+        public void run() {
+            Throwable cause = null;
+            try (Connection con = ds.getConnection(); PreparedStatement ps = con.prepareStatement(sql)) {
+                this.statement = ps;
+                if (stopped) return;
+                if (params != null) {
+                    for (int i = 0; i < params.length; i++)
+                        ps.setObject(i + 1, params[i]);
+                }
+                //no statement timeout is set,it would limit whole query;idle deadline is checked by consumer
+                if (deadline - System.nanoTime() <= 0)
+                    throw new TimeoutException("Shard query timeout on data source:" + dsId);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (!stopped && rs.next()) {
+                        T row = rowMapper.mapRow(dsId, rs);
+                        deadline = System.nanoTime() + shardTimeoutNanos;
+                        if (!offer(row)) return;
+                    }
+                }
+            } catch (Throwable e) {
+                cause = e;
+            } finally {
+                this.statement = null;
+            }
+            finish(cause);
+        }
+
+        //puts a row or end marker to queue,false if cursor closed or shard timed out
+        private boolean offer(Object element) throws InterruptedException {
+            while (!stopped) {
+                boolean offered = queue != null ?
+                        queue.offer(element, 100L, TimeUnit.MILLISECONDS) :
+                        arrivalQueue.offer(new Object[]{this, element}, 100L, TimeUnit.MILLISECONDS);
+                if (offered) return true;
+            }
+            return false;
+        }
+
+        //called by consumer when shard task not be accepted by executor
+        void reject(Throwable cause) {
+            failures.putIfAbsent(dsId, cause);
+            done = true;
+        }
+
+        private void finish(Throwable cause) {
+            if (cause != null && !stopped) failures.putIfAbsent(dsId, cause);
+            try {
+                offer(End);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        //called by consumer
+        void timeout() {
+            failures.putIfAbsent(dsId, new TimeoutException("Shard query timeout on data source:" + dsId));
+            done = true;
+            activeSize--;
+            cancel();
+        }
+
+        void cancel() {
+            stopped = true;
+            Statement st = statement;
+            if (st != null) {
+                try {
+                    st.cancel();
+                } catch (Throwable e) {
+                    //do nothing
+                }
+            }
+            Future<?> f = future;
+            if (f != null) f.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of result set from a shard data source in a scatter-gather query.
+ *
+ * @param <T> type of mapped row
+ * @author Chris Liao
+ */
+@FunctionalInterface
+public interface ShardRowMapper<T> {
+
+    T mapRow(String dsId, ResultSet rs) throws SQLException;
+}
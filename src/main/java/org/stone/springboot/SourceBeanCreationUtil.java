@@ -0,0 +1,200 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.slf4j.Logger;
+import org.springframework.core.env.Environment;
+import org.stone.springboot.exception.ConfigurationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.stone.springboot.Constants.*;
+import static org.stone.tools.CommonUtil.isBlank;
+import static org.stone.tools.CommonUtil.isNotBlank;
+
+/**
+ * Creation tool of source beans,supports sequential creation and parallel creation.
+ *
+ * @author Chris Liao
+ */
+final class SourceBeanCreationUtil {
+
+    static boolean isParallelInit(String prefix, Environment environment) {
+        String parallelText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_Parallel_Init, environment);
+        return isNotBlank(parallelText) && Boolean.parseBoolean(parallelText);
+    }
+
+    /**
+     * Creates admission controller of a source with configured limits.
+     *
+     * @param prefix      configuration prefix of source
+     * @param environment spring boot environment
+     * @return admission controller,null if no limit configured
+     */
+    static AdmissionController createAdmissionController(String prefix, Environment environment) {
+        String maxWaitersText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_Max_Waiters, environment);
+        String maxPredictedWaitText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_Max_Predicted_Wait, environment);
+        if (isBlank(maxWaitersText) && isBlank(maxPredictedWaitText)) return null;
+
+        try {
+            int maxWaiters = isBlank(maxWaitersText) ? 0 : Integer.parseInt(maxWaitersText.trim());
+            long maxPredictedWait = isBlank(maxPredictedWaitText) ? 0L : Long.parseLong(maxPredictedWaitText.trim());
+            return new AdmissionController(maxWaiters, maxPredictedWait);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid admission control configuration of '" + prefix + "':" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates autoscaling policy of a pool with configured bounds.
+     *
+     * @param prefix      configuration prefix of source
+     * @param maxSize     configured max size of pool,which is default lower bound
+     * @param environment spring boot environment
+     * @return autoscaling policy,null if autoscaling not enabled
+     */
+    static PoolAutoscaler.ScalingPolicy createScalingPolicy(String prefix, int maxSize, Environment environment) {
+        String autoscaleText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_Autoscale, environment);
+        if (isBlank(autoscaleText) || !Boolean.parseBoolean(autoscaleText.trim())) return null;
+
+        try {
+            int minSize = Integer.parseInt(getConfigValue(prefix, Config_Autoscale_Min_Size, String.valueOf(maxSize), environment));
+            String maxSizeText = SpringBootEnvironmentUtil.getConfigValue(prefix, Config_Autoscale_Max_Size, environment);
+            if (isBlank(maxSizeText)) throw new IllegalArgumentException("'" + Config_Autoscale_Max_Size + "' is required");
+
+            int autoscaleMaxSize = Integer.parseInt(maxSizeText.trim());
+            return new PoolAutoscaler.ScalingPolicy(minSize, autoscaleMaxSize,
+                    Integer.parseInt(getConfigValue(prefix, Config_Autoscale_Step, "2", environment)),
+                    Long.parseLong(getConfigValue(prefix, Config_Autoscale_Cooldown, "60000", environment)),
+                    Double.parseDouble(getConfigValue(prefix, Config_Autoscale_Grow_Utilization, "0.9", environment)),
+                    Double.parseDouble(getConfigValue(prefix, Config_Autoscale_Shrink_Utilization, "0.5", environment)),
+                    Integer.parseInt(getConfigValue(prefix, Config_Autoscale_Samples, "3", environment)),
+                    Integer.parseInt(getConfigValue(prefix, Config_Autoscale_Max_Overshoot, String.valueOf(autoscaleMaxSize / 2), environment)),
+                    Long.parseLong(getConfigValue(prefix, Config_DS_Drain_Timeout, "30000", environment)));
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid autoscaling configuration of '" + prefix + "':" + e.getMessage(), e);
+        }
+    }
+
+    //sampling interval of autoscaler,read from top prefix of sources(spring.datasource,spring.objectSource)
+    static long getAutoscaleInterval(String topPrefix, Environment environment) {
+        try {
+            long interval = Long.parseLong(getConfigValue(topPrefix, Config_Autoscale_Interval, "5000", environment));
+            if (interval <= 0L) throw new IllegalArgumentException("interval must be greater than zero");
+            return interval;
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("Invalid autoscaler interval of '" + topPrefix + "':" + e.getMessage(), e);
+        }
+    }
+
+    private static String getConfigValue(String prefix, String itemName, String defaultValue, Environment environment) {
+        String value = SpringBootEnvironmentUtil.getConfigValue(prefix, itemName, environment);
+        return isBlank(value) ? defaultValue : value.trim();
+    }
+
+    /**
+     * Creates source beans one by one or in parallel,created beans are put into result map in order of id list.
+     * When failure occurs in parallel mode,waiting stops and creations in progress are interrupted,then first failure
+     * is thrown,so that caller can close created beans in result map;beans created after failure are closed by closer.
+     *
+     * @param idList     id list of sources
+     * @param creator    creation function of source bean
+     * @param closer     close function of source bean created after failure
+     * @param resultMap  a map to collect created source beans
+     * @param parallel   true that creating beans in parallel
+     * @param log        logger to print creation time
+     * @param sourceType type name of source
+     * @param <T>        type of source bean
+     * @throws Throwable when fail to create source bean
+     */
+    static <T> void createSourceBeans(List<String> idList, Function<String, T> creator, BeanCloser<T> closer,
+                                      Map<String, T> resultMap, boolean parallel, Logger log, String sourceType) throws Throwable {
+        if (!parallel || idList.size() == 1) {
+            for (String id : idList) {
+                long startTime = System.nanoTime();
+                resultMap.put(id, creator.apply(id));
+                log.info("{}({}) was created in {}ms", sourceType, id, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            }
+            return;
+        }
+
+        int threadSize = Math.min(idList.size(), Runtime.getRuntime().availableProcessors() * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threadSize, new CreationThreadFactory());
+        List<CompletableFuture<T>> futureList = new ArrayList<>(idList.size());
+        for (String id : idList) {
+            futureList.add(CompletableFuture.supplyAsync(() -> {
+                long startTime = System.nanoTime();
+                T bean = creator.apply(id);
+                log.info("{}({}) was created in {}ms", sourceType, id, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                return bean;
+            }, executor));
+        }
+
+        Throwable failure = null;
+        int collectedSize = 0;
+        for (; collectedSize < idList.size(); collectedSize++) {
+            try {
+                resultMap.put(idList.get(collectedSize), futureList.get(collectedSize).get());
+            } catch (ExecutionException e) {
+                failure = e.getCause();
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+                break;
+            }
+        }
+        if (failure == null) {
+            executor.shutdown();
+            return;
+        }
+
+        //cancel creations not started and interrupt creations in progress,beans created late are closed
+        executor.shutdownNow();
+        for (int i = collectedSize; i < idList.size(); i++) {
+            String id = idList.get(i);
+            futureList.get(i).thenAccept(bean -> {
+                try {
+                    closer.close(bean);
+                } catch (Throwable e) {
+                    log.warn("Failed to close {}({}) created after failure", sourceType, id, e);
+                }
+            });
+        }
+        throw failure;
+    }
+
+    /**
+     * Close function of source bean.
+     *
+     * @param <T> type of source bean
+     */
+    interface BeanCloser<T> {
+        void close(T bean) throws Exception;
+    }
+
+    private static final class CreationThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable r) {
+            Thread th = new Thread(r, "StoneSourceCreationThread");
+            th.setDaemon(true);
+            return th;
+        }
+    }
+}
@@ -17,16 +17,28 @@ package org.stone.springboot;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.boot.env.RandomValuePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+import org.stone.springboot.dynamic.DynamicAspect;
+import org.stone.springboot.exception.ConfigurationException;
 import org.stone.springboot.exception.DataSourceException;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.Supplier;
 
+import static org.stone.springboot.Constants.Config_DS_Prefix;
+import static org.stone.springboot.Constants.Config_OS_Prefix;
 import static org.stone.tools.BeanUtil.*;
 import static org.stone.tools.CommonUtil.isBlank;
 import static org.stone.tools.CommonUtil.isNotBlank;
@@ -39,6 +51,12 @@ import static org.stone.tools.CommonUtil.isNotBlank;
 public class SpringBootEnvironmentUtil {
     //Logger
     private static final Logger log = LoggerFactory.getLogger(SpringBootEnvironmentUtil.class);
+    //name of property source attached by spring boot,which is a view of other property sources
+    private static final String Attached_Property_Source_Name = "configurationProperties";
+    //configuration prefixes indexed by property index
+    private static final String[] Indexed_Prefixes = {Config_DS_Prefix, Config_OS_Prefix};
+    //index of properties under indexed prefixes
+    private static volatile PropertyIndex propertyIndex;
 
     public static Supplier<?> createSpringSupplier(Object bean) {
         return new SpringRegSupplier(bean);
@@ -48,7 +66,42 @@ public class SpringBootEnvironmentUtil {
         return registry.containsBeanDefinition(beanName);
     }
 
+    /**
+     * Gets registered dynamic aspect from registry,if not exists,then register one,data source and object source share it.
+     *
+     * @param registry spring boot bean definition registry
+     * @param <K>      key type of object source
+     * @param <V>      object type of object source
+     * @return dynamic aspect
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> DynamicAspect<K, V> getOrRegisterDynamicAspect(BeanDefinitionRegistry registry) {
+        String aspectBeanId = DynamicAspect.class.getName();
+        if (registry.containsBeanDefinition(aspectBeanId)) {
+            BeanDefinition define = registry.getBeanDefinition(aspectBeanId);
+            if (define instanceof AbstractBeanDefinition && ((AbstractBeanDefinition) define).getInstanceSupplier() != null) {
+                Object aspect = ((AbstractBeanDefinition) define).getInstanceSupplier().get();
+                if (aspect instanceof DynamicAspect) return (DynamicAspect<K, V>) aspect;
+            }
+            throw new ConfigurationException("Existed a registered bean with id '" + aspectBeanId + "'");
+        }
+
+        DynamicAspect<K, V> aspect = new DynamicAspect<>();
+        GenericBeanDefinition define = new GenericBeanDefinition();
+        define.setBeanClass(DynamicAspect.class);
+        define.setInstanceSupplier(createSpringSupplier(aspect));
+        registry.registerBeanDefinition(aspectBeanId, define);
+        log.info("Registered an aspect component(type:{})for dynamic sources with bean Id '{}'", define.getBeanClassName(), aspectBeanId);
+        return aspect;
+    }
+
     public static String getConfigValue(String prefix, final String propertyName, Environment environment) {
+        PropertyIndex index = getPropertyIndex(prefix, environment);
+        if (index != null) {
+            String key = index.keyMap.get(toCanonicalKey(prefix + "." + propertyName));
+            return key != null ? readConfig(environment, key) : null;
+        }
+
         String value = readConfig(environment, prefix + "." + propertyName);
         if (value != null) return value;
 
@@ -66,11 +119,99 @@ public class SpringBootEnvironmentUtil {
         String value = environment.getProperty(key);
         if (isNotBlank(value)) {
             value = value.trim();
-            log.info("{}={}", key, value);
+            log.debug("{}={}", key, value);
         }
         return value;
     }
 
+    /**
+     * Clears property index,it will be rebuilt on next reading of configuration.
+     */
+    public static void clearPropertyIndex() {
+        propertyIndex = null;
+    }
+
+    //Relaxed form of a configuration key,segments before last '.'(prefix and source id) are kept exactly,
+    //property name after it is in lower case and without separators('-','_'),so ids 'ds_1' and 'ds1' are different
+    private static String toCanonicalKey(String key) {
+        int nameOffset = key.lastIndexOf('.') + 1;
+        StringBuilder builder = new StringBuilder(key.length());
+        builder.append(key, 0, nameOffset);
+        for (int i = nameOffset, l = key.length(); i < l; i++) {
+            char c = key.charAt(i);
+            if (c != '-' && c != '_') builder.append(Character.toLowerCase(c));
+        }
+        return builder.toString();
+    }
+
+    //name without dots(for example,environment variable 'SPRING_DATASOURCE_DS1_MAXACTIVE') under an indexed prefix
+    private static boolean isUndottedName(String name, String[] undottedPrefixes) {
+        if (name.indexOf('.') >= 0) return false;
+        String undottedName = name.replace("_", "").replace("-", "").toLowerCase(Locale.US);
+        for (String undottedPrefix : undottedPrefixes)
+            if (undottedName.startsWith(undottedPrefix)) return true;
+        return false;
+    }
+
+    private static PropertyIndex getPropertyIndex(String prefix, Environment environment) {
+        if (!(environment instanceof ConfigurableEnvironment)) return null;
+        boolean indexed = false;
+        for (String indexedPrefix : Indexed_Prefixes) {
+            if (prefix.startsWith(indexedPrefix)) {
+                indexed = true;
+                break;
+            }
+        }
+        if (!indexed) return null;
+
+        PropertyIndex index = propertyIndex;
+        if (index == null || index.environment != environment) {
+            synchronized (SpringBootEnvironmentUtil.class) {
+                index = propertyIndex;
+                if (index == null || index.environment != environment) {
+                    index = buildPropertyIndex((ConfigurableEnvironment) environment);
+                    propertyIndex = index;
+                }
+            }
+        }
+        return index.complete ? index : null;
+    }
+
+    //one pass over enumerable property sources,keys of higher precedence sources are kept
+    private static PropertyIndex buildPropertyIndex(ConfigurableEnvironment environment) {
+        String[] keyPrefixes = new String[Indexed_Prefixes.length];
+        String[] undottedPrefixes = new String[Indexed_Prefixes.length];
+        for (int i = 0; i < Indexed_Prefixes.length; i++) {
+            keyPrefixes[i] = Indexed_Prefixes[i] + ".";
+            undottedPrefixes[i] = Indexed_Prefixes[i].replace(".", "").toLowerCase(Locale.US);
+        }
+
+        Map<String, String> keyMap = new HashMap<>();
+        for (PropertySource<?> source : environment.getPropertySources()) {
+            if (source instanceof EnumerablePropertySource<?> enumerableSource) {
+                for (String name : enumerableSource.getPropertyNames()) {
+                    for (String keyPrefix : keyPrefixes) {
+                        if (name.startsWith(keyPrefix)) {
+                            keyMap.putIfAbsent(toCanonicalKey(name), name);
+                            break;
+                        }
+                    }
+                    //ids can't be told from property names in such names,which are resolved by environment lookup
+                    if (isUndottedName(name, undottedPrefixes)) {
+                        log.debug("Property index is disabled by a name without dots:{}", name);
+                        return new PropertyIndex(environment, keyMap, false);
+                    }
+                }
+            } else if (!(source instanceof PropertySource.StubPropertySource)
+                    && !(source instanceof RandomValuePropertySource)
+                    && !Attached_Property_Source_Name.equals(source.getName())) {
+                log.debug("Property index is disabled by a non-enumerable property source:{}", source.getName());
+                return new PropertyIndex(environment, keyMap, false);
+            }
+        }
+        return new PropertyIndex(environment, keyMap, true);
+    }
+
     public static Object createDataSourceByClassName(String dsId, Class<?> dsClass) {
         try {
             return dsClass.getDeclaredConstructor().newInstance();
@@ -94,11 +235,24 @@ public class SpringBootEnvironmentUtil {
 
             //4:inject found config value to ds config object
             setPropertiesValue(bean, setMethodMap, setValueMap);
+            if (!setValueMap.isEmpty()) log.info("{}-loaded configuration:{}", prefix, toPrintText(setValueMap));
         } catch (Throwable e) {
             throw new DataSourceException("DataSource(" + id + ")-Failed to set properties", e);
         }
     }
 
+    private static String toPrintText(Map<String, Object> setValueMap) {
+        Map<String, Object> printMap = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : setValueMap.entrySet()) {
+            String name = entry.getKey();
+            printMap.put(name, name.toLowerCase(Locale.US).contains("password") ? "******" : entry.getValue());
+        }
+        return printMap.toString();
+    }
+
+    private record PropertyIndex(Environment environment, Map<String, String> keyMap, boolean complete) {
+    }
+
     private record SpringRegSupplier(Object ds) implements Supplier<Object> {
         public Object get() {
             return ds;
@@ -0,0 +1,116 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stripe selector of striped sources,a borrower picks a random home stripe and takes it when no borrowers are in it and
+ * it is not exhausted,otherwise it steals from the first neighbour matching same condition;if none,the first stripe
+ * without borrowers in it is taken,and home stripe at last.
+ *
+ * <p>Borrowers in each stripe are counted on entry and exit of borrowing;available size(max size minus borrowed size)
+ * of a stripe is sampled from its pool at most once in a sample interval and is decremented on each borrow from it
+ * between samples,so pool state is not scanned on each borrowing and returns are seen at next sample.
+ *
+ * @author Chris Liao
+ */
+final class StripeSelector {
+    private static final long Default_Sample_Interval = TimeUnit.MILLISECONDS.toNanos(10L);
+    private final AvailableSizeSampler sampler;
+    //count of borrowers in borrowing of each stripe
+    private final AtomicIntegerArray borrowers;
+    //available size of each stripe at last sample,minus borrows after sample
+    private final AtomicIntegerArray availableSizes;
+    private final AtomicLongArray sampleTimes;
+    private final long sampleInterval;
+
+    StripeSelector(int stripeSize, AvailableSizeSampler sampler) {
+        this(stripeSize, sampler, Default_Sample_Interval);
+    }
+
+    StripeSelector(int stripeSize, AvailableSizeSampler sampler, long sampleInterval) {
+        this.sampler = sampler;
+        this.sampleInterval = sampleInterval;
+        this.borrowers = new AtomicIntegerArray(stripeSize);
+        this.availableSizes = new AtomicIntegerArray(stripeSize);
+        this.sampleTimes = new AtomicLongArray(stripeSize);
+        this.resetSamples();
+    }
+
+    //random home stripe,thread ids give no carrier affinity to virtual threads
+    private static int getHomeIndex(int stripeSize) {
+        return ThreadLocalRandom.current().nextInt(stripeSize);
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: select and borrow(4)                                                   //
+    //***************************************************************************************************************//
+    int select() {
+        int stripeSize = borrowers.length();
+        int home = getHomeIndex(stripeSize);
+        int freeIndex = -1;
+        for (int i = 0; i < stripeSize; i++) {
+            int index = (home + i) % stripeSize;
+            if (borrowers.get(index) == 0) {
+                if (getAvailableSize(index) > 0) return index;
+                if (freeIndex == -1) freeIndex = index;
+            }
+        }
+        return freeIndex != -1 ? freeIndex : home;
+    }
+
+    void beginBorrow(int index) {
+        borrowers.incrementAndGet(index);
+    }
+
+    void endBorrow(int index, boolean borrowed) {
+        if (borrowed) availableSizes.decrementAndGet(index);
+        borrowers.decrementAndGet(index);
+    }
+
+    //stripes are sampled again at next selection,called after stripes swapped
+    void resetSamples() {
+        long time = System.nanoTime() - sampleInterval;
+        for (int i = 0; i < sampleTimes.length(); i++)
+            sampleTimes.set(i, time);
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: sample                                                                 //
+    //***************************************************************************************************************//
+    private int getAvailableSize(int index) {
+        long sampleTime = sampleTimes.get(index);
+        long time = System.nanoTime();
+        if (time - sampleTime >= sampleInterval && sampleTimes.compareAndSet(index, sampleTime, time)) {
+            try {
+                availableSizes.set(index, sampler.getAvailableSize(index));
+            } catch (Throwable e) {
+                availableSizes.set(index, 1);//unknown state is not taken as exhausted
+            }
+        }
+        return availableSizes.get(index);
+    }
+
+    @FunctionalInterface
+    interface AvailableSizeSampler {
+        //max size minus borrowed size of a stripe
+        int getAvailableSize(int index) throws Exception;
+    }
+}
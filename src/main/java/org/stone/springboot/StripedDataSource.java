@@ -0,0 +1,372 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeDataSource;
+import org.stone.beecp.BeeDataSourceConfig;
+import org.stone.beecp.BeeMethodExecutionListener;
+import org.stone.beecp.BeeMethodExecutionLog;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * A data source backed by some independent pools(stripes),which reduces contention of borrowing on a hot database.
+ *
+ * <p>A borrower picks a random home stripe,when borrowers are already in home stripe or it is exhausted,it steals from
+ * the first neighbour stripe without borrowers in it and not exhausted(see {@link StripeSelector});if none,it waits on
+ * a stripe without borrowers or on home stripe.
+ *
+ * @author Chris Liao
+ */
+public final class StripedDataSource implements DataSource {
+    private final String dsId;
+    //stripes are swapped together on resize
+    private volatile BeeDataSource[] stripes;
+    private final StripeSelector selector;
+
+    public StripedDataSource(String dsId, BeeDataSource[] stripes) {
+        if (stripes == null || stripes.length < 2)
+            throw new IllegalArgumentException("Striped data source must have two stripes at least");
+        this.dsId = dsId;
+        this.stripes = stripes.clone();
+        this.selector = new StripeSelector(stripes.length, index -> {
+            BeeConnectionPoolMonitorVo vo = this.stripes[index].getPoolMonitorVo();
+            return vo.getMaxSize() - vo.getBorrowedSize();
+        });
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: stripe(4)                                                              //
+    //***************************************************************************************************************//
+    public int getStripeSize() {
+        return stripes.length;
+    }
+
+    BeeDataSource[] getStripes() {
+        return stripes.clone();
+    }
+
+    /**
+     * Splits a total size to stripes,sizes of some front stripes are bigger one than others.
+     *
+     * @param totalSize  total size
+     * @param stripeSize count of stripes
+     * @return size array of stripes,a size is zero when total size is less than count of stripes
+     */
+    public static int[] splitSize(int totalSize, int stripeSize) {
+        int[] sizes = new int[stripeSize];
+        int baseSize = totalSize / stripeSize;
+        int remainder = totalSize % stripeSize;
+        for (int i = 0; i < stripeSize; i++)
+            sizes[i] = baseSize + (i < remainder ? 1 : 0);
+        return sizes;
+    }
+
+    /**
+     * Splits a max size to stripes,each stripe has one at least,so max size can't be less than count of stripes.
+     *
+     * @param maxSize    max size of pool
+     * @param stripeSize count of stripes
+     * @return max size array of stripes
+     * @throws IllegalArgumentException when max size is less than count of stripes
+     */
+    public static int[] splitMaxSize(int maxSize, int stripeSize) {
+        if (maxSize < stripeSize)
+            throw new IllegalArgumentException("Max size(" + maxSize + ") can't be less than count of stripes(" + stripeSize + ")");
+        return splitSize(maxSize, stripeSize);
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: connection(2)                                                          //
+    //***************************************************************************************************************//
+    public Connection getConnection() throws SQLException {
+        int index = selector.select();
+        selector.beginBorrow(index);
+        Connection con = null;
+        try {
+            return con = stripes[index].getConnection();
+        } finally {
+            selector.endBorrow(index, con != null);
+        }
+    }
+
+    public Connection getConnection(String username, String password) throws SQLException {
+        int index = selector.select();
+        selector.beginBorrow(index);
+        Connection con = null;
+        try {
+            return con = stripes[index].getConnection(username, password);
+        } finally {
+            selector.endBorrow(index, con != null);
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: pools maintenance(6)                                                   //
+    //***************************************************************************************************************//
+    public void close() throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.close();
+    }
+
+    public boolean isClosed() throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            if (!stripe.isClosed()) return false;
+        return true;
+    }
+
+    public void restart(boolean force) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.restart(force);
+    }
+
+    //creates new stripes with a total max size and swaps them in,old stripes are returned to be drained by caller
+    BeeDataSource[] swapStripes(int maxActive, BeeMethodExecutionListener listener) throws SQLException {
+        BeeDataSource[] oldStripes = this.stripes;
+        int[] sizes = splitMaxSize(maxActive, oldStripes.length);
+        BeeDataSource[] newStripes = new BeeDataSource[oldStripes.length];
+        try {
+            for (int i = 0; i < oldStripes.length; i++) {
+                BeeDataSourceConfig config = new BeeDataSourceConfig();
+                oldStripes[i].copyTo(config);
+                config.setMaxActive(sizes[i]);
+                if (config.getInitialSize() > sizes[i]) config.setInitialSize(sizes[i]);
+                newStripes[i] = new BeeDataSource(config);
+                newStripes[i].getConnection().close();
+                newStripes[i].enableLogPrint(oldStripes[i].isEnabledLogPrint());
+                newStripes[i].enableMethodExecutionLogCache(oldStripes[i].isEnabledMethodExecutionLogCache());
+                if (listener != null) newStripes[i].setMethodExecutionListener(listener);
+            }
+        } catch (SQLException | RuntimeException e) {
+            for (BeeDataSource stripe : newStripes)
+                if (stripe != null) stripe.close();
+            throw e;
+        }
+        this.stripes = newStripes;
+        selector.resetSamples();
+        return oldStripes;
+    }
+
+    public BeeConnectionPoolMonitorVo getPoolMonitorVo() throws SQLException {
+        BeeDataSource[] stripes = this.stripes;
+        BeeConnectionPoolMonitorVo[] vos = new BeeConnectionPoolMonitorVo[stripes.length];
+        for (int i = 0; i < stripes.length; i++)
+            vos[i] = stripes[i].getPoolMonitorVo();
+        return new StripedPoolMonitorVo(dsId, vos);
+    }
+
+    public BeeConnectionPoolMonitorVo[] getStripeMonitorVos() throws SQLException {
+        BeeDataSource[] stripes = this.stripes;
+        BeeConnectionPoolMonitorVo[] vos = new BeeConnectionPoolMonitorVo[stripes.length];
+        for (int i = 0; i < stripes.length; i++)
+            vos[i] = stripes[i].getPoolMonitorVo();
+        return vos;
+    }
+
+    //***************************************************************************************************************//
+    //                                     4: logs(7)                                                                //
+    //***************************************************************************************************************//
+    public boolean isEnabledLogPrint() throws SQLException {
+        return stripes[0].isEnabledLogPrint();
+    }
+
+    public void enableLogPrint(boolean enable) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.enableLogPrint(enable);
+    }
+
+    public boolean isEnabledMethodExecutionLogCache() throws SQLException {
+        return stripes[0].isEnabledMethodExecutionLogCache();
+    }
+
+    public void enableMethodExecutionLogCache(boolean enable) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.enableMethodExecutionLogCache(enable);
+    }
+
+    public List<BeeMethodExecutionLog> getMethodExecutionLog(int type) throws SQLException {
+        List<BeeMethodExecutionLog> logList = new ArrayList<>();
+        for (BeeDataSource stripe : stripes)
+            logList.addAll(stripe.getMethodExecutionLog(type));
+        return logList;
+    }
+
+    public boolean cancelStatement(String logId) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            if (stripe.cancelStatement(logId)) return true;
+        return false;
+    }
+
+    public void setMethodExecutionListener(BeeMethodExecutionListener listener) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.setMethodExecutionListener(listener);
+    }
+
+    //***************************************************************************************************************//
+    //                                     5: Other implementation methods(7)                                        //
+    //***************************************************************************************************************//
+    public PrintWriter getLogWriter() throws SQLException {
+        return stripes[0].getLogWriter();
+    }
+
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.setLogWriter(out);
+    }
+
+    public int getLoginTimeout() throws SQLException {
+        return stripes[0].getLoginTimeout();
+    }
+
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (BeeDataSource stripe : stripes)
+            stripe.setLoginTimeout(seconds);
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("Not supported");
+    }
+
+    public boolean isWrapperFor(Class<?> clazz) {
+        return clazz != null && clazz.isInstance(this);
+    }
+
+    public <T> T unwrap(Class<T> clazz) throws SQLException {
+        if (clazz != null && clazz.isInstance(this))
+            return clazz.cast(this);
+        else
+            throw new SQLException("Wrapped object was not an instance of " + clazz);
+    }
+
+    //***************************************************************************************************************//
+    //                                     6: aggregated monitor vo                                                  //
+    //***************************************************************************************************************//
+    private static final class StripedPoolMonitorVo implements BeeConnectionPoolMonitorVo {
+        private final String poolName;
+        private final String poolMode;
+        private final boolean closed;
+        private final boolean ready;
+        private final boolean starting;
+        private final boolean enabledLogPrint;
+        private final boolean enabledMethodExecutionLogCache;
+        private int maxSize;
+        private int idleSize;
+        private int borrowedSize;
+        private int creatingSize;
+        private int creatingTimeoutSize;
+        private int semaphoreSize;
+        private int semaphoreAcquiredSize;
+        private int semaphoreWaitingSize;
+        private int transferWaitingSize;
+
+        StripedPoolMonitorVo(String dsId, BeeConnectionPoolMonitorVo[] vos) {
+            boolean closed = true, ready = true, starting = false;
+            for (BeeConnectionPoolMonitorVo vo : vos) {
+                closed &= vo.isClosed();
+                ready &= vo.isReady();
+                starting |= vo.isStarting();
+                maxSize += vo.getMaxSize();
+                idleSize += vo.getIdleSize();
+                borrowedSize += vo.getBorrowedSize();
+                creatingSize += vo.getCreatingSize();
+                creatingTimeoutSize += vo.getCreatingTimeoutSize();
+                semaphoreSize += vo.getSemaphoreSize();
+                semaphoreAcquiredSize += vo.getSemaphoreAcquiredSize();
+                semaphoreWaitingSize += vo.getSemaphoreWaitingSize();
+                transferWaitingSize += vo.getTransferWaitingSize();
+            }
+            this.poolName = dsId + "[striped x" + vos.length + "]";
+            this.poolMode = vos[0].getPoolMode();
+            this.closed = closed;
+            this.ready = ready;
+            this.starting = starting;
+            this.enabledLogPrint = vos[0].isEnabledLogPrint();
+            this.enabledMethodExecutionLogCache = vos[0].isEnabledMethodExecutionLogCache();
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+
+        public String getPoolMode() {
+            return poolMode;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public boolean isReady() {
+            return ready;
+        }
+
+        public boolean isStarting() {
+            return starting;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public int getIdleSize() {
+            return idleSize;
+        }
+
+        public int getBorrowedSize() {
+            return borrowedSize;
+        }
+
+        public int getCreatingSize() {
+            return creatingSize;
+        }
+
+        public int getCreatingTimeoutSize() {
+            return creatingTimeoutSize;
+        }
+
+        public int getSemaphoreSize() {
+            return semaphoreSize;
+        }
+
+        public int getSemaphoreAcquiredSize() {
+            return semaphoreAcquiredSize;
+        }
+
+        public int getSemaphoreWaitingSize() {
+            return semaphoreWaitingSize;
+        }
+
+        public int getTransferWaitingSize() {
+            return transferWaitingSize;
+        }
+
+        public boolean isEnabledLogPrint() {
+            return enabledLogPrint;
+        }
+
+        public boolean isEnabledMethodExecutionLogCache() {
+            return enabledMethodExecutionLogCache;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.stone.beeop.BeeObjectHandle;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
+import org.stone.beeop.BeeObjectSource;
+import org.stone.beeop.BeeObjectSourceConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An object source backed by some independent pools(stripes),borrowers pick stripes in same way as
+ * {@link StripedDataSource}:a random home stripe,and steal from a neighbour without borrowers and not exhausted when
+ * borrowers are already in home stripe or it is exhausted(see {@link StripeSelector}).
+ *
+ * @author Chris Liao
+ */
+public final class StripedObjectSource<K, V> extends BeeObjectSource<K, V> {
+    private final String osId;
+    //stripes are swapped together on resize
+    private volatile BeeObjectSource<K, V>[] stripes;
+    private final StripeSelector selector;
+
+    public StripedObjectSource(String osId, BeeObjectSource<K, V>[] stripes) {
+        if (stripes == null || stripes.length < 2)
+            throw new IllegalArgumentException("Striped object source must have two stripes at least");
+        this.osId = osId;
+        this.stripes = stripes.clone();
+        this.selector = new StripeSelector(stripes.length, index -> {
+            BeeObjectPoolMonitorVo vo = this.stripes[index].getPoolMonitorVo();
+            return vo.getPoolMaxSize() - vo.getBorrowedSize();
+        });
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: stripe and borrow(3)                                                   //
+    //***************************************************************************************************************//
+    public int getStripeSize() {
+        return stripes.length;
+    }
+
+    public BeeObjectHandle<K, V> getObjectHandle() throws Exception {
+        int index = selector.select();
+        selector.beginBorrow(index);
+        BeeObjectHandle<K, V> handle = null;
+        try {
+            return handle = stripes[index].getObjectHandle();
+        } finally {
+            selector.endBorrow(index, handle != null);
+        }
+    }
+
+    public BeeObjectHandle<K, V> getObjectHandle(K key) throws Exception {
+        int index = selector.select();
+        selector.beginBorrow(index);
+        BeeObjectHandle<K, V> handle = null;
+        try {
+            return handle = stripes[index].getObjectHandle(key);
+        } finally {
+            selector.endBorrow(index, handle != null);
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: pools maintenance(6)                                                   //
+    //***************************************************************************************************************//
+    public void restart(boolean forceRecycleBorrowed) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            stripe.restart(forceRecycleBorrowed);
+    }
+
+    //restarts stripes with same configuration,max size and initial size of configuration are split to stripes
+    public void restart(boolean forceRecycleBorrowed, BeeObjectSourceConfig<K, V> config) throws Exception {
+        BeeObjectSource<K, V>[] stripes = this.stripes;
+        int[] maxSizes = StripedDataSource.splitMaxSize(config.getMaxActive(), stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            BeeObjectSourceConfig<K, V> stripeConfig = new BeeObjectSourceConfig<>();
+            config.copyTo(stripeConfig);
+            stripeConfig.setMaxActive(maxSizes[i]);
+            if (stripeConfig.getInitialSize() > maxSizes[i]) stripeConfig.setInitialSize(maxSizes[i]);
+            stripes[i].restart(forceRecycleBorrowed, stripeConfig);
+        }
+    }
+
+    //creates new stripes with a total max size and swaps them in after each one verified by a borrow(warmed up),
+    //old stripes are returned to be drained by caller
+    BeeObjectSource<K, V>[] swapStripes(int maxActive) throws Exception {
+        BeeObjectSource<K, V>[] oldStripes = this.stripes;
+        int[] maxSizes = StripedDataSource.splitMaxSize(maxActive, oldStripes.length);
+        BeeObjectSource<K, V>[] newStripes = oldStripes.clone();
+        Arrays.fill(newStripes, null);
+        try {
+            for (int i = 0; i < oldStripes.length; i++) {
+                BeeObjectSourceConfig<K, V> config = new BeeObjectSourceConfig<>();
+                oldStripes[i].copyTo(config);
+                config.setMaxActive(maxSizes[i]);
+                if (config.getInitialSize() > maxSizes[i]) config.setInitialSize(maxSizes[i]);
+                newStripes[i] = new BeeObjectSource<>(config);
+                newStripes[i].getObjectHandle().close();
+            }
+        } catch (Exception e) {
+            for (BeeObjectSource<K, V> stripe : newStripes)
+                if (stripe != null) stripe.close();
+            throw e;
+        }
+        this.stripes = newStripes;
+        selector.resetSamples();
+        return oldStripes;
+    }
+
+    public boolean isClosed() {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (!stripe.isClosed()) return false;
+        return true;
+    }
+
+    public void close() {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            stripe.close();
+    }
+
+    public BeeObjectPoolMonitorVo getPoolMonitorVo() throws Exception {
+        BeeObjectSource<K, V>[] stripes = this.stripes;
+        BeeObjectPoolMonitorVo[] vos = new BeeObjectPoolMonitorVo[stripes.length];
+        for (int i = 0; i < stripes.length; i++)
+            vos[i] = stripes[i].getPoolMonitorVo();
+        return new StripedObjectPoolMonitorVo(osId, vos);
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: keys maintenance(9)                                                    //
+    //***************************************************************************************************************//
+    public boolean exists(K key) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) return true;
+        return false;
+    }
+
+    public void restart(K key) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) stripe.restart(key);
+    }
+
+    public void restart(K key, boolean forceRecycleBorrowed) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) stripe.restart(key, forceRecycleBorrowed);
+    }
+
+    public void deleteKey(K key) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) stripe.deleteKey(key);
+    }
+
+    public void deleteKey(K key, boolean forceRecycleBorrowed) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) stripe.deleteKey(key, forceRecycleBorrowed);
+    }
+
+    public boolean isEnabledLogPrint(K key) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) return stripe.isEnabledLogPrint(key);
+        return false;
+    }
+
+    public void enableLogPrint(K key, boolean enable) throws Exception {
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) stripe.enableLogPrint(key, enable);
+    }
+
+    public BeeObjectPoolMonitorVo getMonitorVo(K key) throws Exception {
+        List<BeeObjectPoolMonitorVo> voList = new ArrayList<>(stripes.length);
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) voList.add(stripe.getMonitorVo(key));
+        return voList.isEmpty() ? null : new StripedObjectPoolMonitorVo(osId, voList.toArray(new BeeObjectPoolMonitorVo[0]));
+    }
+
+    public List<Thread> interruptWaitingThreads(K key) throws Exception {
+        List<Thread> threadList = new ArrayList<>();
+        for (BeeObjectSource<K, V> stripe : stripes)
+            if (stripe.exists(key)) threadList.addAll(stripe.interruptWaitingThreads(key));
+        return threadList;
+    }
+
+    //***************************************************************************************************************//
+    //                                     4: aggregated monitor vo                                                  //
+    //***************************************************************************************************************//
+    private static final class StripedObjectPoolMonitorVo implements BeeObjectPoolMonitorVo {
+        private final String poolName;
+        private final String poolMode;
+        private final int poolState;
+        private int transferWaitingSize;
+        private int semaphoreWaitingSize;
+        private int creatingTimeoutSize;
+        private int creatingSize;
+        private int borrowedSize;
+        private int poolMaxSize;
+        private int idleSize;
+        private int keySize;
+
+        StripedObjectPoolMonitorVo(String osId, BeeObjectPoolMonitorVo[] vos) {
+            for (BeeObjectPoolMonitorVo vo : vos) {
+                transferWaitingSize += vo.getTransferWaitingSize();
+                semaphoreWaitingSize += vo.getSemaphoreWaitingSize();
+                creatingTimeoutSize += vo.getCreatingTimeoutSize();
+                creatingSize += vo.getCreatingSize();
+                borrowedSize += vo.getBorrowedSize();
+                poolMaxSize += vo.getPoolMaxSize();
+                idleSize += vo.getIdleSize();
+                keySize = Math.max(keySize, vo.getKeySize());
+            }
+            this.poolName = osId + "[striped x" + vos.length + "]";
+            this.poolMode = vos[0].getPoolMode();
+            this.poolState = vos[0].getPoolState();
+        }
+
+        public int getTransferWaitingSize() {
+            return transferWaitingSize;
+        }
+
+        public int getSemaphoreWaitingSize() {
+            return semaphoreWaitingSize;
+        }
+
+        public int getCreatingTimeoutSize() {
+            return creatingTimeoutSize;
+        }
+
+        public int getCreatingSize() {
+            return creatingSize;
+        }
+
+        public int getBorrowedSize() {
+            return borrowedSize;
+        }
+
+        public int getPoolMaxSize() {
+            return poolMaxSize;
+        }
+
+        public int getIdleSize() {
+            return idleSize;
+        }
+
+        public int getKeySize() {
+            return keySize;
+        }
+
+        public int getPoolState() {
+            return poolState;
+        }
+
+        public String getPoolMode() {
+            return poolMode;
+        }
+
+        public String getPoolName() {
+            return poolName;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stone.springboot.exception.DataSourceException;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of tenant data sources,a data source of tenant is created on first access from a template configuration
+ * and tenant overrides,then it is registered to {@link DataSourceBeanManager} with id '[name]_[tenantId]'.
+ *
+ * <p>Count of open pools is bounded,least recently used data sources are evicted(drained and closed) when the bound is
+ * exceeded;concurrent first accesses of a tenant are collapsed into a single creation. Accesses of created data sources
+ * are lock-free.
+ *
+ * <pre>{@code
+ * Map<String, String> template = new HashMap<>();
+ * template.put("jdbcUrl", "jdbc:mysql://localhost:3306/{tenant}");
+ * template.put("username", "root");
+ * template.put("maxActive", "5");
+ * TenantDataSourceRegistry registry = new TenantDataSourceRegistry("tenant", template, tenantId -> null, 200, 30000L);
+ * DataSource ds = registry.getDataSource("t001");
+ * }</pre>
+ *
+ * @author Chris Liao
+ */
+public final class TenantDataSourceRegistry implements AutoCloseable {
+    //placeholder of tenant id in values of template configuration
+    public static final String Tenant_Placeholder = "{tenant}";
+    private static final Pattern Tenant_Id_Pattern = Pattern.compile("[A-Za-z0-9_\\-]+");
+    private static final Logger log = LoggerFactory.getLogger(TenantDataSourceRegistry.class);
+
+    private final String name;
+    private final Map<String, String> template;
+    private final Function<String, Map<String, String>> overrides;
+    private final int maxOpenSize;
+    private final long drainTimeout;
+    private final TenantDataSourceStore dsStore;
+    private final ConcurrentHashMap<String, TenantEntry> entryMap = new ConcurrentHashMap<>();
+    private final AtomicInteger openSize = new AtomicInteger();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a registry of tenant data sources.
+     *
+     * @param name         name of registry,which is prefix of data source ids
+     * @param template     template configuration items of data sources,placeholder '{tenant}' in values is replaced
+     * @param overrides    function to get configuration items of a tenant,which override template items;returns null if no override
+     * @param maxOpenSize  max count of open data sources
+     * @param drainTimeout max wait time of draining evicted data sources(milliseconds)
+     */
+    public TenantDataSourceRegistry(String name, Map<String, String> template, Function<String, Map<String, String>> overrides,
+                                    int maxOpenSize, long drainTimeout) {
+        this(name, template, overrides, maxOpenSize, drainTimeout, new ManagerDataSourceStore(DataSourceBeanManager.getInstance()));
+    }
+
+    //data sources of tenants are created in and removed from given store
+    TenantDataSourceRegistry(String name, Map<String, String> template, Function<String, Map<String, String>> overrides,
+                             int maxOpenSize, long drainTimeout, TenantDataSourceStore dsStore) {
+        if (name == null || name.isBlank()) throw new IllegalArgumentException("Registry name can't be null or blank");
+        if (maxOpenSize <= 0) throw new IllegalArgumentException("Max open size must be greater than zero");
+        if (drainTimeout < 0L) throw new IllegalArgumentException("Drain timeout can't be less than zero");
+
+        this.name = name;
+        this.template = template != null ? new HashMap<>(template) : new HashMap<>();
+        this.overrides = overrides;
+        this.maxOpenSize = maxOpenSize;
+        this.drainTimeout = drainTimeout;
+        this.dsStore = dsStore;
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: tenant data source access(3)                                           //
+    //***************************************************************************************************************//
+
+    /**
+     * Gets data source of a tenant,it is created when not exists.
+     *
+     * @param tenantId id of tenant,only letters,digits,'_' and '-' are allowed
+     * @return data source of tenant
+     * @throws SQLException when fail to create data source
+     */
+    public DataSourceBean getDataSource(String tenantId) throws SQLException {
+        TenantEntry entry = entryMap.get(tenantId);
+        if (entry != null) {
+            hitCount.increment();
+            return entry.await(tenantId);
+        }
+        if (tenantId == null || !Tenant_Id_Pattern.matcher(tenantId).matches())
+            throw new DataSourceException("Invalid tenant id:" + tenantId);
+
+        TenantEntry newEntry = new TenantEntry();
+        entry = entryMap.putIfAbsent(tenantId, newEntry);
+        if (entry != null) {//created by another thread
+            hitCount.increment();
+            return entry.await(tenantId);
+        }
+
+        //single flight of creation
+        missCount.increment();
+        DataSourceBean ds;
+        try {
+            ds = dsStore.add(getDsId(tenantId), getProperties(tenantId));
+        } catch (Throwable e) {
+            entryMap.remove(tenantId, newEntry);
+            newEntry.future.completeExceptionally(e);
+            if (e instanceof SQLException sqlException) throw sqlException;
+            throw new DataSourceException("Failed to create data source of tenant:" + tenantId, e);
+        }
+        newEntry.future.complete(ds);
+        newEntry.lastAccessTime = System.nanoTime();
+        log.info("Created data source of tenant({}) in registry({})", tenantId, name);
+
+        if (openSize.incrementAndGet() > maxOpenSize) evictLeastRecentlyUsed(tenantId);
+        return ds;
+    }
+
+    /**
+     * Evicts data source of a tenant,which is drained and closed.
+     *
+     * @param tenantId id of tenant
+     * @return true that data source existed and evicted
+     */
+    public boolean evict(String tenantId) {
+        TenantEntry entry = entryMap.get(tenantId);
+        return entry != null && entry.future.isDone() && evict(tenantId, entry);
+    }
+
+    //evicts all data sources
+    public void close() {
+        for (Map.Entry<String, TenantEntry> mapEntry : entryMap.entrySet()) {
+            if (mapEntry.getValue().future.isDone()) evict(mapEntry.getKey(), mapEntry.getValue());
+        }
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: statistics(5)                                                          //
+    //***************************************************************************************************************//
+    public String getName() {
+        return name;
+    }
+
+    public int getOpenSize() {
+        return openSize.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: private methods(4)                                                     //
+    //***************************************************************************************************************//
+    private String getDsId(String tenantId) {
+        return name + "_" + tenantId;
+    }
+
+    private Map<String, String> getProperties(String tenantId) {
+        Map<String, String> properties = new HashMap<>(template.size());
+        for (Map.Entry<String, String> entry : template.entrySet()) {
+            String value = entry.getValue();
+            properties.put(entry.getKey(), value != null ? value.replace(Tenant_Placeholder, tenantId) : null);
+        }
+        Map<String, String> tenantProperties = overrides != null ? overrides.apply(tenantId) : null;
+        if (tenantProperties != null) properties.putAll(tenantProperties);
+        return properties;
+    }
+
+    //evicts least recently used data sources until open size within bound,scan on creation only
+    private void evictLeastRecentlyUsed(String createdTenantId) {
+        while (openSize.get() > maxOpenSize) {
+            String lruTenantId = null;
+            TenantEntry lruEntry = null;
+            for (Map.Entry<String, TenantEntry> mapEntry : entryMap.entrySet()) {
+                TenantEntry entry = mapEntry.getValue();
+                if (!entry.future.isDone() || mapEntry.getKey().equals(createdTenantId)) continue;
+                if (lruEntry == null || entry.lastAccessTime - lruEntry.lastAccessTime < 0L) {
+                    lruTenantId = mapEntry.getKey();
+                    lruEntry = entry;
+                }
+            }
+            if (lruEntry == null) return;
+            evict(lruTenantId, lruEntry);
+        }
+    }
+
+    private boolean evict(String tenantId, TenantEntry entry) {
+        if (!entryMap.remove(tenantId, entry)) return false;//evicted by another thread
+        openSize.decrementAndGet();
+        evictionCount.increment();
+        try {
+            dsStore.remove(getDsId(tenantId), drainTimeout);
+            log.info("Evicted data source of tenant({}) from registry({})", tenantId, name);
+        } catch (Throwable e) {
+            log.warn("Failed to remove data source of tenant({}) from registry({})", tenantId, name, e);
+        }
+        return true;
+    }
+
+    //***************************************************************************************************************//
+    //                                     4: entry of tenant and store of data sources                              //
+    //***************************************************************************************************************//
+    interface TenantDataSourceStore {
+
+        DataSourceBean add(String dsId, Map<String, String> properties) throws SQLException;
+
+        void remove(String dsId, long drainTimeout) throws SQLException;
+    }
+
+    //data sources of tenants are registered to manager,so they can be routed and monitored
+    private record ManagerDataSourceStore(DataSourceBeanManager dsManager) implements TenantDataSourceStore {
+        public DataSourceBean add(String dsId, Map<String, String> properties) throws SQLException {
+            return dsManager.addDataSource(dsId, properties);
+        }
+
+        public void remove(String dsId, long drainTimeout) throws SQLException {
+            dsManager.removeDataSource(dsId, drainTimeout);
+        }
+    }
+
+    private static final class TenantEntry {
+        private final CompletableFuture<DataSourceBean> future = new CompletableFuture<>();
+        private volatile long lastAccessTime;
+
+        DataSourceBean await(String tenantId) throws SQLException {
+            try {
+                DataSourceBean ds = future.get();
+                lastAccessTime = System.nanoTime();
+                return ds;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException) throw sqlException;
+                throw new DataSourceException("Failed to create data source of tenant:" + tenantId, cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataSourceException("Interrupted in waiting creation of data source of tenant:" + tenantId, e);
+            }
+        }
+    }
+}
@@ -18,14 +18,35 @@ package org.stone.springboot.annotation;
 import java.lang.annotation.*;
 
 /*
- * DataSourceId annotation to support dynamic source
+ * DataSourceId annotation to support dynamic source,placed on a method or a class(applies to all methods of the class)
  *
  * @author Chris Liao
  * @version 1.0
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
-@Target(ElementType.METHOD)
+@Target({ElementType.METHOD, ElementType.TYPE})
 public @interface BeeDsId {
     String value() default "";
+
+    //read hint to read/write splitting data source,read-only work is routed to read data sources
+    boolean readOnly() default false;
+
+    //shard key expression to sharding data source,an argument(name or '#index') with optional property path,such as 'order.tenantId'
+    String shardKey() default "";
+
+    //borrow at low priority,connections are taken from low priority lane of data source
+    boolean lowPriority() default false;
+
+    //max concurrent calls of annotated methods group(bulkhead),zero means no limit
+    int maxConcurrency() default 0;
+
+    //max count of calls waiting for bulkhead,calls beyond it are rejected
+    int maxQueue() default 0;
+
+    //max wait time in bulkhead queue(milliseconds),zero means waiting until entered
+    long maxWait() default 0L;
+
+    //name of bulkhead shared by annotated methods group,default is class name(class annotated) or method signature
+    String bulkhead() default "";
 }
@@ -18,13 +18,25 @@ package org.stone.springboot.annotation;
 import java.lang.annotation.*;
 
 /*
- * Object SourceId annotation to support dynamic object source
+ * Object SourceId annotation to support dynamic object source,placed on a method or a class(applies to all methods of the class)
  *
  *  @author Chris Liao
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
-@Target(ElementType.METHOD)
+@Target({ElementType.METHOD, ElementType.TYPE})
 public @interface BeeOsId {
     String value() default "";
+
+    //max concurrent calls of annotated methods group(bulkhead),zero means no limit
+    int maxConcurrency() default 0;
+
+    //max count of calls waiting for bulkhead,calls beyond it are rejected
+    int maxQueue() default 0;
+
+    //max wait time in bulkhead queue(milliseconds),zero means waiting until entered
+    long maxWait() default 0L;
+
+    //name of bulkhead shared by annotated methods group,default is class name(class annotated) or method signature
+    String bulkhead() default "";
 }
@@ -22,16 +22,20 @@ import org.stone.beecp.BeeDataSourceConfig;
 import org.stone.beecp.BeeDataSourceConfigException;
 import org.stone.beecp.jta.BeeJtaDataSource;
 import org.stone.springboot.SpringBootEnvironmentUtil;
+import org.stone.springboot.StripedDataSource;
 import org.stone.springboot.exception.DataSourceException;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.sql.DataSource;
+import javax.sql.XADataSource;
 
 import static org.stone.beecp.pool.ConnectionPoolStatics.*;
+import static org.stone.springboot.Constants.Config_Stripes;
 import static org.stone.springboot.Constants.Config_ThreadLocal_Enable;
 import static org.stone.springboot.Constants.Config_Virtual_Thread;
+import static org.stone.tools.CommonUtil.isBlank;
 import static org.stone.tools.CommonUtil.isNotBlank;
 
 /*
@@ -88,13 +92,26 @@ public class SpringBeeDataSourceBuilder implements SpringDataSourceBuilder {
         }
     }
 
-    public DataSource create(String dsPrefix, String dsId, Environment environment) throws DataSourceException {
-        //1:read spring configuration and inject to datasource's config object
+    private BeeDataSourceConfig createConfig(String dsPrefix, String dsId, Environment environment) {
         BeeDataSourceConfig config = new BeeDataSourceConfig();
         SpringBootEnvironmentUtil.setConfigPropertiesValue(config, dsPrefix, dsId, environment);
         setConnectPropertiesConfig(config, dsPrefix, environment);
         setSqlExceptionFatalConfig(config, dsPrefix, environment);
         setConfigPrintExclusionList(config, dsPrefix, environment);
+        return config;
+    }
+
+    private void setThreadLocalConfig(BeeDataSource ds, String dsPrefix, Environment environment) {
+        String threadLocalEnable = SpringBootEnvironmentUtil.getConfigValue(dsPrefix, Config_ThreadLocal_Enable, environment);
+        if (threadLocalEnable == null) {
+            boolean enableVirtualThread = Boolean.parseBoolean(environment.getProperty(Config_Virtual_Thread, "false"));
+            ds.setUseThreadLocal(!enableVirtualThread);
+        }
+    }
+
+    public DataSource create(String dsPrefix, String dsId, Environment environment) throws DataSourceException {
+        //1:read spring configuration and inject to datasource's config object
+        BeeDataSourceConfig config = createConfig(dsPrefix, dsId, environment);
 
         //2:try to lookup TransactionManager by jndi
         TransactionManager tm = null;
@@ -108,17 +125,76 @@ public class SpringBeeDataSourceBuilder implements SpringDataSourceBuilder {
             }
         }
 
-        //3:create dataSource instance
+        //3:create dataSource instance,a striped data source when stripes configured
+        int stripes = getStripes(dsPrefix, dsId, environment);
+        if (stripes > 1) {
+            if (tm != null) throw new DataSourceException("DataSource(" + dsId + ")-Striped mode not supported with transaction manager");
+            return createStripedPool(dsPrefix, dsId, stripes, environment);
+        }
         BeeDataSource ds = new BeeDataSource(config);
 
         //4:disable threadLocal if exists virtual thread config item
-        String threadLocalEnable = SpringBootEnvironmentUtil.getConfigValue(dsPrefix, Config_ThreadLocal_Enable, environment);
-        if (threadLocalEnable == null) {
-            boolean enableVirtualThread = Boolean.parseBoolean(environment.getProperty(Config_Virtual_Thread, "false"));
-            ds.setUseThreadLocal(!enableVirtualThread);
-        }
+        setThreadLocalConfig(ds, dsPrefix, environment);
 
         //5:create jta dataSource or not
         return (tm != null) ? new BeeJtaDataSource(ds, tm) : ds;
     }
+
+    private int getStripes(String dsPrefix, String dsId, Environment environment) {
+        String stripesText = SpringBootEnvironmentUtil.getConfigValue(dsPrefix, Config_Stripes, environment);
+        if (isBlank(stripesText)) return 1;
+        try {
+            return Integer.parseInt(stripesText.trim());
+        } catch (NumberFormatException e) {
+            throw new DataSourceException("DataSource(" + dsId + ")-Invalid stripes:" + stripesText, e);
+        }
+    }
+
+    //creates independent pools from same configuration,max size and initial size are split to pools
+    private StripedDataSource createStripedPool(String dsPrefix, String dsId, int stripes, Environment environment) {
+        BeeDataSource[] pools = new BeeDataSource[stripes];
+        try {
+            for (int i = 0; i < stripes; i++) {
+                BeeDataSourceConfig config = createConfig(dsPrefix, dsId, environment);
+                config.setMaxActive(StripedDataSource.splitMaxSize(config.getMaxActive(), stripes)[i]);
+                int initialSize = config.getInitialSize();
+                config.setInitialSize(initialSize == 0 ? 0 : Math.min(config.getMaxActive(), StripedDataSource.splitSize(initialSize, stripes)[i]));
+                config.setPoolName((isBlank(config.getPoolName()) ? dsId : config.getPoolName()) + "-" + i);
+                pools[i] = new BeeDataSource(config);
+                setThreadLocalConfig(pools[i], dsPrefix, environment);
+            }
+            return new StripedDataSource(dsId, pools);
+        } catch (Throwable e) {
+            for (BeeDataSource pool : pools) {
+                try {
+                    if (pool != null) pool.close();
+                } catch (Throwable ee) {
+                    //do nothing
+                }
+            }
+            if (e instanceof DataSourceException dsException) throw dsException;
+            throw new DataSourceException("DataSource(" + dsId + ")-Failed to create striped pools", e);
+        }
+    }
+
+    /**
+     * Create a bee pool on a XA data source,physical XA connections are reused by the pool,
+     * logical connections are handed out from them and reclaimed on close.
+     *
+     * @param dsPrefix    configured prefix name
+     * @param dsId        configured data source id
+     * @param xaDs        XA data source as connection factory of pool
+     * @param environment SpringBoot environment
+     * @return a pooled data source
+     * @throws DataSourceException when fail to create
+     */
+    public BeeDataSource createXaPool(String dsPrefix, String dsId, XADataSource xaDs, Environment environment) throws DataSourceException {
+        BeeDataSourceConfig config = createConfig(dsPrefix, dsId, environment);
+        config.setConnectionFactory(xaDs);
+        if (isBlank(config.getPoolName())) config.setPoolName(dsId);
+
+        BeeDataSource ds = new BeeDataSource(config);
+        setThreadLocalConfig(ds, dsPrefix, environment);
+        return ds;
+    }
 }
\ No newline at end of file
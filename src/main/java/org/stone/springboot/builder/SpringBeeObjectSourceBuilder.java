@@ -20,12 +20,16 @@ import org.stone.beeop.BeeObjectSource;
 import org.stone.beeop.BeeObjectSourceConfig;
 import org.stone.springboot.ObjectSourceBeanManager;
 import org.stone.springboot.SpringBootEnvironmentUtil;
+import org.stone.springboot.StripedDataSource;
+import org.stone.springboot.StripedObjectSource;
 import org.stone.springboot.exception.ObjectSourceException;
 
 import static org.stone.beecp.pool.ConnectionPoolStatics.CONFIG_EXCLUSION_LIST_OF_PRINT;
 import static org.stone.beeop.pool.ObjectPoolStatics.*;
+import static org.stone.springboot.Constants.Config_Stripes;
 import static org.stone.springboot.Constants.Config_ThreadLocal_Enable;
 import static org.stone.springboot.Constants.Config_Virtual_Thread;
+import static org.stone.tools.CommonUtil.isBlank;
 import static org.stone.tools.CommonUtil.isNotBlank;
 
 /*
@@ -57,6 +61,42 @@ public class SpringBeeObjectSourceBuilder<K, V> {
     }
 
     public BeeObjectSource<K, V> createDataSource(String osPrefix, String osId, Environment environment) throws ObjectSourceException {
+        String stripesText = SpringBootEnvironmentUtil.getConfigValue(osPrefix, Config_Stripes, environment);
+        int stripes;
+        try {
+            stripes = isBlank(stripesText) ? 1 : Integer.parseInt(stripesText.trim());
+        } catch (NumberFormatException e) {
+            throw new ObjectSourceException("ObjectSource(" + osId + ")-Invalid stripes:" + stripesText, e);
+        }
+        if (stripes > 1) return createStripedPool(osPrefix, osId, stripes, environment);
+
+        return new BeeObjectSource<>(createConfig(osPrefix, environment));
+    }
+
+    //creates independent pools from same configuration,max size and initial size are split to pools
+    @SuppressWarnings("unchecked")
+    private StripedObjectSource<K, V> createStripedPool(String osPrefix, String osId, int stripes, Environment environment) {
+        BeeObjectSource<K, V>[] pools = new BeeObjectSource[stripes];
+        try {
+            for (int i = 0; i < stripes; i++) {
+                BeeObjectSourceConfig<K, V> config = createConfig(osPrefix, environment);
+                int initialSize = config.getInitialSize();
+                config.setMaxActive(StripedDataSource.splitMaxSize(config.getMaxActive(), stripes)[i]);
+                config.setInitialSize(initialSize == 0 ? 0 : Math.min(config.getMaxActive(), StripedDataSource.splitSize(initialSize, stripes)[i]));
+                config.setPoolName((isBlank(config.getPoolName()) ? osId : config.getPoolName()) + "-" + i);
+                pools[i] = new BeeObjectSource<>(config);
+            }
+            return new StripedObjectSource<>(osId, pools);
+        } catch (Throwable e) {
+            for (BeeObjectSource<K, V> pool : pools) {
+                if (pool != null) pool.close();
+            }
+            if (e instanceof ObjectSourceException osException) throw osException;
+            throw new ObjectSourceException("ObjectSource(" + osId + ")-Failed to create striped pools", e);
+        }
+    }
+
+    private BeeObjectSourceConfig<K, V> createConfig(String osPrefix, Environment environment) {
         BeeObjectSourceConfig<K, V> config = new BeeObjectSourceConfig<>();
         this.setFactoryPropertiesConfig(config, osPrefix, environment);
         setFactoryPropertiesConfig(config, osPrefix, environment);
@@ -67,7 +107,6 @@ public class SpringBeeObjectSourceBuilder<K, V> {
             boolean enableVirtualThread = Boolean.parseBoolean(environment.getProperty(Config_Virtual_Thread, "false"));
             config.setUseThreadLocal(!enableVirtualThread);
         }
-
-        return new BeeObjectSource<>(config);
+        return config;
     }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.DataSourceBean;
+
+import java.util.Arrays;
+
+/**
+ * An immutable consistent hash ring of data sources,each data source is placed on ring with a number of virtual nodes.
+ * Node hashes are kept in a sorted int array and owners in a parallel array,so a lookup is a binary search without
+ * allocation;adding a shard creates a new ring,where only keys falling on new nodes are remapped.
+ *
+ * @author Chris Liao
+ */
+public final class ConsistentHashRing {
+    private final int virtualNodes;
+    private final DataSourceBean[] shards;
+    private final int[] nodeHashes;
+    private final DataSourceBean[] nodeOwners;
+
+    public ConsistentHashRing(DataSourceBean[] shards, int virtualNodes) {
+        if (shards == null || shards.length == 0) throw new IllegalArgumentException("Shard data sources can't be null or empty");
+        if (virtualNodes <= 0) throw new IllegalArgumentException("Virtual node size must be greater than zero");
+
+        this.virtualNodes = virtualNodes;
+        this.shards = shards.clone();
+
+        //1: compute node positions(sorted by hash,then by shard id to keep order stable on collision)
+        int nodeSize = shards.length * virtualNodes;
+        long[] nodes = new long[nodeSize];
+        for (int i = 0, pos = 0; i < shards.length; i++) {
+            String dsId = shards[i].getDsId();
+            for (int n = 0; n < virtualNodes; n++, pos++) {
+                int nodeHash = mix((dsId + "#" + n).hashCode());
+                nodes[pos] = ((long) nodeHash << 32) | i;
+            }
+        }
+        Arrays.sort(nodes);
+
+        //2: split to parallel arrays
+        this.nodeHashes = new int[nodeSize];
+        this.nodeOwners = new DataSourceBean[nodeSize];
+        for (int i = 0; i < nodeSize; i++) {
+            nodeHashes[i] = (int) (nodes[i] >> 32);
+            nodeOwners[i] = this.shards[(int) nodes[i]];
+        }
+    }
+
+    //murmur3 finalizer,spreads hash code of key over the ring
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Gets the data source owning a shard key,which is the first node clockwise from hash of key.
+     *
+     * @param shardKey shard key
+     * @return owner data source
+     */
+    public DataSourceBean get(Object shardKey) {
+        int keyHash = mix(shardKey.hashCode());
+        int index = Arrays.binarySearch(nodeHashes, keyHash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == nodeHashes.length) index = 0;//wrap around
+        } else {
+            while (index > 0 && nodeHashes[index - 1] == keyHash) index--;//first node of equal hashes
+        }
+        return nodeOwners[index];
+    }
+
+    /**
+     * Creates a new ring with an added shard.
+     *
+     * @param ds shard data source to be added
+     * @return new ring
+     */
+    public ConsistentHashRing add(DataSourceBean ds) {
+        for (DataSourceBean shard : shards) {
+            if (shard.getDsId().equals(ds.getDsId()))
+                throw new IllegalArgumentException("Shard data source '" + ds.getDsId() + "' already exists in ring");
+        }
+        DataSourceBean[] newShards = Arrays.copyOf(shards, shards.length + 1);
+        newShards[shards.length] = ds;
+        return new ConsistentHashRing(newShards, virtualNodes);
+    }
+
+    /**
+     * Creates a new ring without a shard.
+     *
+     * @param dsId id of shard data source to be removed
+     * @return new ring
+     */
+    public ConsistentHashRing remove(String dsId) {
+        if (shards.length == 1) throw new IllegalArgumentException("Last shard data source can't be removed from ring");
+        DataSourceBean[] newShards = new DataSourceBean[shards.length - 1];
+        int pos = 0;
+        for (DataSourceBean shard : shards) {
+            if (shard.getDsId().equals(dsId)) continue;
+            if (pos == newShards.length)
+                throw new IllegalArgumentException("Shard data source '" + dsId + "' not found in ring");
+            newShards[pos++] = shard;
+        }
+        return new ConsistentHashRing(newShards, virtualNodes);
+    }
+
+    public DataSourceBean[] getShards() {
+        return shards.clone();
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.Bulkhead;
+import org.stone.springboot.DataSourceBean;
+
+/**
+ * A resolved route of data source,which is bound to routing context by {@link DynamicAspect}.
+ *
+ * @author Chris Liao
+ */
+public final class DataSourceRoute {
+    private final DataSourceBean ds;
+    private final boolean readOnly;
+    private final int version;
+    private final ShardKeyExtractor shardKeyExtractor;
+    private final Object shardKey;
+    private final Bulkhead bulkhead;
+    private final boolean lowPriority;
+
+    public DataSourceRoute(DataSourceBean ds, boolean readOnly, int version) {
+        this(ds, readOnly, version, null, null, null, false);
+    }
+
+    DataSourceRoute(DataSourceBean ds, boolean readOnly, int version, ShardKeyExtractor shardKeyExtractor, Object shardKey,
+                    Bulkhead bulkhead, boolean lowPriority) {
+        this.ds = ds;
+        this.readOnly = readOnly;
+        this.version = version;
+        this.shardKeyExtractor = shardKeyExtractor;
+        this.shardKey = shardKey;
+        this.bulkhead = bulkhead;
+        this.lowPriority = lowPriority;
+    }
+
+    public DataSourceBean getDs() {
+        return ds;
+    }
+
+    //read hint to read/write data source
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    //version of data source manager at resolving
+    public int getVersion() {
+        return version;
+    }
+
+    //shard key to sharding data source,null if not declared
+    public Object getShardKey() {
+        return shardKey;
+    }
+
+    ShardKeyExtractor getShardKeyExtractor() {
+        return shardKeyExtractor;
+    }
+
+    //creates a route of a call with shard key extracted from arguments
+    DataSourceRoute bindShardKey(Object[] args) {
+        return new DataSourceRoute(ds, readOnly, version, shardKeyExtractor, shardKeyExtractor.extract(args), bulkhead, lowPriority);
+    }
+
+    //borrow priority of annotated methods
+    public boolean isLowPriority() {
+        return lowPriority;
+    }
+
+    //bulkhead of annotated methods group,null if not declared
+    Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
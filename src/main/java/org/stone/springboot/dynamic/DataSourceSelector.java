@@ -0,0 +1,35 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.DataSourceBean;
+
+/**
+ * Selector to choose a data source from a group of data sources.
+ *
+ * @author Chris Liao
+ */
+public interface DataSourceSelector {
+
+    /**
+     * Selects a data source from group.
+     *
+     * @param group is an array of data sources(not empty)
+     * @return selected data source
+     */
+    DataSourceBean select(DataSourceBean[] group);
+
+}
@@ -19,6 +19,10 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.stone.springboot.BorrowPriority;
+import org.stone.springboot.Bulkhead;
 import org.stone.springboot.DataSourceBean;
 import org.stone.springboot.DataSourceBeanManager;
 import org.stone.springboot.ObjectSourceBean;
@@ -28,75 +32,183 @@ import org.stone.springboot.annotation.BeeOsId;
 import org.stone.springboot.exception.DataSourceException;
 import org.stone.springboot.exception.ObjectSourceException;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static org.stone.tools.CommonUtil.isBlank;
-import static org.stone.tools.CommonUtil.isNotBlank;
 
 /*
- * dynamic Aspect
+ * dynamic Aspect,advised methods are resolved once to routing targets,which are cached by target class and method;
+ * cached targets are re-resolved after sources changed in managers(added,restarted,removed).
  *
  * @author Chris Liao
  */
 
 @Aspect
 public final class DynamicAspect<K, V> {
+    private final DataSourceBeanManager dsManager = DataSourceBeanManager.getInstance();
+    private final ObjectSourceBeanManager<K, V> osManager = ObjectSourceBeanManager.getInstance();
+    private final ClassValue<Map<Method, DataSourceRoute>> dsRouteCache = new ClassValue<>() {
+        protected Map<Method, DataSourceRoute> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private final ClassValue<Map<Method, ObjectSourceRoute<K, V>>> osRouteCache = new ClassValue<>() {
+        protected Map<Method, ObjectSourceRoute<K, V>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     private String primaryDsId;
-    private ThreadLocal<DataSourceBean> dsLocal;
+    private RoutingContext<DataSourceRoute> dsContext;
 
     private String primaryOsId;
-    private ThreadLocal<ObjectSourceBean<K, V>> osLocal;
+    private RoutingContext<ObjectSourceRoute<K, V>> osContext;
+
+    private static Class<?> getTargetClass(ProceedingJoinPoint joinPoint, Method method) {
+        Object target = joinPoint.getTarget();
+        return target != null ? AopUtils.getTargetClass(target) : method.getDeclaringClass();
+    }
+
+    //bulkhead is shared by methods of an annotated class,or by methods with same configured name;
+    //default name of a method contains its parameter types,so overloaded methods have their own bulkheads
+    private static String getBulkheadName(String name, boolean onClass, Class<?> targetClass, Method targetMethod) {
+        if (!isBlank(name)) return name;
+        if (onClass) return targetClass.getName();
+
+        StringBuilder builder = new StringBuilder(targetClass.getName()).append('.').append(targetMethod.getName()).append('(');
+        Class<?>[] parameterTypes = targetMethod.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) builder.append(',');
+            builder.append(parameterTypes[i].getTypeName());
+        }
+        return builder.append(')').toString();
+    }
 
     //***************************************************************************************************************//
     //                                     1: properties set(3)                                                      //
     //***************************************************************************************************************/
-    public void setDynDsThreadLocal(String primaryDsId, ThreadLocal<DataSourceBean> dsLocal) {
-        this.dsLocal = dsLocal;
+    public void setDynDsRoutingContext(String primaryDsId, RoutingContext<DataSourceRoute> dsContext) {
+        this.dsContext = dsContext;
         this.primaryDsId = primaryDsId;
     }
 
-    public void setDynOsThreadLocal(String primaryOsId, ThreadLocal<ObjectSourceBean<K, V>> osLocal) {
-        this.osLocal = osLocal;
+    public void setDynOsRoutingContext(String primaryOsId, RoutingContext<ObjectSourceRoute<K, V>> osContext) {
+        this.osContext = osContext;
         this.primaryOsId = primaryOsId;
     }
 
     //***************************************************************************************************************//
     //                                     2: dataSource Aspect                                                      //
     //***************************************************************************************************************/
-    @Around("@annotation(org.stone.springboot.annotation.BeeDsId)")
+    @Around("@annotation(org.stone.springboot.annotation.BeeDsId) || @within(org.stone.springboot.annotation.BeeDsId)")
     public Object setDataSourceId(ProceedingJoinPoint joinPoint) throws Throwable {
-        if (dsLocal == null) throw new DataSourceException("Dynamic datasource not be enable");
+        if (dsContext == null) throw new DataSourceException("Dynamic datasource not be enable");
         if (isBlank(primaryDsId)) throw new DataSourceException("Dynamic primary datasource id not set");
 
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        BeeDsId annotation = methodSignature.getMethod().getAnnotation(BeeDsId.class);
-        String dsId = annotation.value();
+        DataSourceRoute resolvedRoute = getDataSourceRoute(joinPoint);
+        DataSourceRoute route = resolvedRoute.getShardKeyExtractor() != null ? resolvedRoute.bindShardKey(joinPoint.getArgs()) : resolvedRoute;
+        if (route.isLowPriority()) return BorrowPriority.callAtLowPriority(() -> callDataSourceRoute(route, joinPoint));
+        return callDataSourceRoute(route, joinPoint);
+    }
 
+    private Object callDataSourceRoute(DataSourceRoute route, ProceedingJoinPoint joinPoint) throws Throwable {
+        Bulkhead bulkhead = route.getBulkhead();
+        if (bulkhead == null) return dsContext.call(route, joinPoint::proceed);
+        //nested call of a group already entered by outer call,permit is held by outer call
+        DataSourceRoute outerRoute = dsContext.get();
+        if (outerRoute != null && outerRoute.getBulkhead() == bulkhead) return dsContext.call(route, joinPoint::proceed);
+
+        bulkhead.enter();
         try {
-            if (isBlank(dsId)) dsId = primaryDsId;
-            dsLocal.set(DataSourceBeanManager.getInstance().getDataSource(dsId));
-            return joinPoint.proceed();
+            return dsContext.call(route, joinPoint::proceed);
         } finally {
-            if (isNotBlank(dsId)) dsLocal.remove();
+            bulkhead.exit();
+        }
+    }
+
+    private DataSourceRoute getDataSourceRoute(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = getTargetClass(joinPoint, method);
+        Map<Method, DataSourceRoute> routeMap = dsRouteCache.get(targetClass);
+
+        int version = dsManager.getVersion();
+        DataSourceRoute route = routeMap.get(method);
+        if (route == null || route.getVersion() != version) {
+            Method targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+            BeeDsId annotation = AnnotationUtils.findAnnotation(targetMethod, BeeDsId.class);
+            boolean onClass = annotation == null;
+            if (onClass) annotation = AnnotationUtils.findAnnotation(targetClass, BeeDsId.class);
+
+            String dsId = annotation != null ? annotation.value() : null;
+            if (isBlank(dsId)) dsId = primaryDsId;
+            DataSourceBean ds = dsManager.getDataSource(dsId);
+            if (ds == null) throw new DataSourceException("Data source not found with id:" + dsId);
+
+            String shardKey = annotation != null ? annotation.shardKey() : null;
+            ShardKeyExtractor shardKeyExtractor = isBlank(shardKey) ? null : new ShardKeyExtractor(targetMethod, shardKey);
+            Bulkhead bulkhead = null;
+            if (annotation != null && annotation.maxConcurrency() > 0) {
+                String name = getBulkheadName(annotation.bulkhead(), onClass, targetClass, targetMethod);
+                bulkhead = ds.getOrCreateBulkhead(name, annotation.maxConcurrency(), annotation.maxQueue(), annotation.maxWait());
+            }
+            route = new DataSourceRoute(ds, annotation != null && annotation.readOnly(), version, shardKeyExtractor, null,
+                    bulkhead, annotation != null && annotation.lowPriority());
+            routeMap.put(method, route);
         }
+        return route;
     }
 
     //***************************************************************************************************************//
     //                                     3: objectSource Aspect                                                    //
     //***************************************************************************************************************/
-    @Around("@annotation(org.stone.springboot.annotation.BeeOsId)")
+    @Around("@annotation(org.stone.springboot.annotation.BeeOsId) || @within(org.stone.springboot.annotation.BeeOsId)")
     public Object setObjectSourceId(ProceedingJoinPoint joinPoint) throws Throwable {
-        if (osLocal == null) throw new ObjectSourceException("Dynamic object-source not be enable");
+        if (osContext == null) throw new ObjectSourceException("Dynamic object-source not be enable");
         if (isBlank(primaryOsId)) throw new ObjectSourceException("Dynamic primary object-source id not set");
 
-        MethodSignature methodSignature = (MethodSignature) joinPoint.getSignature();
-        BeeOsId annotation = methodSignature.getMethod().getAnnotation(BeeOsId.class);
-        String osId = annotation.value();
+        ObjectSourceRoute<K, V> route = getObjectSourceRoute(joinPoint);
+        Bulkhead bulkhead = route.getBulkhead();
+        if (bulkhead == null) return osContext.call(route, joinPoint::proceed);
+        //nested call of a group already entered by outer call,permit is held by outer call
+        ObjectSourceRoute<K, V> outerRoute = osContext.get();
+        if (outerRoute != null && outerRoute.getBulkhead() == bulkhead) return osContext.call(route, joinPoint::proceed);
 
+        bulkhead.enter();
         try {
-            if (isBlank(osId)) osId = primaryOsId;
-            osLocal.set(ObjectSourceBeanManager.getInstance().getObjectSource(osId));
-            return joinPoint.proceed();
+            return osContext.call(route, joinPoint::proceed);
         } finally {
-            if (isNotBlank(osId)) osLocal.remove();
+            bulkhead.exit();
+        }
+    }
+
+    private ObjectSourceRoute<K, V> getObjectSourceRoute(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = getTargetClass(joinPoint, method);
+        Map<Method, ObjectSourceRoute<K, V>> routeMap = osRouteCache.get(targetClass);
+
+        int version = osManager.getVersion();
+        ObjectSourceRoute<K, V> route = routeMap.get(method);
+        if (route == null || route.getVersion() != version) {
+            Method targetMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+            BeeOsId annotation = AnnotationUtils.findAnnotation(targetMethod, BeeOsId.class);
+            boolean onClass = annotation == null;
+            if (onClass) annotation = AnnotationUtils.findAnnotation(targetClass, BeeOsId.class);
+
+            String osId = annotation != null ? annotation.value() : null;
+            if (isBlank(osId)) osId = primaryOsId;
+            ObjectSourceBean<K, V> os = osManager.getObjectSource(osId);
+            if (os == null) throw new ObjectSourceException("Object source not found with id:" + osId);
+
+            Bulkhead bulkhead = null;
+            if (annotation != null && annotation.maxConcurrency() > 0) {
+                String name = getBulkheadName(annotation.bulkhead(), onClass, targetClass, targetMethod);
+                bulkhead = os.getOrCreateBulkhead(name, annotation.maxConcurrency(), annotation.maxQueue(), annotation.maxWait());
+            }
+            route = new ObjectSourceRoute<>(os, version, bulkhead);
+            routeMap.put(method, route);
         }
+        return route;
     }
 }
@@ -25,16 +25,19 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.util.logging.Logger;
 
 /**
- * Combine DataSource for Multi-DataSource
+ * Combine DataSource for Multi-DataSource,routes to data source set by {@link DynamicAspect},
+ * the primary data source is used when no data source set on current thread.
  *
  * @author Chris Liao
  */
 public final class DynamicDataSource implements DataSource {
-    private final ThreadLocal<DataSourceBean> dsLocal;
+    private final DataSourceBean primaryDs;
+    private final RoutingContext<DataSourceRoute> dsContext;
     private boolean isClosed = false;
 
-    public DynamicDataSource(ThreadLocal<DataSourceBean> dsLocal) {
-        this.dsLocal = dsLocal;
+    public DynamicDataSource(DataSourceBean primaryDs, RoutingContext<DataSourceRoute> dsContext) {
+        this.primaryDs = primaryDs;
+        this.dsContext = dsContext;
     }
 
     public boolean isClosed() {
@@ -55,7 +58,8 @@ public final class DynamicDataSource implements DataSource {
 
     private DataSourceBean getCurrentDataSource() throws SQLException {
         if (isClosed) throw new SQLException("DataSource has closed");
-        DataSourceBean ds = dsLocal.get();
+        DataSourceRoute route = dsContext.get();
+        DataSourceBean ds = route != null ? route.getDs() : primaryDs;
         if (ds == null) throw new SQLException("DataSource not exists");
         return ds;
     }
@@ -24,12 +24,12 @@ import org.stone.springboot.ObjectSourceBean;
  * @author Chris Liao
  */
 public final class DynamicObjectSource<K, V> extends ObjectSourceBean<K, V> {
-    private final ThreadLocal<ObjectSourceBean<K, V>> osLocal;
+    private final RoutingContext<ObjectSourceRoute<K, V>> osContext;
     private boolean isClosed = false;
 
-    public DynamicObjectSource(String osId, ThreadLocal<ObjectSourceBean<K, V>> osLocal) {
-        super(osId, false, null);
-        this.osLocal = osLocal;
+    public DynamicObjectSource(String osId, RoutingContext<ObjectSourceRoute<K, V>> osContext) {
+        super(osId);
+        this.osContext = osContext;
     }
 
     public boolean isClosed() {
@@ -46,8 +46,8 @@ public final class DynamicObjectSource<K, V> extends ObjectSourceBean<K, V> {
 
     private ObjectSourceBean<K, V> getCurrentObjectSource() throws Exception {
         if (isClosed) throw new Exception("ObjectSource has closed");
-        ObjectSourceBean<K, V> os = osLocal.get();
-        if (os == null) throw new Exception("ObjectSource not exists");
-        return os;
+        ObjectSourceRoute<K, V> route = osContext.get();
+        if (route == null) throw new Exception("ObjectSource not exists");
+        return route.getOs();
     }
 }
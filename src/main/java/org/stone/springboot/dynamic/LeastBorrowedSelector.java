@@ -0,0 +1,63 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.springboot.DataSourceBean;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects a data source with least borrowed connections and waiters,which are read from live pool monitor;
+ * data sources without pool monitor are treated as idle. Scan starts at a random offset and ties are broken at
+ * random,so equally loaded data sources share borrowers.
+ *
+ * @author Chris Liao
+ */
+public final class LeastBorrowedSelector implements DataSourceSelector {
+
+    private static int getLoad(DataSourceBean ds) {
+        try {
+            BeeConnectionPoolMonitorVo vo = ds.getRawPoolMonitorVo();
+            return vo != null ? vo.getBorrowedSize() + vo.getSemaphoreWaitingSize() : 0;
+        } catch (Throwable e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    public DataSourceBean select(DataSourceBean[] group) {
+        int size = group.length;
+        if (size == 1) return group[0];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int offset = random.nextInt(size);
+        DataSourceBean selected = null;
+        int minLoad = Integer.MAX_VALUE;
+        int tieCount = 0;
+        for (int i = 0; i < size; i++) {
+            DataSourceBean ds = group[(offset + i) % size];
+            int load = getLoad(ds);
+            if (selected == null || load < minLoad) {
+                selected = ds;
+                minLoad = load;
+                tieCount = 1;
+            } else if (load == minLoad && random.nextInt(++tieCount) == 0) {//reservoir sampling of ties
+                selected = ds;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.DataSourceBean;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power of two choices selector,two data sources are picked at random and the one with lower cost is selected;
+ * cost is moving average of connection acquisition time,which is amplified by moving average of error rate.
+ * Averages decay toward zero while a data source is not borrowed from,so a losing data source is tried again later.
+ *
+ * @author Chris Liao
+ */
+public final class LeastLatencySelector implements DataSourceSelector {
+    //cost multiplier of a data source whose acquisitions all failed
+    private static final double Error_Penalty = 10D;
+
+    private static double getCost(DataSourceBean ds) {
+        return ds.getAcquisitionLatencyEwma() * (1D + Error_Penalty * ds.getAcquisitionErrorRateEwma());
+    }
+
+    public DataSourceBean select(DataSourceBean[] group) {
+        int size = group.length;
+        if (size == 1) return group[0];
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) second++;
+
+        DataSourceBean ds1 = group[first];
+        DataSourceBean ds2 = group[second];
+        return getCost(ds1) <= getCost(ds2) ? ds1 : ds2;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.Bulkhead;
+import org.stone.springboot.ObjectSourceBean;
+
+/**
+ * A resolved route of object source,which is bound to routing context by {@link DynamicAspect}.
+ *
+ * @author Chris Liao
+ */
+public final class ObjectSourceRoute<K, V> {
+    private final ObjectSourceBean<K, V> os;
+    private final int version;
+    private final Bulkhead bulkhead;
+
+    ObjectSourceRoute(ObjectSourceBean<K, V> os, int version, Bulkhead bulkhead) {
+        this.os = os;
+        this.version = version;
+        this.bulkhead = bulkhead;
+    }
+
+    public ObjectSourceBean<K, V> getOs() {
+        return os;
+    }
+
+    //version of object source manager at resolving
+    public int getVersion() {
+        return version;
+    }
+
+    //bulkhead of annotated methods group,null if not declared
+    Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.DataSourceBean;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * Read/write splitting data source,which groups a write data source and some read data sources(replicas).
+ * Writes and transactions go to write data source,read-only work is balanced across read data sources by a selector.
+ *
+ * <p>Read-only work is recognized by a read hint({@code @BeeDsId(readOnly=true)}) or a read-only spring transaction,
+ * for {@code DataSourceTransactionManager},the connection is obtained before read-only flag of transaction is set,
+ * so wrap this data source with a {@code LazyConnectionDataSourceProxy} in that case.
+ *
+ * @author Chris Liao
+ */
+public final class ReadWriteDataSource implements DataSource {
+    private final String rwDsId;
+    private final DataSourceBean writeDs;
+    private final DataSourceBean[] readDs;
+    private final DataSourceSelector selector;
+    private final RoutingContext<DataSourceRoute> dsContext;
+
+    public ReadWriteDataSource(String rwDsId, DataSourceBean writeDs, DataSourceBean[] readDs, DataSourceSelector selector,
+                               RoutingContext<DataSourceRoute> dsContext) {
+        if (writeDs == null) throw new IllegalArgumentException("Write data source can't be null");
+        if (readDs == null || readDs.length == 0) throw new IllegalArgumentException("Read data sources can't be null or empty");
+        if (selector == null) throw new IllegalArgumentException("Data source selector can't be null");
+
+        this.rwDsId = rwDsId;
+        this.writeDs = writeDs;
+        this.readDs = readDs;
+        this.selector = selector;
+        this.dsContext = dsContext;
+    }
+
+    public String getRwDsId() {
+        return rwDsId;
+    }
+
+    public DataSourceBean getWriteDs() {
+        return writeDs;
+    }
+
+    public DataSourceBean[] getReadDs() {
+        return readDs.clone();
+    }
+
+    private boolean isReadOnly() {
+        if (TransactionSupport.isWriteTransaction()) return false;
+        if (dsContext != null) {
+            DataSourceRoute route = dsContext.get();
+            if (route != null && route.isReadOnly()) return true;
+        }
+        return TransactionSupport.isReadOnlyTransaction();
+    }
+
+    private DataSourceBean getCurrentDataSource() {
+        return isReadOnly() ? selector.select(readDs) : writeDs;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return getCurrentDataSource().getConnection();
+    }
+
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getCurrentDataSource().getConnection(username, password);
+    }
+
+    public PrintWriter getLogWriter() throws SQLException {
+        return writeDs.getLogWriter();
+    }
+
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        writeDs.setLogWriter(out);
+    }
+
+    public int getLoginTimeout() throws SQLException {
+        return writeDs.getLoginTimeout();
+    }
+
+    public void setLoginTimeout(int seconds) throws SQLException {
+        writeDs.setLoginTimeout(seconds);
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return writeDs.getParentLogger();
+    }
+
+    public <T> T unwrap(Class<T> face) throws SQLException {
+        if (face != null && face.isInstance(this))
+            return face.cast(this);
+        else
+            throw new SQLException("Wrapped object was not an instance of " + face);
+    }
+
+    public boolean isWrapperFor(Class<?> face) {
+        return face != null && face.isInstance(this);
+    }
+}
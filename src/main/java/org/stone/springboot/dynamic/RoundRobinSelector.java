@@ -0,0 +1,34 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.DataSourceBean;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects data sources of a group in turn.
+ *
+ * @author Chris Liao
+ */
+public final class RoundRobinSelector implements DataSourceSelector {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    public DataSourceBean select(DataSourceBean[] group) {
+        if (group.length == 1) return group[0];
+        return group[(counter.getAndIncrement() & Integer.MAX_VALUE) % group.length];
+    }
+}
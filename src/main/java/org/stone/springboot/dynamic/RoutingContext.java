@@ -0,0 +1,79 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routing context of dynamic sources,a routing target is bound to a call and visible to dynamic sources during
+ * the call;after a nested call returns,the outer target is restored.
+ *
+ * <p>Two implementations are provided:a thread local stack(default) and a {@code ScopedValue} binding,which is
+ * selected when virtual threads are enabled and the runtime is JDK 25 or later(loaded from multi-release classes),
+ * scoped bindings are inherited by child tasks forked in a structured task scope.
+ *
+ * @author Chris Liao
+ */
+public abstract class RoutingContext<T> {
+    private static final Logger log = LoggerFactory.getLogger(RoutingContext.class);
+    private static final String Scoped_Value_Context_Class_Name = "org.stone.springboot.dynamic.ScopedValueRoutingContext";
+
+    /**
+     * Creates a routing context.
+     *
+     * @param scoped true that attempt to create a context on {@code ScopedValue},fall back to thread local stack if not supported
+     * @param <T>    type of routing target
+     * @return created context
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RoutingContext<T> create(boolean scoped) {
+        if (scoped) {
+            try {
+                Class<?> contextClass = Class.forName(Scoped_Value_Context_Class_Name, true, RoutingContext.class.getClassLoader());
+                return (RoutingContext<T>) contextClass.getDeclaredConstructor().newInstance();
+            } catch (Throwable e) {
+                log.info("ScopedValue routing context is not supported by current runtime,thread local routing context is used");
+            }
+        }
+        return new ThreadLocalRoutingContext<>();
+    }
+
+    /**
+     * Gets routing target bound to current call.
+     *
+     * @return routing target,null if not bound
+     */
+    public abstract T get();
+
+    /**
+     * Binds a routing target to a call.
+     *
+     * @param target routing target
+     * @param call   call to be executed with target
+     * @return result of call
+     * @throws Throwable when call fail
+     */
+    public abstract Object call(T target, RoutingCall call) throws Throwable;
+
+    /**
+     * A call executed in a routing scope.
+     */
+    @FunctionalInterface
+    public interface RoutingCall {
+        Object call() throws Throwable;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.stone.springboot.exception.DataSourceException;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+
+/**
+ * Extracts shard key from arguments of a method call,key expression is an argument(name or '#index') followed by
+ * optional bean property path,for example:{@code tenantId},{@code #0},{@code order.tenantId},{@code #1.customer.id}.
+ *
+ * @author Chris Liao
+ */
+final class ShardKeyExtractor {
+    private static final ParameterNameDiscoverer NameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final String expression;
+    private final int argIndex;
+    private final String[] propertyPath;
+
+    ShardKeyExtractor(Method method, String expression) {
+        this.expression = expression;
+        String[] segments = expression.trim().split("\\.");
+        String argName = segments[0].trim();
+
+        //1: resolve argument index
+        int argIndex = -1;
+        if (argName.startsWith("#")) {
+            try {
+                argIndex = Integer.parseInt(argName.substring(1));
+            } catch (NumberFormatException e) {
+                throw new DataSourceException("Invalid argument index in shard key expression:" + expression);
+            }
+        } else {
+            String[] paramNames = NameDiscoverer.getParameterNames(method);
+            if (paramNames == null)
+                throw new DataSourceException("Parameter names of method(" + method + ") not found,please use '#index' in shard key expression");
+            for (int i = 0; i < paramNames.length; i++) {
+                if (paramNames[i].equals(argName)) {
+                    argIndex = i;
+                    break;
+                }
+            }
+        }
+        if (argIndex < 0 || argIndex >= method.getParameterCount())
+            throw new DataSourceException("Argument of shard key expression '" + expression + "' not found in method:" + method);
+
+        //2: property path on argument
+        this.argIndex = argIndex;
+        this.propertyPath = new String[segments.length - 1];
+        for (int i = 1; i < segments.length; i++)
+            propertyPath[i - 1] = segments[i].trim();
+    }
+
+    Object extract(Object[] args) {
+        Object value = args[argIndex];
+        for (String property : propertyPath) {
+            if (value == null) break;
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(value.getClass(), property);
+            if (descriptor == null || descriptor.getReadMethod() == null)
+                throw new DataSourceException("Readable property '" + property + "' of shard key expression '" + expression + "' not found in class:" + value.getClass().getName());
+            try {
+                value = descriptor.getReadMethod().invoke(value);
+            } catch (Exception e) {
+                throw new DataSourceException("Failed to read shard key with expression:" + expression, e);
+            }
+        }
+        if (value == null) throw new DataSourceException("Shard key is null with expression:" + expression);
+        return value;
+    }
+}
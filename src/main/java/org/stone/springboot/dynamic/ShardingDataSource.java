@@ -0,0 +1,108 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.stone.springboot.DataSourceBean;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * Sharding data source,a call is routed to a shard data source by hashing its shard key onto a consistent hash ring.
+ * Shard key is declared on routed methods by {@code @BeeDsId(value="<shardDsId>",shardKey="<expression>")}.
+ *
+ * @author Chris Liao
+ */
+public final class ShardingDataSource implements DataSource {
+    private final String shardDsId;
+    private final RoutingContext<DataSourceRoute> dsContext;
+    private volatile ConsistentHashRing ring;
+
+    public ShardingDataSource(String shardDsId, ConsistentHashRing ring, RoutingContext<DataSourceRoute> dsContext) {
+        if (ring == null) throw new IllegalArgumentException("Consistent hash ring can't be null");
+        this.shardDsId = shardDsId;
+        this.ring = ring;
+        this.dsContext = dsContext;
+    }
+
+    public String getShardDsId() {
+        return shardDsId;
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    //adds a shard data source,only keys on its virtual nodes are remapped to it
+    public synchronized void addShard(DataSourceBean ds) {
+        this.ring = ring.add(ds);
+    }
+
+    public synchronized void removeShard(String dsId) {
+        this.ring = ring.remove(dsId);
+    }
+
+    private DataSourceBean getCurrentDataSource() throws SQLException {
+        DataSourceRoute route = dsContext != null ? dsContext.get() : null;
+        Object shardKey = route != null ? route.getShardKey() : null;
+        if (shardKey == null)
+            throw new SQLException("Shard key not bound to current call of sharding data source:" + shardDsId);
+        return ring.get(shardKey);
+    }
+
+    public Connection getConnection() throws SQLException {
+        return getCurrentDataSource().getConnection();
+    }
+
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getCurrentDataSource().getConnection(username, password);
+    }
+
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    public void setLogWriter(PrintWriter out) {
+        //do nothing
+    }
+
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    public void setLoginTimeout(int seconds) {
+        //do nothing
+    }
+
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException("Not supported");
+    }
+
+    public <T> T unwrap(Class<T> face) throws SQLException {
+        if (face != null && face.isInstance(this))
+            return face.cast(this);
+        else
+            throw new SQLException("Wrapped object was not an instance of " + face);
+    }
+
+    public boolean isWrapperFor(Class<?> face) {
+        return face != null && face.isInstance(this);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+/**
+ * Routing context on thread local,routing targets are pushed to a stack of current thread on entering
+ * advised methods and popped on exit,so an outer target is restored after nested calls return.
+ *
+ * @author Chris Liao
+ */
+final class ThreadLocalRoutingContext<T> extends RoutingContext<T> {
+    private final ThreadLocal<RoutingStack> stackLocal = ThreadLocal.withInitial(RoutingStack::new);
+
+    public T get() {
+        return stackLocal.get().peek();
+    }
+
+    public Object call(T target, RoutingCall call) throws Throwable {
+        RoutingStack stack = stackLocal.get();
+        stack.push(target);
+        try {
+            return call.call();
+        } finally {
+            stack.pop();//restore outer target
+        }
+    }
+
+    //a fixed-depth array stack,it only grows when nested depth exceeds its length
+    private final class RoutingStack {
+        private Object[] targets = new Object[8];
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        T peek() {
+            return depth == 0 ? null : (T) targets[depth - 1];
+        }
+
+        void push(T target) {
+            if (depth == targets.length) {
+                Object[] newTargets = new Object[targets.length << 1];
+                System.arraycopy(targets, 0, newTargets, 0, depth);
+                this.targets = newTargets;
+            }
+            targets[depth++] = target;
+        }
+
+        void pop() {
+            if (depth > 0) targets[--depth] = null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reads read-only state of current spring transaction,spring-tx is optional.
+ *
+ * @author Chris Liao
+ */
+final class TransactionSupport {
+    private static final boolean Tx_Present = ClassUtils.isPresent(
+            "org.springframework.transaction.support.TransactionSynchronizationManager", TransactionSupport.class.getClassLoader());
+
+    //true that an actual transaction is active and it is not read-only
+    static boolean isWriteTransaction() {
+        return Tx_Present && TxAccessor.isWriteTransaction();
+    }
+
+    //true that current transaction is declared read-only,for example:@Transactional(readOnly=true)
+    static boolean isReadOnlyTransaction() {
+        return Tx_Present && TxAccessor.isReadOnlyTransaction();
+    }
+
+    //loaded only when spring-tx is present
+    private static final class TxAccessor {
+        static boolean isWriteTransaction() {
+            return TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+
+        static boolean isReadOnlyTransaction() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+    }
+}
@@ -25,4 +25,16 @@ public interface CacheClient {
     String get(String key);
 
     void set(String key, String value);
+
+    /**
+     * Sets a value with time to live,key is removed from cache after expired.Default implementation ignores time to
+     * live,implementations should override it,otherwise keys written by this method are kept in cache.
+     *
+     * @param key        cache key
+     * @param value      cache value
+     * @param timeToLive time to live(milliseconds)
+     */
+    default void set(String key, String value, long timeToLive) {
+        set(key, value);
+    }
 }
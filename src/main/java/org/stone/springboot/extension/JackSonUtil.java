@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Default implementation of local json util
@@ -35,10 +36,20 @@ public class JackSonUtil {
         JacksonObjectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
     }
 
+    //mixins should be added before first serialization of target class
+    public static void addMixIn(Class<?> target, Class<?> mixInSource) {
+        JacksonObjectMapper.addMixIn(target, mixInSource);
+    }
+
     public static String object2String(Object obj) throws IOException {
         return JacksonObjectMapper.writeValueAsString(obj);
     }
 
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> object2Map(Object obj) {
+        return JacksonObjectMapper.convertValue(obj, Map.class);
+    }
+
     public static <T> T string2Object(String str, Class<T> clazz) throws IOException {
         return JacksonObjectMapper.readerFor(clazz).readValue(str);
     }
@@ -18,6 +18,8 @@ package org.stone.springboot.extension.redisson;
 import org.redisson.api.RedissonClient;
 import org.stone.springboot.extension.CacheClient;
 
+import java.time.Duration;
+
 /**
  * Cache client interface.
  *
@@ -38,4 +40,8 @@ public class RedissonClientImpl implements CacheClient {
     public void set(String key, String value) {
         client.getBucket(key).set(value);
     }
+
+    public void set(String key, String value, long timeToLive) {
+        client.getBucket(key).set(value, Duration.ofMillis(timeToLive));
+    }
 }
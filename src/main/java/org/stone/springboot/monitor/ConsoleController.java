@@ -17,9 +17,11 @@ package org.stone.springboot.monitor;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -27,8 +29,11 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.stone.springboot.DataSourceBeanManager;
 import org.stone.springboot.ObjectSourceBeanManager;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.stone.springboot.monitor.SecurityRequestFilter.*;
 import static org.stone.tools.CommonUtil.isBlank;
@@ -40,12 +45,18 @@ import static org.stone.tools.CommonUtil.isBlank;
  */
 @Controller
 public class ConsoleController {
+    private static final String Text_Content_Type = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String OpenMetrics_Content_Type = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+    private static final int Max_Idle_Metrics_Writers = 4;
+
     private final MonitorConfig config;
     private final DataSourceBeanManager dsManager;
     private final ObjectSourceBeanManager osManager;
     @Autowired
     public ObjectMapper objectMapper;
     private boolean ignoreSet;
+    //reusable writers of metrics endpoint,concurrent scrapes take different writers
+    private final Queue<PoolMetricsWriter> metricsWriterQueue = new ConcurrentLinkedQueue<>();
 
     public ConsoleController() {
         this.config = MonitorConfig.getInstance();
@@ -137,6 +148,45 @@ public class ConsoleController {
         }
     }
 
+    @ResponseBody
+    @PostMapping(Ds_Pool_Swap_URL)
+    public ConsoleControllerResponse swapDsPool(@RequestBody Map<String, String> parameterMap) {
+        try {
+            String dsId = parameterMap != null ? parameterMap.get("dsId") : null;
+            dsManager.hotSwap(dsId);
+            return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_SUCCESS, null, "OK");
+        } catch (Throwable e) {
+            return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_FAILED, e, "Failed to swap datasource pool");
+        }
+    }
+
+    @ResponseBody
+    @PostMapping(Ds_Add_URL)
+    public ConsoleControllerResponse addDataSource(@RequestBody Map<String, String> parameterMap) {
+        try {
+            //parameters except 'dsId' are configuration items of data source
+            Map<String, String> properties = new HashMap<>(parameterMap);
+            String dsId = properties.remove("dsId");
+            dsManager.addDataSource(dsId, properties);
+            return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_SUCCESS, null, "OK");
+        } catch (Throwable e) {
+            return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_FAILED, e, "Failed to add datasource");
+        }
+    }
+
+    @ResponseBody
+    @PostMapping(Ds_Remove_URL)
+    public ConsoleControllerResponse removeDataSource(@RequestBody Map<String, String> parameterMap) {
+        try {
+            String dsId = parameterMap != null ? parameterMap.get("dsId") : null;
+            String drainTimeout = parameterMap != null ? parameterMap.get("drainTimeout") : null;
+            dsManager.removeDataSource(dsId, isBlank(drainTimeout) ? 30000L : Long.parseLong(drainTimeout.trim()));
+            return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_SUCCESS, null, "OK");
+        } catch (Throwable e) {
+            return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_FAILED, e, "Failed to remove datasource");
+        }
+    }
+
     @ResponseBody
     @PostMapping(Ds_Sql_Cancel_URL)
     public ConsoleControllerResponse cancelStatement(@RequestBody Map<String, String> parameterMap) {
@@ -180,4 +230,25 @@ public class ConsoleController {
             return new ConsoleControllerResponse(ConsoleControllerResponse.CODE_FAILED, e, "Failed to restart object source pool");
         }
     }
+
+    //***************************************************************************************************************//
+    //                                             5: metrics(1)                                                     //
+    //***************************************************************************************************************//
+    @GetMapping(Metrics_URL)
+    public void metrics(HttpServletRequest req, HttpServletResponse res) throws Exception {
+        String accept = req.getHeader("Accept");
+        boolean openMetrics = accept != null && accept.contains("application/openmetrics-text");
+
+        PoolMetricsWriter writer = metricsWriterQueue.poll();
+        if (writer == null) writer = new PoolMetricsWriter();
+        try {
+            writer.write(dsManager.getAllDsPoolMonitorVos(), osManager.getOsPoolMonitorVoList(), openMetrics);
+            res.setContentType(openMetrics ? OpenMetrics_Content_Type : Text_Content_Type);
+            res.setContentLength(writer.size());
+            writer.writeTo(res.getOutputStream());
+        } finally {
+            writer.reset();
+            if (metricsWriterQueue.size() < Max_Idle_Metrics_Writers) metricsWriterQueue.offer(writer);
+        }
+    }
 }
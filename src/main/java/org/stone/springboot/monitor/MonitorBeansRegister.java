@@ -23,14 +23,20 @@ import org.springframework.beans.factory.support.GenericBeanDefinition;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.core.env.Environment;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
 import org.stone.springboot.LocalScheduleService;
 import org.stone.springboot.SpringBootEnvironmentUtil;
 import org.stone.springboot.extension.CacheClientProvider;
+import org.stone.springboot.extension.JackSonUtil;
+import org.stone.springboot.monitor.snapshot.BeeCPPrometheusCollector;
+import org.stone.springboot.monitor.snapshot.BeeOPPrometheusCollector;
 import org.stone.springboot.monitor.snapshot.LocalSnapshotPackage;
 import org.stone.springboot.monitor.snapshot.PoolSnapshotPushTask;
+import org.stone.springboot.monitor.snapshot.PrometheusPusher;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.stone.springboot.monitor.SecurityRequestFilter.URL_Pattern;
+import static org.stone.tools.CommonUtil.isNotBlank;
 
 /**
  * Monitor beans importer
@@ -38,13 +44,15 @@ import static org.stone.springboot.monitor.SecurityRequestFilter.URL_Pattern;
  * @author Chris Liao
  */
 public class MonitorBeansRegister {
+    //collectors are registered once on jvm level default registry
+    private static boolean prometheusRegistered;
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     //Register controller bean to ioc
     public final void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry, Environment environment) {
 
         //1: load configuration
-        MonitorConfig config = new MonitorConfig();
+        MonitorConfig config = MonitorConfig.getInstance();
         config.load(environment);
 
         //2: Register controller
@@ -77,16 +85,55 @@ public class MonitorBeansRegister {
             log.warn("Bee monitor filter has existed with id:{}", resetControllerFilterRegName);
         }
 
-        //4: schedule a task to write pool snapshots to cache
+        //4: schedule a task to write pool snapshots to cache,results of sql logs are not written
+        JackSonUtil.addMixIn(org.stone.beecp.BeeMethodExecutionLog.class, MethodExecutionLogMixIn.class);
+        JackSonUtil.addMixIn(org.stone.beeop.BeeMethodExecutionLog.class, MethodExecutionLogMixIn.class);
         CacheClientProvider provider = config.getCacheClientProvider();
         LocalScheduleService scheduleService = LocalScheduleService.getInstance();
         if (provider != null && !scheduleService.isFull()) {
             PoolSnapshotPushTask task = new PoolSnapshotPushTask(
                     config.getCacheKeyPrefix(),
                     new LocalSnapshotPackage(config.getHostWebUrl()),
-                    provider);
+                    provider,
+                    config.getCacheResyncCount(),
+                    config.getCacheInterval() * config.getCacheResyncCount() * 2L);//deltas live two resync rounds
 
             scheduleService.scheduleAtFixedRate(task, 0L, config.getCacheInterval(), MILLISECONDS);
         }
+
+        //5: schedule a task to push pool metrics to prometheus gateway,final push is sent on closing of spring context
+        if (isNotBlank(config.getPushGatewayUrl())) {
+            String pusherRegName = PrometheusPusher.class.getName();
+            if (scheduleService.isFull()) {
+                log.warn("Bee prometheus pusher not scheduled,schedule service is full");
+            } else if (!SpringBootEnvironmentUtil.existsBeanDefinition(pusherRegName, registry)) {
+                PrometheusPusher pusher = new PrometheusPusher(
+                        config.getPushGatewayUrl(),
+                        config.getPushGatewayJob(),
+                        config.getPushGatewayInstance(),
+                        new LocalSnapshotPackage(config.getHostWebUrl()));
+                pusher.setDeleteOnClose(config.isPushGatewayDeleteOnClose());
+
+                GenericBeanDefinition define = new GenericBeanDefinition();
+                define.setBeanClass(PrometheusPusher.class);
+                define.setInstanceSupplier(SpringBootEnvironmentUtil.createSpringSupplier(pusher));
+                registry.registerBeanDefinition(pusherRegName, define);
+                scheduleService.scheduleAtFixedRate(pusher, config.getPushGatewayInterval(), config.getPushGatewayInterval(), MILLISECONDS);
+                log.info("Register bee prometheus pusher with url:{}", pusher.getPushUri());
+            }
+        }
+
+        //6: register prometheus collectors on default registry when simple client exists in classpath
+        if (ClassUtils.isPresent("io.prometheus.client.Collector", MonitorBeansRegister.class.getClassLoader())) {
+            if (registerPrometheusCollectors(config.getPrometheusMaxKeySize()))
+                log.info("Register bee prometheus collectors to default registry");
+        }
+    }
+
+    private static synchronized boolean registerPrometheusCollectors(int maxKeySize) {
+        if (prometheusRegistered) return false;
+        new BeeCPPrometheusCollector().register();
+        new BeeOPPrometheusCollector(maxKeySize).register();
+        return prometheusRegistered = true;
     }
 }
@@ -41,6 +41,23 @@ import static org.stone.tools.CommonUtil.isNotBlank;
  * spring.bee.center.username=xxxx
  * spring.bee.center.password=xxxx
  * spring.bee.center.pushInterval=18000
+ * <p>
+ * #2.1: Pool snapshots pushed to cache(full snapshot on every resync count of pushes,deltas between them)
+ * spring.bee.console.cache-interval=10000
+ * spring.bee.console.cache-resync-count=6
+ * <p>
+ * #3: Prometheus collectors
+ * spring.bee.console.prometheus-max-key-size=20
+ * <p>
+ * #4: Metrics endpoint(/bee/metrics),scrapers send token in header 'Authorization: Bearer xxxx'
+ * spring.bee.console.metrics-token=xxxx
+ * <p>
+ * #5: Prometheus Pushgateway(metrics of app instance are grouped by job and instance)
+ * spring.bee.console.push-gateway-url=http://localhost:9091
+ * spring.bee.console.push-gateway-job=bee
+ * spring.bee.console.push-gateway-instance=xxxx(default is app context url)
+ * spring.bee.console.push-gateway-interval=15000
+ * spring.bee.console.push-gateway-delete-on-close=false(true:delete pushed group on closing instead of final push)
  *
  * @author Chris Liao
  */
@@ -57,6 +74,18 @@ public final class MonitorConfig {
     private CacheClientProvider cacheClientProvider;
     private String cacheKeyPrefix = "spring:bee:monitor:";
     private long cacheInterval = SECONDS.toMillis(10L);
+    //count of pushes between two full snapshots,deltas are pushed between them
+    private int cacheResyncCount = 6;
+    //max count of keys exported by themselves for an object source,others are summed into 'other' key
+    private int prometheusMaxKeySize = 20;
+    //token of metrics endpoint,endpoint is checked on console login if not set
+    private String metricsToken;
+    //push gateway
+    private String pushGatewayUrl;
+    private String pushGatewayJob = "bee";
+    private String pushGatewayInstance;
+    private long pushGatewayInterval = SECONDS.toMillis(15L);
+    private boolean pushGatewayDeleteOnClose;
 
     //your web app url
     private String hostWebUrl;
@@ -99,6 +128,14 @@ public final class MonitorConfig {
         if (cacheInterval > 1000L) this.cacheInterval = cacheInterval;
     }
 
+    public int getCacheResyncCount() {
+        return cacheResyncCount;
+    }
+
+    public void setCacheResyncCount(int cacheResyncCount) {
+        if (cacheResyncCount > 0) this.cacheResyncCount = cacheResyncCount;
+    }
+
     public String getCacheKeyPrefix() {
         return cacheKeyPrefix;
     }
@@ -107,6 +144,62 @@ public final class MonitorConfig {
         if (isNotBlank(cacheKeyPrefix)) this.cacheKeyPrefix = cacheKeyPrefix;
     }
 
+    public int getPrometheusMaxKeySize() {
+        return prometheusMaxKeySize;
+    }
+
+    public void setPrometheusMaxKeySize(int prometheusMaxKeySize) {
+        if (prometheusMaxKeySize >= 0) this.prometheusMaxKeySize = prometheusMaxKeySize;
+    }
+
+    public String getMetricsToken() {
+        return metricsToken;
+    }
+
+    public void setMetricsToken(String metricsToken) {
+        this.metricsToken = metricsToken;
+    }
+
+    public String getPushGatewayUrl() {
+        return pushGatewayUrl;
+    }
+
+    public void setPushGatewayUrl(String pushGatewayUrl) {
+        this.pushGatewayUrl = pushGatewayUrl;
+    }
+
+    public String getPushGatewayJob() {
+        return pushGatewayJob;
+    }
+
+    public void setPushGatewayJob(String pushGatewayJob) {
+        if (isNotBlank(pushGatewayJob)) this.pushGatewayJob = pushGatewayJob;
+    }
+
+    public String getPushGatewayInstance() {
+        return isNotBlank(pushGatewayInstance) ? pushGatewayInstance : hostWebUrl;
+    }
+
+    public void setPushGatewayInstance(String pushGatewayInstance) {
+        this.pushGatewayInstance = pushGatewayInstance;
+    }
+
+    public long getPushGatewayInterval() {
+        return pushGatewayInterval;
+    }
+
+    public void setPushGatewayInterval(long pushGatewayInterval) {
+        if (pushGatewayInterval > 1000L) this.pushGatewayInterval = pushGatewayInterval;
+    }
+
+    public boolean isPushGatewayDeleteOnClose() {
+        return pushGatewayDeleteOnClose;
+    }
+
+    public void setPushGatewayDeleteOnClose(boolean pushGatewayDeleteOnClose) {
+        this.pushGatewayDeleteOnClose = pushGatewayDeleteOnClose;
+    }
+
     public CacheClientProvider getCacheClientProvider() {
         return cacheClientProvider;
     }
@@ -0,0 +1,226 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor;
+
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
+import org.stone.springboot.DataSourcePoolMonitorVo;
+import org.stone.springboot.ObjectSourcePoolMonitorVo;
+import org.stone.springboot.monitor.snapshot.PoolMetric;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.stone.springboot.monitor.snapshot.PoolMetric.*;
+
+/**
+ * Writer of pool metrics in prometheus text format(or OpenMetrics text format),text is encoded into a reusable
+ * byte buffer directly from monitor vo of pools,so no intermediate string is created on writing.
+ *
+ * @author Chris Liao
+ */
+public final class PoolMetricsWriter {
+    private static final String Ds_Id_Label = "ds_id";
+    private static final String Os_Id_Label = "os_id";
+    private static final int Max_Retained_Size = 1024 * 1024;
+
+    private byte[] buf = new byte[8192];
+    private int count;
+
+    //***************************************************************************************************************//
+    //                                     1: pool metrics(3)                                                        //
+    //***************************************************************************************************************//
+    public void write(Collection<BeeConnectionPoolMonitorVo> dsVoList, Collection<BeeObjectPoolMonitorVo> osVoList, boolean openMetrics) {
+        for (PoolMetric<BeeConnectionPoolMonitorVo> metric : Ds_Pool_Metrics) {
+            writeHeader(metric, openMetrics);
+            for (BeeConnectionPoolMonitorVo vo : dsVoList) {
+                String dsId = vo instanceof DataSourcePoolMonitorVo dsVo ? dsVo.getDsId() : vo.getPoolName();
+                writeSample(metric, Ds_Id_Label, dsId, vo.getPoolName(), vo.getPoolMode(), metric.getValue(vo));
+            }
+        }
+        for (PoolMetric<DataSourcePoolMonitorVo> metric : Ds_Extension_Metrics) {
+            writeHeader(metric, openMetrics);
+            for (BeeConnectionPoolMonitorVo vo : dsVoList) {
+                if (vo instanceof DataSourcePoolMonitorVo dsVo)
+                    writeSample(metric, Ds_Id_Label, dsVo.getDsId(), vo.getPoolName(), vo.getPoolMode(), metric.getValue(dsVo));
+            }
+        }
+        for (PoolMetric<BeeObjectPoolMonitorVo> metric : Os_Pool_Metrics) {
+            writeHeader(metric, openMetrics);
+            for (BeeObjectPoolMonitorVo vo : osVoList) {
+                String osId = vo instanceof ObjectSourcePoolMonitorVo osVo ? osVo.getOsId() : vo.getPoolName();
+                writeSample(metric, Os_Id_Label, osId, vo.getPoolName(), vo.getPoolMode(), metric.getValue(vo));
+            }
+        }
+        if (openMetrics) writeAscii("# EOF\n");
+    }
+
+    //# HELP name help
+    //# TYPE name type
+    private void writeHeader(PoolMetric<?> metric, boolean openMetrics) {
+        //family name of counter in prometheus text is same to its sample name
+        String name = openMetrics ? metric.getName() : metric.getSampleName();
+        writeAscii("# HELP ");
+        writeAscii(name);
+        writeByte(' ');
+        writeAscii(metric.getHelp());
+        writeAscii("\n# TYPE ");
+        writeAscii(name);
+        writeAscii(metric.isCounter() ? " counter\n" : " gauge\n");
+    }
+
+    //name{xx_id="",pool_name="",pool_mode=""} value
+    private void writeSample(PoolMetric<?> metric, String idLabelName, String id, String poolName, String poolMode, double value) {
+        writeAscii(metric.getSampleName());
+        writeByte('{');
+        writeAscii(idLabelName);
+        writeAscii("=\"");
+        writeLabelValue(id);
+        writeAscii("\",pool_name=\"");
+        writeLabelValue(poolName);
+        writeAscii("\",pool_mode=\"");
+        writeLabelValue(poolMode);
+        writeAscii("\"} ");
+        writeDouble(value);
+        writeByte('\n');
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: buffer(5)                                                              //
+    //***************************************************************************************************************//
+    public int size() {
+        return count;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    //reset for reuse,a grown buffer is dropped if it is too large to be retained
+    public void reset() {
+        this.count = 0;
+        if (buf.length > Max_Retained_Size) buf = new byte[8192];
+    }
+
+    private void ensureCapacity(int addSize) {
+        if (count + addSize > buf.length)
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + addSize));
+    }
+
+    //***************************************************************************************************************//
+    //                                     3: encoding(5)                                                            //
+    //***************************************************************************************************************//
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buf[count++] = (byte) b;
+    }
+
+    //metric names and help texts are ascii constants
+    private void writeAscii(String text) {
+        int len = text.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++)
+            buf[count++] = (byte) text.charAt(i);
+    }
+
+    //label value escaped on backslash,double quote and line feed,then encoded with utf-8
+    private void writeLabelValue(String text) {
+        if (text == null) return;
+        int len = text.length();
+        ensureCapacity(len * 3);
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '"') {
+                buf[count++] = '\\';
+                buf[count++] = (byte) c;
+            } else if (c == '\n') {
+                buf[count++] = '\\';
+                buf[count++] = 'n';
+            } else if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                buf[count++] = (byte) (0xF0 | (cp >> 18));
+                buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    //values are written in integer form or in fixed form with at most six fraction digits
+    private void writeDouble(double value) {
+        if (Double.isNaN(value)) {
+            writeAscii("NaN");
+        } else if (Double.isInfinite(value)) {
+            writeAscii(value > 0D ? "+Inf" : "-Inf");
+        } else if (value == (long) value || Math.abs(value) >= 1.0E12D) {
+            writeLong(Math.round(value));
+        } else {
+            if (value < 0D) {
+                writeByte('-');
+                value = -value;
+            }
+            long scaled = Math.round(value * 1000000D);
+            writeLong(scaled / 1000000L);
+            long fraction = scaled % 1000000L;
+            if (fraction != 0L) {
+                ensureCapacity(7);
+                buf[count++] = '.';
+                for (long divisor = 100000L; fraction != 0L; divisor /= 10L) {
+                    buf[count++] = (byte) ('0' + fraction / divisor);
+                    fraction %= divisor;
+                }
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0L) {
+            buf[count++] = '-';
+            value = -value;
+        }
+        int start = count;
+        do {
+            buf[count++] = (byte) ('0' + value % 10L);
+            value /= 10L;
+        } while (value != 0L);
+        //reverse digits
+        for (int i = start, j = count - 1; i < j; i++, j--) {
+            byte b = buf[i];
+            buf[i] = buf[j];
+            buf[j] = b;
+        }
+    }
+}
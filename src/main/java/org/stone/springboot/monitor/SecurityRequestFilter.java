@@ -17,11 +17,13 @@ package org.stone.springboot.monitor;
 
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.stone.springboot.extension.JackSonUtil;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 
 import static org.stone.tools.CommonUtil.isBlank;
 
@@ -39,26 +41,39 @@ public class SecurityRequestFilter implements Filter {
     static final String Monitor_Page = "/bee/monitor.html";
     static final String Ds_Pool_List_URL = "/bee/dsPoolList";
     static final String Ds_Pool_Clear_URL = "/bee/dsPoolClear";
+    static final String Ds_Pool_Swap_URL = "/bee/dsPoolSwap";
+    static final String Ds_Add_URL = "/bee/dsAdd";
+    static final String Ds_Remove_URL = "/bee/dsRemove";
     static final String Ds_Sql_List_URL = "/bee/dsSqlList";
     static final String Ds_Sql_Cancel_URL = "/bee/dsSqlCancel";
     static final String Os_Pool_List_URL = "/bee/osPoolList";
     static final String Os_Pool_Clear_URL = "/bee/osPoolClear";
+    static final String Metrics_URL = "/bee/metrics";
 
     private final String loggedFlag;
     private final boolean securityCheck;
+    private final byte[] metricsAuthorization;
     private final String[] excludeUrlSuffix = {".js", ".css", ".gif"};
     private final String[] excludeUrls = {Login_URL, Login_Page};
+    //urls to add or remove pools,a logged session is always required,so they are refused when no user configured
+    private final String[] loginRequiredUrls = {Ds_Add_URL, Ds_Remove_URL};
     private final String[] restUrls = {
             Ds_Pool_List_URL,
             Ds_Pool_Clear_URL,
+            Ds_Pool_Swap_URL,
+            Ds_Add_URL,
+            Ds_Remove_URL,
             Ds_Sql_List_URL,
             Ds_Sql_Cancel_URL,
             Os_Pool_List_URL,
-            Os_Pool_Clear_URL};
+            Os_Pool_Clear_URL,
+            Metrics_URL};
 
     SecurityRequestFilter() {
         this.loggedFlag = MonitorConfig.getInstance().getLoggedFlag();
-        this.securityCheck = isBlank(MonitorConfig.getInstance().getUsername());
+        this.securityCheck = !isBlank(MonitorConfig.getInstance().getUsername());//login required when user configured
+        String metricsToken = MonitorConfig.getInstance().getMetricsToken();
+        this.metricsAuthorization = isBlank(metricsToken) ? null : ("Bearer " + metricsToken.trim()).getBytes(StandardCharsets.UTF_8);
     }
 
     @Override
@@ -71,10 +86,19 @@ public class SecurityRequestFilter implements Filter {
     }
 
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
-        if (securityCheck) {
-            HttpServletRequest httpReq = (HttpServletRequest) req;
-            String requestPath = httpReq.getServletPath();
+        HttpServletRequest httpReq = (HttpServletRequest) req;
+        String requestPath = httpReq.getServletPath();
 
+        //scrapers have no login session,metrics request is checked on its own token
+        if (metricsAuthorization != null && requestPath.endsWith(Metrics_URL)) {
+            if (isMetricsAuthorized(httpReq.getHeader("Authorization")))
+                chain.doFilter(req, res);
+            else
+                ((HttpServletResponse) res).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        if (securityCheck || isLoginRequiredUrl(requestPath)) {
             if ("Y".equals(httpReq.getSession().getAttribute(loggedFlag)) || isExcludeUrl(requestPath)) {
                 chain.doFilter(req, res);
             } else if (isRestRequestUrl(requestPath)) {//is rest request url
@@ -90,6 +114,17 @@ public class SecurityRequestFilter implements Filter {
         }
     }
 
+    //compared in constant time
+    private boolean isMetricsAuthorized(String authorization) {
+        return authorization != null && MessageDigest.isEqual(metricsAuthorization, authorization.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean isLoginRequiredUrl(String requestPath) {
+        for (String str : loginRequiredUrls)
+            if (requestPath.endsWith(str)) return true;
+        return false;
+    }
+
     private boolean isRestRequestUrl(String requestPath) {
         for (String str : restUrls)
             if (requestPath.endsWith(str)) return true;
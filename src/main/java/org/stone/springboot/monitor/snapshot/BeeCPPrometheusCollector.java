@@ -0,0 +1,101 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor.snapshot;
+
+import io.prometheus.client.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.springboot.DataSourceBeanManager;
+import org.stone.springboot.DataSourcePoolMonitorVo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.stone.springboot.monitor.snapshot.PoolMetric.Ds_Extension_Metrics;
+import static org.stone.springboot.monitor.snapshot.PoolMetric.Ds_Pool_Metrics;
+
+/**
+ * Prometheus collector on bee data sources,which reads monitor vo of pools at scrape time,so no background
+ * thread is required to refresh values and every pool is exported as a series labeled by ds id,pool name and mode.
+ *
+ * <pre>{@code
+ * new BeeCPPrometheusCollector().register();
+ * }</pre>
+ *
+ * @author Chris Liao
+ */
+public class BeeCPPrometheusCollector extends Collector {
+    private static final Logger log = LoggerFactory.getLogger(BeeCPPrometheusCollector.class);
+    private static final List<String> Label_Names = Arrays.asList("ds_id", "pool_name", "pool_mode");
+
+    private final DataSourceBeanManager dsManager = DataSourceBeanManager.getInstance();
+
+    //***************************************************************************************************************//
+    //                                     1: collect(3)                                                             //
+    //***************************************************************************************************************//
+    public List<MetricFamilySamples> collect() {
+        List<BeeConnectionPoolMonitorVo> voList;
+        try {
+            voList = dsManager.getAllDsPoolMonitorVos();
+        } catch (Throwable e) {
+            log.warn("Failed to read monitor vo of data sources", e);
+            return Collections.emptyList();
+        }
+
+        int voSize = voList.size();
+        List<List<String>> labelValuesList = new ArrayList<>(voSize);
+        boolean existsDsVo = false;
+        for (BeeConnectionPoolMonitorVo vo : voList) {
+            String dsId = vo.getPoolName();
+            if (vo instanceof DataSourcePoolMonitorVo dsVo) {
+                dsId = dsVo.getDsId();
+                existsDsVo = true;
+            }
+            labelValuesList.add(Arrays.asList(dsId, vo.getPoolName(), vo.getPoolMode()));
+        }
+
+        List<MetricFamilySamples> familyList = new ArrayList<>(Ds_Pool_Metrics.size() + Ds_Extension_Metrics.size());
+        for (PoolMetric<BeeConnectionPoolMonitorVo> metric : Ds_Pool_Metrics) {
+            List<MetricFamilySamples.Sample> sampleList = new ArrayList<>(voSize);
+            for (int i = 0; i < voSize; i++)
+                sampleList.add(sample(metric, metric.getValue(voList.get(i)), labelValuesList.get(i)));
+            familyList.add(family(metric, sampleList));
+        }
+
+        if (existsDsVo) {
+            for (PoolMetric<DataSourcePoolMonitorVo> metric : Ds_Extension_Metrics) {
+                List<MetricFamilySamples.Sample> sampleList = new ArrayList<>(voSize);
+                for (int i = 0; i < voSize; i++) {
+                    if (voList.get(i) instanceof DataSourcePoolMonitorVo dsVo)
+                        sampleList.add(sample(metric, metric.getValue(dsVo), labelValuesList.get(i)));
+                }
+                familyList.add(family(metric, sampleList));
+            }
+        }
+        return familyList;
+    }
+
+    private static MetricFamilySamples.Sample sample(PoolMetric<?> metric, double value, List<String> labelValues) {
+        return new MetricFamilySamples.Sample(metric.getSampleName(), Label_Names, labelValues, value);
+    }
+
+    private static MetricFamilySamples family(PoolMetric<?> metric, List<MetricFamilySamples.Sample> sampleList) {
+        return new MetricFamilySamples(metric.getName(), metric.isCounter() ? Type.COUNTER : Type.GAUGE, metric.getHelp(), sampleList);
+    }
+}
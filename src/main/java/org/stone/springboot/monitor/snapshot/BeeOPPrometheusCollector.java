@@ -0,0 +1,170 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor.snapshot;
+
+import io.prometheus.client.Collector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
+import org.stone.springboot.ObjectSourceBean;
+import org.stone.springboot.ObjectSourceBeanManager;
+
+import java.util.*;
+
+import static org.stone.springboot.monitor.snapshot.PoolMetric.Os_Key_Metrics;
+import static org.stone.springboot.monitor.snapshot.PoolMetric.Os_Pool_Metrics;
+
+/**
+ * Prometheus collector on bee object sources,which reads monitor vo of pools and their key sub pools at scrape time.
+ * Pool samples are labeled by os id,pool name and mode;key samples are labeled by os id,key and key bucket.
+ * To bound series count,at most {@code maxKeySize} keys of an object source are exported by themselves(bucket "top"),
+ * which are ranked on waiting size and borrowed size,and remaining keys are summed into one sample of bucket "other"
+ * with an empty key;bucket label keeps the sum apart from a real key of any name.
+ *
+ * <pre>{@code
+ * new BeeOPPrometheusCollector(20).register();
+ * }</pre>
+ *
+ * @author Chris Liao
+ */
+public class BeeOPPrometheusCollector extends Collector {
+    public static final String Top_Bucket = "top";
+    public static final String Other_Bucket = "other";
+    private static final Logger log = LoggerFactory.getLogger(BeeOPPrometheusCollector.class);
+    private static final List<String> Pool_Label_Names = Arrays.asList("os_id", "pool_name", "pool_mode");
+    private static final List<String> Key_Label_Names = Arrays.asList("os_id", "key", "key_bucket");
+
+    //order keys by waiting size,then borrowed size,starving keys are exported firstly
+    private static final Comparator<KeyLoad> Load_Comparator = Comparator
+            .comparingInt((KeyLoad load) -> load.waitingSize()).reversed()
+            .thenComparing(Comparator.comparingInt((KeyLoad load) -> load.borrowedSize()).reversed());
+
+    private final int maxKeySize;
+    private final ObjectSourceBeanManager<?, ?> osManager = ObjectSourceBeanManager.getInstance();
+
+    public BeeOPPrometheusCollector(int maxKeySize) {
+        if (maxKeySize < 0) throw new IllegalArgumentException("Max key size can't be less than zero");
+        this.maxKeySize = maxKeySize;
+    }
+
+    public int getMaxKeySize() {
+        return maxKeySize;
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: collect(4)                                                             //
+    //***************************************************************************************************************//
+    public List<MetricFamilySamples> collect() {
+        List<List<MetricFamilySamples.Sample>> poolSamplesList = createSamplesList(Os_Pool_Metrics.size());
+        List<List<MetricFamilySamples.Sample>> keySamplesList = createSamplesList(Os_Key_Metrics.size());
+
+        for (ObjectSourceBean<?, ?> os : osManager.getAllObjectSources()) {
+            try {
+                collect(os, poolSamplesList, keySamplesList);
+            } catch (Throwable e) {
+                log.warn("Failed to read monitor vo of object source:{}", os.getOsId(), e);
+            }
+        }
+
+        List<MetricFamilySamples> familyList = new ArrayList<>(Os_Pool_Metrics.size() + Os_Key_Metrics.size());
+        for (int i = 0; i < Os_Pool_Metrics.size(); i++)
+            familyList.add(family(Os_Pool_Metrics.get(i), poolSamplesList.get(i)));
+        for (int i = 0; i < Os_Key_Metrics.size(); i++)
+            familyList.add(family(Os_Key_Metrics.get(i), keySamplesList.get(i)));
+        return familyList;
+    }
+
+    private void collect(ObjectSourceBean<?, ?> os, List<List<MetricFamilySamples.Sample>> poolSamplesList,
+                         List<List<MetricFamilySamples.Sample>> keySamplesList) throws Exception {
+        BeeObjectPoolMonitorVo poolVo = os.getPoolMonitorVo();
+        if (poolVo == null || os.isClosed()) return;
+
+        String osId = os.getOsId();
+        List<String> poolLabelValues = Arrays.asList(osId, poolVo.getPoolName(), poolVo.getPoolMode());
+        for (int i = 0; i < Os_Pool_Metrics.size(); i++) {
+            PoolMetric<BeeObjectPoolMonitorVo> metric = Os_Pool_Metrics.get(i);
+            poolSamplesList.get(i).add(sample(metric, metric.getValue(poolVo), Pool_Label_Names, poolLabelValues));
+        }
+
+        //1: read load of keys
+        List<KeyLoad> loadList = readKeyLoads(os);
+        if (loadList.isEmpty()) return;
+
+        //2: export top keys by themselves
+        int exportSize = loadList.size();
+        if (exportSize > maxKeySize) {
+            loadList.sort(Load_Comparator);
+            exportSize = maxKeySize;
+        }
+        for (int i = 0; i < exportSize; i++) {
+            KeyLoad load = loadList.get(i);
+            List<String> keyLabelValues = Arrays.asList(osId, load.key(), Top_Bucket);
+            for (int j = 0; j < Os_Key_Metrics.size(); j++)
+                keySamplesList.get(j).add(sample(Os_Key_Metrics.get(j), load.values()[j], Key_Label_Names, keyLabelValues));
+        }
+
+        //3: sum remaining keys into other bucket
+        if (exportSize < loadList.size()) {
+            double[] otherValues = new double[Os_Key_Metrics.size()];
+            for (int i = exportSize; i < loadList.size(); i++) {
+                double[] values = loadList.get(i).values();
+                for (int j = 0; j < otherValues.length; j++)
+                    otherValues[j] += values[j];
+            }
+            List<String> keyLabelValues = Arrays.asList(osId, "", Other_Bucket);
+            for (int j = 0; j < Os_Key_Metrics.size(); j++)
+                keySamplesList.get(j).add(sample(Os_Key_Metrics.get(j), otherValues[j], Key_Label_Names, keyLabelValues));
+        }
+    }
+
+    private static <K> List<KeyLoad> readKeyLoads(ObjectSourceBean<K, ?> os) throws Exception {
+        Collection<K> keys = os.getKeys();
+        List<KeyLoad> loadList = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            BeeObjectPoolMonitorVo vo = os.getMonitorVo(key);
+            if (vo == null) continue;
+
+            //values are copied out since vo may be refreshed by other threads
+            double[] values = new double[Os_Key_Metrics.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = Os_Key_Metrics.get(i).getValue(vo);
+            loadList.add(new KeyLoad(String.valueOf(key),
+                    vo.getSemaphoreWaitingSize() + vo.getTransferWaitingSize(), vo.getBorrowedSize(), values));
+        }
+        return loadList;
+    }
+
+    private static List<List<MetricFamilySamples.Sample>> createSamplesList(int size) {
+        List<List<MetricFamilySamples.Sample>> samplesList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            samplesList.add(new ArrayList<>());
+        return samplesList;
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: sample creation(3)                                                     //
+    //***************************************************************************************************************//
+    private record KeyLoad(String key, int waitingSize, int borrowedSize, double[] values) {
+    }
+
+    private static MetricFamilySamples.Sample sample(PoolMetric<?> metric, double value, List<String> labelNames, List<String> labelValues) {
+        return new MetricFamilySamples.Sample(metric.getSampleName(), labelNames, labelValues, value);
+    }
+
+    private static MetricFamilySamples family(PoolMetric<?> metric, List<MetricFamilySamples.Sample> sampleList) {
+        return new MetricFamilySamples(metric.getName(), metric.isCounter() ? Type.COUNTER : Type.GAUGE, metric.getHelp(), sampleList);
+    }
+}
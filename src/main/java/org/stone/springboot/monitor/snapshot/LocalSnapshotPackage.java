@@ -21,9 +21,15 @@ import org.stone.beeop.BeeObjectPoolMonitorVo;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Map;
 
 /**
- * Local snapshot data Package
+ * Local snapshot data Package.
+ * <p>
+ * A full package(baseVersion is zero) carries all pools in lists({@code dsPoolList},{@code osPoolList}) and all sql
+ * logs;a delta package carries changed properties of pools in {@code dsPools} and {@code osPools},ids of removed pools
+ * and new sql logs since package of {@code baseVersion}. Pools of delta maps are keyed by ds id(os id),values are maps
+ * of monitor vo properties. Each package carries pools in one representation only.
  *
  * @author Chris Liao
  */
@@ -31,6 +37,12 @@ import java.util.Collection;
 public final class LocalSnapshotPackage implements Serializable {
     private final String appContextUrl;
     private String cacheTime;
+    private long version;
+    private long baseVersion;
+    private Map<String, Map<String, Object>> dsPools;
+    private Map<String, Map<String, Object>> osPools;
+    private Collection<String> removedDsPools;
+    private Collection<String> removedOsPools;
     private Collection<BeeConnectionPoolMonitorVo> dsPoolList;
     private Collection<BeeMethodExecutionLog> dsSqlList;
     private Collection<BeeObjectPoolMonitorVo> osPoolList;
@@ -51,6 +63,58 @@ public final class LocalSnapshotPackage implements Serializable {
         this.cacheTime = cacheTime;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    public boolean isFull() {
+        return baseVersion == 0L;
+    }
+
+    public Map<String, Map<String, Object>> getDsPools() {
+        return dsPools;
+    }
+
+    public void setDsPools(Map<String, Map<String, Object>> dsPools) {
+        this.dsPools = dsPools;
+    }
+
+    public Map<String, Map<String, Object>> getOsPools() {
+        return osPools;
+    }
+
+    public void setOsPools(Map<String, Map<String, Object>> osPools) {
+        this.osPools = osPools;
+    }
+
+    public Collection<String> getRemovedDsPools() {
+        return removedDsPools;
+    }
+
+    public void setRemovedDsPools(Collection<String> removedDsPools) {
+        this.removedDsPools = removedDsPools;
+    }
+
+    public Collection<String> getRemovedOsPools() {
+        return removedOsPools;
+    }
+
+    public void setRemovedOsPools(Collection<String> removedOsPools) {
+        this.removedOsPools = removedOsPools;
+    }
+
     public Collection<BeeConnectionPoolMonitorVo> getDsPoolList() {
         return dsPoolList;
     }
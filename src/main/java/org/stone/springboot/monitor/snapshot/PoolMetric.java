@@ -0,0 +1,139 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor.snapshot;
+
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
+import org.stone.springboot.DataSourcePoolMonitorVo;
+import org.stone.springboot.ObjectSourcePoolMonitorVo;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Definition of an exported pool metric,shared by prometheus collectors and metrics endpoint of console,
+ * so metric names keep same in pull and push paths.
+ *
+ * @author Chris Liao
+ */
+public final class PoolMetric<T> {
+    //metrics on all connection pools
+    public static final List<PoolMetric<BeeConnectionPoolMonitorVo>> Ds_Pool_Metrics = List.of(
+            gauge("beecp_pool_closed", "beecp pool closed flag(1:closed).", vo -> toDouble(vo.isClosed())),
+            gauge("beecp_pool_ready", "beecp pool ready flag(1:ready).", vo -> toDouble(vo.isReady())),
+            gauge("beecp_pool_starting", "beecp pool starting flag(1:starting).", vo -> toDouble(vo.isStarting())),
+            gauge("beecp_pool_max_size", "beecp pool max size.", BeeConnectionPoolMonitorVo::getMaxSize),
+            gauge("beecp_pool_idle_size", "beecp pool idle size.", BeeConnectionPoolMonitorVo::getIdleSize),
+            gauge("beecp_pool_borrowed_size", "beecp pool borrowed size.", BeeConnectionPoolMonitorVo::getBorrowedSize),
+            gauge("beecp_pool_creating_size", "beecp pool creating size.", BeeConnectionPoolMonitorVo::getCreatingSize),
+            gauge("beecp_pool_creating_timeout_size", "beecp pool creating timeout size.", BeeConnectionPoolMonitorVo::getCreatingTimeoutSize),
+            gauge("beecp_pool_semaphore_size", "beecp pool semaphore size.", BeeConnectionPoolMonitorVo::getSemaphoreSize),
+            gauge("beecp_pool_semaphore_acquired_size", "beecp pool semaphore acquired size.", BeeConnectionPoolMonitorVo::getSemaphoreAcquiredSize),
+            gauge("beecp_pool_semaphore_waiting_size", "beecp pool semaphore waiting size.", BeeConnectionPoolMonitorVo::getSemaphoreWaitingSize),
+            gauge("beecp_pool_transfer_waiting_size", "beecp pool transfer waiting size.", BeeConnectionPoolMonitorVo::getTransferWaitingSize),
+            gauge("beecp_pool_log_print_enabled", "beecp pool log print flag(1:enabled).", vo -> toDouble(vo.isEnabledLogPrint())),
+            gauge("beecp_pool_method_log_cache_enabled", "beecp pool method execution log cache flag(1:enabled).", vo -> toDouble(vo.isEnabledMethodExecutionLogCache())));
+
+    //metrics on data source extensions(breaker,admission,lanes)
+    public static final List<PoolMetric<DataSourcePoolMonitorVo>> Ds_Extension_Metrics = List.of(
+            gauge("beecp_pool_acquisition_latency_ewma", "beecp pool ewma of acquisition latency.", DataSourcePoolMonitorVo::getAcquisitionLatencyEwma),
+            gauge("beecp_pool_acquisition_error_rate_ewma", "beecp pool ewma of acquisition error rate.", DataSourcePoolMonitorVo::getAcquisitionErrorRateEwma),
+            gauge("beecp_pool_circuit_state", "beecp pool circuit breaker state(0:closed,1:open,2:half open).", vo -> toCircuitState(vo.getCircuitState())),
+            counter("beecp_pool_circuit_transition", "beecp pool circuit breaker transition count.", DataSourcePoolMonitorVo::getCircuitTransitionCount),
+            counter("beecp_pool_circuit_rejected", "beecp pool circuit breaker rejected count.", DataSourcePoolMonitorVo::getCircuitRejectedCount),
+            gauge("beecp_pool_circuit_last_transition_time", "beecp pool circuit breaker last transition time(millis).", DataSourcePoolMonitorVo::getCircuitLastTransitionTime),
+            counter("beecp_pool_shed", "beecp pool count of shed borrows.", DataSourcePoolMonitorVo::getShedCount),
+            gauge("beecp_pool_borrowing_size", "beecp pool borrowing size.", DataSourcePoolMonitorVo::getBorrowingSize),
+            gauge("beecp_pool_low_lane_size", "beecp pool low priority lane size.", DataSourcePoolMonitorVo::getLowLaneSize),
+            gauge("beecp_pool_low_lane_borrowed_size", "beecp pool low priority lane borrowed size.", DataSourcePoolMonitorVo::getLowLaneBorrowedSize),
+            gauge("beecp_pool_high_lane_wait_ewma", "beecp pool ewma of high priority lane wait.", DataSourcePoolMonitorVo::getHighLaneWaitEwma),
+            gauge("beecp_pool_low_lane_wait_ewma", "beecp pool ewma of low priority lane wait.", DataSourcePoolMonitorVo::getLowLaneWaitEwma));
+
+    //metrics on object pools
+    public static final List<PoolMetric<BeeObjectPoolMonitorVo>> Os_Pool_Metrics = List.of(
+            gauge("beeop_pool_state", "beeop pool state.", BeeObjectPoolMonitorVo::getPoolState),
+            gauge("beeop_pool_key_size", "beeop pool key size.", BeeObjectPoolMonitorVo::getKeySize),
+            gauge("beeop_pool_max_size", "beeop pool max size.", BeeObjectPoolMonitorVo::getPoolMaxSize),
+            gauge("beeop_pool_idle_size", "beeop pool idle size.", BeeObjectPoolMonitorVo::getIdleSize),
+            gauge("beeop_pool_borrowed_size", "beeop pool borrowed size.", BeeObjectPoolMonitorVo::getBorrowedSize),
+            gauge("beeop_pool_creating_size", "beeop pool creating size.", BeeObjectPoolMonitorVo::getCreatingSize),
+            gauge("beeop_pool_creating_timeout_size", "beeop pool creating timeout size.", BeeObjectPoolMonitorVo::getCreatingTimeoutSize),
+            gauge("beeop_pool_semaphore_waiting_size", "beeop pool semaphore waiting size.", BeeObjectPoolMonitorVo::getSemaphoreWaitingSize),
+            gauge("beeop_pool_transfer_waiting_size", "beeop pool transfer waiting size.", BeeObjectPoolMonitorVo::getTransferWaitingSize),
+            gauge("beeop_pool_borrowing_size", "beeop pool borrowing size.", vo -> vo instanceof ObjectSourcePoolMonitorVo osVo ? osVo.getBorrowingSize() : 0),
+            counter("beeop_pool_shed", "beeop pool count of shed borrows.", vo -> vo instanceof ObjectSourcePoolMonitorVo osVo ? osVo.getShedCount() : 0));
+
+    //metrics on key sub pools of object pools
+    public static final List<PoolMetric<BeeObjectPoolMonitorVo>> Os_Key_Metrics = List.of(
+            gauge("beeop_key_max_size", "beeop key pool max size.", BeeObjectPoolMonitorVo::getPoolMaxSize),
+            gauge("beeop_key_idle_size", "beeop key pool idle size.", BeeObjectPoolMonitorVo::getIdleSize),
+            gauge("beeop_key_borrowed_size", "beeop key pool borrowed size.", BeeObjectPoolMonitorVo::getBorrowedSize),
+            gauge("beeop_key_creating_size", "beeop key pool creating size.", BeeObjectPoolMonitorVo::getCreatingSize),
+            gauge("beeop_key_creating_timeout_size", "beeop key pool creating timeout size.", BeeObjectPoolMonitorVo::getCreatingTimeoutSize),
+            gauge("beeop_key_semaphore_waiting_size", "beeop key pool semaphore waiting size.", BeeObjectPoolMonitorVo::getSemaphoreWaitingSize),
+            gauge("beeop_key_transfer_waiting_size", "beeop key pool transfer waiting size.", BeeObjectPoolMonitorVo::getTransferWaitingSize));
+
+    private final String name;
+    private final String sampleName;
+    private final String help;
+    private final boolean counter;
+    private final ToDoubleFunction<T> extractor;
+
+    private PoolMetric(String name, String help, boolean counter, ToDoubleFunction<T> extractor) {
+        this.name = name;
+        this.help = help;
+        this.counter = counter;
+        this.extractor = extractor;
+        //counter samples carry '_total' suffix in exposition format
+        this.sampleName = counter ? name + "_total" : name;
+    }
+
+    private static <T> PoolMetric<T> gauge(String name, String help, ToDoubleFunction<T> extractor) {
+        return new PoolMetric<>(name, help, false, extractor);
+    }
+
+    private static <T> PoolMetric<T> counter(String name, String help, ToDoubleFunction<T> extractor) {
+        return new PoolMetric<>(name, help, true, extractor);
+    }
+
+    private static double toDouble(boolean value) {
+        return value ? 1D : 0D;
+    }
+
+    private static double toCircuitState(String circuitState) {
+        return "OPEN".equals(circuitState) ? 1D : "HALF_OPEN".equals(circuitState) ? 2D : 0D;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSampleName() {
+        return sampleName;
+    }
+
+    public String getHelp() {
+        return help;
+    }
+
+    public boolean isCounter() {
+        return counter;
+    }
+
+    public double getValue(T vo) {
+        return extractor.applyAsDouble(vo);
+    }
+}
@@ -17,20 +17,46 @@ package org.stone.springboot.monitor.snapshot;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beecp.BeeMethodExecutionLog;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
 import org.stone.springboot.DataSourceBeanManager;
+import org.stone.springboot.DataSourcePoolMonitorVo;
 import org.stone.springboot.ObjectSourceBeanManager;
+import org.stone.springboot.ObjectSourcePoolMonitorVo;
 import org.stone.springboot.extension.CacheClient;
 import org.stone.springboot.extension.CacheClientProvider;
 import org.stone.springboot.extension.JackSonUtil;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
 /**
- * Timer task to write monitoring data to cache
+ * Timer task to write monitoring data to cache.
+ * <p>
+ * To save bandwidth and memory of cache,a full package is written to key {@code keyPrefix-appUrl} at first and on
+ * every {@code resyncCount} pushes;between them,only delta packages are written to keys
+ * {@code keyPrefix-appUrl:delta:<version>} with a time to live. A delta package carries changed pool properties and new
+ * sql logs since its base version,so a reader at version N applies delta of key {@code :delta:<N+1>},and reloads full
+ * package when that key is absent after a newer full package. Full packages carry pools in lists({@code dsPoolList},
+ * {@code osPoolList}) as before for existing readers,not in maps again;a reader keys list entries by ds id(os id) to
+ * apply pool maps of deltas,entries are same properties as values of these maps. A full package is also written
+ * after a failed push,because a delta of a lost package can't be applied. Versions start from start time of
+ * application,so they keep increasing across restarts and delta keys of a previous run are never taken as new ones.
  *
  * @author Chris Liao
  */
 public final class PoolSnapshotPushTask implements Runnable {
-    //prefix of cache key
-    private final String keyPrefix;
+    private static final DateTimeFormatter Time_Formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    //cache key of full package
+    private final String cacheKey;
+    //cache key prefix of delta packages,followed by version
+    private final String deltaCacheKeyPrefix;
+    //count of pushes between two full packages
+    private final int resyncCount;
+    //time to live of delta packages in cache(milliseconds)
+    private final long deltaTimeToLive;
     //monitoring data
     private final LocalSnapshotPackage snapshot;
     //cache client
@@ -38,13 +64,31 @@ public final class PoolSnapshotPushTask implements Runnable {
 
     private final DataSourceBeanManager dsManager;
 
-    private final ObjectSourceBeanManager osManager;
+    private final ObjectSourceBeanManager<?, ?> osManager;
 
     private final Logger logger = LoggerFactory.getLogger(PoolSnapshotPushTask.class);
 
+    //state of last pushed package,deltas are computed on it
+    private long version = System.currentTimeMillis();
+    private int deltaCount;
+    private boolean resyncRequired = true;
+    private Map<String, Map<String, Object>> lastDsPools = Collections.emptyMap();
+    private Map<String, Map<String, Object>> lastOsPools = Collections.emptyMap();
+    //logs are identified by instance,which are kept in log cache of pools until evicted
+    private Set<BeeMethodExecutionLog> lastLogs = Collections.emptySet();
+
     public PoolSnapshotPushTask(String keyPrefix, LocalSnapshotPackage snapshot, CacheClientProvider provider) {
+        this(keyPrefix, snapshot, provider, 6, 120000L);
+    }
 
-        this.keyPrefix = keyPrefix;
+    public PoolSnapshotPushTask(String keyPrefix, LocalSnapshotPackage snapshot, CacheClientProvider provider, int resyncCount,
+                                long deltaTimeToLive) {
+        if (resyncCount <= 0) throw new IllegalArgumentException("Resync count must be greater than zero");
+        if (deltaTimeToLive <= 0L) throw new IllegalArgumentException("Time to live of delta must be greater than zero");
+        this.cacheKey = keyPrefix + "-" + snapshot.getAppContextUrl();
+        this.deltaCacheKeyPrefix = cacheKey + ":delta:";
+        this.resyncCount = resyncCount;
+        this.deltaTimeToLive = deltaTimeToLive;
         this.snapshot = snapshot;
         this.provider = provider;
 
@@ -52,21 +96,126 @@ public final class PoolSnapshotPushTask implements Runnable {
         this.osManager = ObjectSourceBeanManager.getInstance();
     }
 
+    //***************************************************************************************************************//
+    //                                     1: push(1)                                                                //
+    //***************************************************************************************************************//
     public void run() {
         try {
-//            snapshot.setDsPoolList(dsManager.getAllDsPoolMonitorVos());
-//            snapshot.setDsSqlList(dsManager.getSqlExecutionLogList());
-//            snapshot.setOsPoolList(osManager.getOsPoolMonitorVoList());
-//            snapshot.setCacheTime(StatementJdbcUtil.formatDate(new Date()));
-
             CacheClient client = provider.get();
-            if (client != null) {
-                client.set(keyPrefix + "-" + snapshot.getAppContextUrl(), JackSonUtil.object2String(snapshot));
-            } else {
+            if (client == null) {
                 logger.warn("Redis client is null");
+                return;
             }
+
+            //1: read current pools and sql logs
+            Collection<BeeConnectionPoolMonitorVo> dsPoolList = dsManager.getAllDsPoolMonitorVos();
+            Collection<BeeObjectPoolMonitorVo> osPoolList = osManager.getOsPoolMonitorVoList();
+            Map<String, Map<String, Object>> dsPools = toDsPoolMap(dsPoolList);
+            Map<String, Map<String, Object>> osPools = toOsPoolMap(osPoolList);
+            Collection<BeeMethodExecutionLog> logs = dsManager.getAllDsSqlExecutionLogs();
+            Set<BeeMethodExecutionLog> logSet = Collections.newSetFromMap(new IdentityHashMap<>(logs.size()));
+            logSet.addAll(logs);
+
+            //2: fill package(full or delta)
+            boolean full = resyncRequired || deltaCount + 1 >= resyncCount;
+            snapshot.setVersion(version + 1L);
+            snapshot.setCacheTime(LocalDateTime.now().format(Time_Formatter));
+            if (full) {
+                snapshot.setBaseVersion(0L);
+                snapshot.setDsPools(null);
+                snapshot.setOsPools(null);
+                snapshot.setRemovedDsPools(null);
+                snapshot.setRemovedOsPools(null);
+                snapshot.setDsPoolList(dsPoolList);
+                snapshot.setOsPoolList(osPoolList);
+                snapshot.setDsSqlList(logs);
+            } else {
+                snapshot.setBaseVersion(version);
+                snapshot.setDsPools(diffPools(lastDsPools, dsPools));
+                snapshot.setOsPools(diffPools(lastOsPools, osPools));
+                snapshot.setRemovedDsPools(removedPools(lastDsPools, dsPools));
+                snapshot.setRemovedOsPools(removedPools(lastOsPools, osPools));
+                snapshot.setDsPoolList(null);
+                snapshot.setOsPoolList(null);
+                snapshot.setDsSqlList(newLogs(logs));
+            }
+
+            //3: write to cache,then keep state as base of next delta
+            String value = JackSonUtil.object2String(snapshot);
+            if (full)
+                client.set(cacheKey, value);
+            else
+                client.set(deltaCacheKeyPrefix + snapshot.getVersion(), value, deltaTimeToLive);
+            this.version++;
+            this.deltaCount = full ? 0 : deltaCount + 1;
+            this.resyncRequired = false;
+            this.lastDsPools = dsPools;
+            this.lastOsPools = osPools;
+            this.lastLogs = logSet;
         } catch (Exception e) {
+            this.resyncRequired = true;
             logger.error("Failed to write monitoring data to cache", e);
         }
     }
+
+    //***************************************************************************************************************//
+    //                                     2: delta computation(5)                                                   //
+    //***************************************************************************************************************//
+    private static Map<String, Map<String, Object>> toDsPoolMap(Collection<BeeConnectionPoolMonitorVo> voList) {
+        Map<String, Map<String, Object>> poolMap = new LinkedHashMap<>(voList.size());
+        for (BeeConnectionPoolMonitorVo vo : voList) {
+            String dsId = vo instanceof DataSourcePoolMonitorVo dsVo ? dsVo.getDsId() : vo.getPoolName();
+            poolMap.put(dsId, JackSonUtil.object2Map(vo));
+        }
+        return poolMap;
+    }
+
+    private static Map<String, Map<String, Object>> toOsPoolMap(Collection<BeeObjectPoolMonitorVo> voList) {
+        Map<String, Map<String, Object>> poolMap = new LinkedHashMap<>(voList.size());
+        for (BeeObjectPoolMonitorVo vo : voList) {
+            String osId = vo instanceof ObjectSourcePoolMonitorVo osVo ? osVo.getOsId() : vo.getPoolName();
+            poolMap.put(osId, JackSonUtil.object2Map(vo));
+        }
+        return poolMap;
+    }
+
+    //changed properties of pools,properties absent in current pool are put with null value
+    static Map<String, Map<String, Object>> diffPools(Map<String, Map<String, Object>> lastPools, Map<String, Map<String, Object>> pools) {
+        Map<String, Map<String, Object>> changedPools = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> entry : pools.entrySet()) {
+            Map<String, Object> lastProperties = lastPools.get(entry.getKey());
+            Map<String, Object> properties = entry.getValue();
+            if (lastProperties == null) {
+                changedPools.put(entry.getKey(), properties);
+                continue;
+            }
+
+            Map<String, Object> changedProperties = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                if (!Objects.equals(property.getValue(), lastProperties.get(property.getKey())))
+                    changedProperties.put(property.getKey(), property.getValue());
+            }
+            for (String name : lastProperties.keySet()) {
+                if (!properties.containsKey(name)) changedProperties.put(name, null);
+            }
+            if (!changedProperties.isEmpty()) changedPools.put(entry.getKey(), changedProperties);
+        }
+        return changedPools;
+    }
+
+    static Collection<String> removedPools(Map<String, Map<String, Object>> lastPools, Map<String, Map<String, Object>> pools) {
+        List<String> removedList = new ArrayList<>(0);
+        for (String poolId : lastPools.keySet()) {
+            if (!pools.containsKey(poolId)) removedList.add(poolId);
+        }
+        return removedList;
+    }
+
+    private Collection<BeeMethodExecutionLog> newLogs(Collection<BeeMethodExecutionLog> logs) {
+        List<BeeMethodExecutionLog> newList = new ArrayList<>();
+        for (BeeMethodExecutionLog log : logs) {
+            if (!lastLogs.contains(log)) newList.add(log);
+        }
+        return newList;
+    }
 }
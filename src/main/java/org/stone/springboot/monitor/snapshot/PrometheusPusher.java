@@ -9,20 +9,230 @@
  */
 package org.stone.springboot.monitor.snapshot;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.stone.springboot.DataSourceBeanManager;
+import org.stone.springboot.ObjectSourceBeanManager;
+import org.stone.springboot.monitor.PoolMetricsWriter;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.stone.tools.CommonUtil.isBlank;
+
 /**
- * pusher implementation for Prometheus gateway server
+ * pusher implementation for Prometheus gateway server,snapshot is encoded in prometheus text format and put to
+ * url '{gateway}/metrics/job/{job}/instance/{instance}',so pushed metrics of an app instance replace its previous ones.
+ * Pushes are sent asynchronously and retried on io failure,5xx and 429 responses with exponential backoff and
+ * jitter;a retry is abandoned if a newer push has been started. Final push of current pools is sent on closing,so
+ * metrics of a short-lived worker stay in gateway until scraped;pushed group is deleted instead if delete on close
+ * is enabled.
  *
  * @author Chris Liao
  */
-public class PrometheusPusher implements PoolSnapshotPusher {
+public class PrometheusPusher implements PoolSnapshotPusher, Runnable, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PrometheusPusher.class);
+    private static final String Content_Type = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final URI pushUri;
+    private final Duration timeout;
+    private final int maxRetries;
+    private final long backoff;
+    private final long maxBackoff;
+    private final HttpClient client;
+    private final LocalSnapshotPackage snapshot;
+    private final PoolMetricsWriter writer = new PoolMetricsWriter();
+    //sequence of pushes,retries of an old push are abandoned
+    private final AtomicLong pushSeq = new AtomicLong();
+
+    private volatile boolean closed;
+    //delete pushed group from gateway on closing instead of final push
+    private volatile boolean deleteOnClose;
+    private volatile CompletableFuture<Boolean> lastPush = CompletableFuture.completedFuture(Boolean.TRUE);
+
+    public PrometheusPusher(String gatewayUrl, String job, String instance, LocalSnapshotPackage snapshot) {
+        this(gatewayUrl, job, instance, snapshot, 5000L, 3, 500L, 10000L);
+    }
+
+    /**
+     * Creates a pusher to a Pushgateway.
+     *
+     * @param gatewayUrl base url of Pushgateway,such as 'http://localhost:9091'
+     * @param job        value of job grouping key
+     * @param instance   value of instance grouping key
+     * @param snapshot   package filled with pool monitor vos on each scheduled run
+     * @param timeout    timeout(milliseconds) of connecting and of each request
+     * @param maxRetries max retries of a failed push
+     * @param backoff    base delay(milliseconds) of first retry,doubled on each retry
+     * @param maxBackoff max delay(milliseconds) of retries
+     */
+    public PrometheusPusher(String gatewayUrl, String job, String instance, LocalSnapshotPackage snapshot,
+                            long timeout, int maxRetries, long backoff, long maxBackoff) {
+        if (isBlank(gatewayUrl)) throw new IllegalArgumentException("Push gateway url can't be null or empty");
+        if (isBlank(job)) throw new IllegalArgumentException("Push job can't be null or empty");
+        if (isBlank(instance)) throw new IllegalArgumentException("Push instance can't be null or empty");
+        if (timeout <= 0L) throw new IllegalArgumentException("Push timeout must be greater than zero");
+        if (maxRetries < 0) throw new IllegalArgumentException("Push max retries can't be less than zero");
+        if (backoff <= 0L || maxBackoff < backoff)
+            throw new IllegalArgumentException("Push backoff must be greater than zero and not greater than max backoff");
+
+        String baseUrl = gatewayUrl.trim();
+        if (baseUrl.endsWith("/")) baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        this.pushUri = URI.create(baseUrl + "/metrics/" + groupingSegment("job", job.trim()) + "/" + groupingSegment("instance", instance.trim()));
+        this.timeout = Duration.ofMillis(timeout);
+        this.maxRetries = maxRetries;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.snapshot = snapshot;
+        this.client = HttpClient.newBuilder().connectTimeout(this.timeout).build();
+    }
+
+    //values containing '/' are encoded in base64 form,which is supported by Pushgateway
+    private static String groupingSegment(String name, String value) {
+        if (value.indexOf('/') >= 0)
+            return name + "@base64/" + Base64.getUrlEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        return name + "/" + URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    public URI getPushUri() {
+        return pushUri;
+    }
+
+    public boolean isDeleteOnClose() {
+        return deleteOnClose;
+    }
+
+    public void setDeleteOnClose(boolean deleteOnClose) {
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    //***************************************************************************************************************//
+    //                                     1: push(3)                                                                //
+    //***************************************************************************************************************//
+    //scheduled run:fill snapshot with current pool monitor vos,then push it
+    public void run() {
+        if (closed) return;
+        try {
+            push(fillSnapshot());
+        } catch (Throwable e) {
+            log.warn("Failed to push pool snapshot to {}", pushUri, e);
+        }
+    }
 
     /**
-     * push snapshot of pools to Prometheus
+     * push snapshot of pools to Prometheus,snapshot is encoded on calling thread and sent asynchronously
      *
      * @param snapshot is runtime monitor object
      * @throws Exception when push fail
      */
     public void push(LocalSnapshotPackage snapshot) throws Exception {
+        this.lastPush = send(encode(snapshot), maxRetries);
+    }
+
+    /**
+     * Abandons retries of pushes and waits last push in request timeout,then sends a final push of current pools
+     * without retry(skipped if pools have been closed,so last pushed metrics are kept);if delete on close is enabled,
+     * pushed group is deleted from gateway instead.
+     */
+    public void close() {
+        if (closed) return;
+        this.closed = true;
+        long seq = pushSeq.incrementAndGet();
+        try {
+            lastPush.get(timeout.toMillis() + 1000L, MILLISECONDS);
+        } catch (Throwable e) {
+            //last push failed or is waiting for an abandoned retry
+        }
+        try {
+            HttpRequest request;
+            if (deleteOnClose) {
+                request = HttpRequest.newBuilder(pushUri).timeout(timeout).DELETE().build();
+            } else {
+                LocalSnapshotPackage snapshot = fillSnapshot();
+                if (isEmpty(snapshot.getDsPoolList()) && isEmpty(snapshot.getOsPoolList())) return;
+                request = putRequest(encode(snapshot));
+            }
+            send(request, seq, 0, 0).get(timeout.toMillis() + 1000L, MILLISECONDS);
+        } catch (Throwable e) {
+            log.warn("Failed to send final request to {}", pushUri, e);
+        }
+    }
+
+    private static boolean isEmpty(Collection<?> vos) {
+        return vos == null || vos.isEmpty();
+    }
+
+    //***************************************************************************************************************//
+    //                                     2: encoding and sending(5)                                                //
+    //***************************************************************************************************************//
+    //fills snapshot with monitor vos of registered pools
+    protected LocalSnapshotPackage fillSnapshot() throws Exception {
+        snapshot.setDsPoolList(DataSourceBeanManager.getInstance().getAllDsPoolMonitorVos());
+        snapshot.setOsPoolList(ObjectSourceBeanManager.getInstance().getOsPoolMonitorVoList());
+        return snapshot;
+    }
+
+    //vos in snapshot are refreshed by other threads,so they are encoded before asynchronous sending
+    private synchronized byte[] encode(LocalSnapshotPackage snapshot) {
+        try {
+            writer.write(snapshot.getDsPoolList() != null ? snapshot.getDsPoolList() : Collections.emptyList(),
+                    snapshot.getOsPoolList() != null ? snapshot.getOsPoolList() : Collections.emptyList(), false);
+            return writer.toByteArray();
+        } finally {
+            writer.reset();
+        }
+    }
+
+    private CompletableFuture<Boolean> send(byte[] body, int retries) {
+        return send(putRequest(body), pushSeq.incrementAndGet(), 0, retries);
+    }
+
+    private HttpRequest putRequest(byte[] body) {
+        return HttpRequest.newBuilder(pushUri)
+                .timeout(timeout)
+                .header("Content-Type", Content_Type)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private CompletableFuture<Boolean> send(HttpRequest request, long seq, int attempt, int retries) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, e) -> {
+            if (e == null && response.statusCode() / 100 == 2) return CompletableFuture.completedFuture(Boolean.TRUE);
+
+            //4xx(except 429) means a bad push,which is not retried
+            String failure = e != null ? e.toString() : "status " + response.statusCode();
+            boolean retryable = e != null || response.statusCode() >= 500 || response.statusCode() == 429;
+            if (!retryable || attempt >= retries || seq != pushSeq.get()) {
+                log.warn("Failed to {} pool metrics at {} after {} attempts,cause:{}", request.method(), pushUri, attempt + 1, failure);
+                return CompletableFuture.completedFuture(Boolean.FALSE);
+            }
+
+            long delay = backoffDelay(attempt);
+            log.debug("Retry push to {} in {}ms,cause:{}", pushUri, delay, failure);
+            return CompletableFuture.runAsync(() -> {
+            }, CompletableFuture.delayedExecutor(delay, MILLISECONDS)).thenCompose(v -> seq != pushSeq.get() ?
+                    CompletableFuture.completedFuture(Boolean.FALSE) : send(request, seq, attempt + 1, retries));
+        }).thenCompose(Function.identity());
+    }
 
+    //exponential backoff with equal jitter:a random delay in [ceiling/2,ceiling]
+    private long backoffDelay(int attempt) {
+        long ceiling = Math.min(maxBackoff, backoff << Math.min(attempt, 30));
+        if (ceiling <= 0L) ceiling = maxBackoff;
+        long half = ceiling >>> 1;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1L);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+/**
+ * Routing context on {@code ScopedValue}(JDK 25+),a routing target is bound to a call and inherited by
+ * child tasks forked in a structured task scope,no thread local map is used on virtual threads.
+ *
+ * @author Chris Liao
+ */
+final class ScopedValueRoutingContext<T> extends RoutingContext<T> {
+    private final ScopedValue<T> scopedTarget = ScopedValue.newInstance();
+
+    public T get() {
+        return scopedTarget.isBound() ? scopedTarget.get() : null;
+    }
+
+    public Object call(T target, RoutingCall call) throws Throwable {
+        return ScopedValue.where(scopedTarget, target).call(call::call);//nested binding restores outer target on exit
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class AcquisitionStatisticsTest {
+
+    @Test
+    public void testMovingAverage() {
+        AcquisitionStatistics statistics = new AcquisitionStatistics();
+        statistics.failure(TimeUnit.MILLISECONDS.toNanos(100L));
+        Assertions.assertEquals(20D, statistics.getLatency(), 0.1D);
+        Assertions.assertEquals(0.2D, statistics.getErrorRate(), 0.001D);
+
+        statistics.success(TimeUnit.MILLISECONDS.toNanos(100L));
+        Assertions.assertEquals(36D, statistics.getLatency(), 0.1D);
+        Assertions.assertEquals(0.16D, statistics.getErrorRate(), 0.001D);
+    }
+
+    @Test
+    public void testDecayWithoutSamples() throws Exception {
+        AcquisitionStatistics statistics = new AcquisitionStatistics(TimeUnit.MILLISECONDS.toNanos(50L));
+        statistics.failure(TimeUnit.MILLISECONDS.toNanos(100L));
+        Thread.sleep(300L);
+
+        //decayed to less than exp(-6) of last values
+        Assertions.assertTrue(statistics.getLatency() < 0.1D);
+        Assertions.assertTrue(statistics.getErrorRate() < 0.001D);
+
+        //new sample is weighted on decayed average
+        statistics.success(TimeUnit.MILLISECONDS.toNanos(10L));
+        Assertions.assertEquals(2D, statistics.getLatency(), 0.1D);
+    }
+}
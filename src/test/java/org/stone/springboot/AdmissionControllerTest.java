@@ -0,0 +1,77 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void testShedOnMaxWaiters() {
+        AdmissionController admission = new AdmissionController(2, 0L);
+        Assertions.assertTrue(admission.tryEnter(0D, load(0, 10)));
+        Assertions.assertTrue(admission.tryEnter(0D, load(0, 10)));
+        Assertions.assertFalse(admission.tryEnter(0D, load(0, 10)));
+        Assertions.assertEquals(2, admission.getBorrowingSize());
+        Assertions.assertEquals(1L, admission.getShedCount());
+
+        admission.exit();
+        Assertions.assertTrue(admission.tryEnter(0D, load(0, 10)));
+    }
+
+    @Test
+    public void testAdmitSingleBorrower() {
+        AdmissionController admission = new AdmissionController(0, 10L);
+        Assertions.assertTrue(admission.tryEnter(1000D, load(100, 1)));//no other borrowers ahead
+    }
+
+    @Test
+    public void testPredictWaitByWaitersAndMaxSize() {
+        AdmissionController admission = new AdmissionController(0, 100L);
+        Assertions.assertTrue(admission.tryEnter(50D, load(0, 10)));
+        //one borrower ahead,50*1/10=5ms
+        Assertions.assertTrue(admission.tryEnter(50D, load(0, 10)));
+        //pool waiters counted,50*30/10=150ms
+        Assertions.assertFalse(admission.tryEnter(50D, load(30, 10)));
+        //same average wait is admitted with a larger pool,50*30/20=75ms
+        Assertions.assertTrue(admission.tryEnter(50D, load(30, 20)));
+        Assertions.assertEquals(1L, admission.getShedCount());
+    }
+
+    @Test
+    public void testShedOnStall() throws Exception {
+        AdmissionController admission = new AdmissionController(0, 50L);
+        Assertions.assertTrue(admission.tryEnter(0.01D, load(0, 10)));
+        Thread.sleep(100L);//first borrower stalls in pool,average wait stays low
+        Assertions.assertFalse(admission.tryEnter(0.01D, load(0, 10)));
+
+        admission.exit();//stalled borrow completed
+        Assertions.assertTrue(admission.tryEnter(0.01D, load(0, 10)));
+        Assertions.assertTrue(admission.tryEnter(0.01D, load(0, 10)));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdmissionController(-1, 0L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdmissionController(0, -1L));
+    }
+
+    private static AdmissionController.PoolLoad load(int waitingSize, int maxSize) {
+        AdmissionController.LoadSample sample = new AdmissionController.LoadSample(waitingSize, maxSize);
+        return () -> sample;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stone.springboot.exception.BulkheadRejectedException;
+
+public class BulkheadTest {
+
+    @Test
+    public void testEnterAndExit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("group1", 2, 0, 0L);
+        bulkhead.enter();
+        bulkhead.enter();//each enter takes a permit,nested calls are passed by dynamic aspect
+        Assertions.assertEquals(2, bulkhead.getActiveSize());
+        Assertions.assertThrows(BulkheadRejectedException.class, bulkhead::enter);
+
+        bulkhead.exit();
+        Assertions.assertEquals(1, bulkhead.getActiveSize());
+        bulkhead.exit();
+        Assertions.assertEquals(0, bulkhead.getActiveSize());
+    }
+
+    @Test
+    public void testRejectOtherThread() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("group1", 1, 1, 50L);
+        bulkhead.enter();
+
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(() -> {
+            try {
+                bulkhead.enter();
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        });
+        thread.start();
+        thread.join();
+        Assertions.assertTrue(failure[0] instanceof BulkheadRejectedException);
+        Assertions.assertEquals(1L, bulkhead.getRejectedCount());
+        bulkhead.exit();
+    }
+
+    @Test
+    public void testHasLimits() {
+        Bulkhead bulkhead = new Bulkhead("group1", 2, 4, 100L);
+        Assertions.assertTrue(bulkhead.hasLimits(2, 4, 100L));
+        Assertions.assertFalse(bulkhead.hasLimits(2, 4, 0L));
+    }
+}
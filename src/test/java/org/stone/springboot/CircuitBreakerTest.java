@@ -0,0 +1,115 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpenOnFailureRate() {
+        CircuitBreaker breaker = new CircuitBreaker("ds1", 0.5D, 4, 60000L, 60000L, 2);
+        breaker.onSuccess();
+        breaker.onFailure(false);
+        breaker.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State_Closed, breaker.getState());//calls less than minimum
+
+        breaker.onFailure(false);
+        Assertions.assertEquals(CircuitBreaker.State_Open, breaker.getState());
+        Assertions.assertFalse(breaker.tryAcquire());
+        Assertions.assertEquals(1L, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testOpenOnCreationTimeout() {
+        CircuitBreaker breaker = new CircuitBreaker("ds1", 0.5D, 10, 60000L, 60000L, 2);
+        breaker.onFailure(true);
+        Assertions.assertEquals(CircuitBreaker.State_Open, breaker.getState());
+        Assertions.assertEquals(1L, breaker.getTransitionCount());
+    }
+
+    @Test
+    public void testCountsResetOnWindowRollover() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("ds1", 0.5D, 2, 50L, 60000L, 2);
+        breaker.onFailure(false);
+        Thread.sleep(100L);
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure(false);
+        Assertions.assertEquals(CircuitBreaker.State_Closed, breaker.getState());//one failure of three calls in new window
+    }
+
+    @Test
+    public void testProbesLimitedInHalfOpen() throws Exception {
+        CircuitBreaker breaker = openedBreaker(2);
+        Assertions.assertTrue(breaker.tryAcquire());
+        Assertions.assertEquals(CircuitBreaker.State_Half_Open, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquire());
+        for (int i = 0; i < 3; i++)
+            Assertions.assertFalse(breaker.tryAcquire());
+
+        //breaker is closed after all probes succeed
+        breaker.onSuccess();
+        breaker.onSuccess();
+        Assertions.assertEquals(CircuitBreaker.State_Closed, breaker.getState());
+        Assertions.assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testReopenOnProbeFailure() throws Exception {
+        CircuitBreaker breaker = openedBreaker(2);
+        Assertions.assertTrue(breaker.tryAcquire());
+        breaker.onFailure(false);
+        Assertions.assertEquals(CircuitBreaker.State_Open, breaker.getState());
+        Assertions.assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testConcurrentProbes() throws Exception {
+        CircuitBreaker breaker = openedBreaker(3);
+        AtomicInteger permitted = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++)
+                    if (breaker.tryAcquire()) permitted.incrementAndGet();
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        Assertions.assertEquals(3, permitted.get());
+        Assertions.assertEquals(797L, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("ds1", 0D, 1, 1L, 1L, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("ds1", 0.5D, 0, 1L, 1L, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("ds1", 0.5D, 1, 1L, 1L, 0));
+    }
+
+    private static CircuitBreaker openedBreaker(int probeSize) throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("ds1", 0.5D, 1, 60000L, 50L, probeSize);
+        breaker.onFailure(true);
+        Thread.sleep(100L);
+        return breaker;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+
+public class PriorityLanesTest {
+
+    //a connection closed by pool when flag set,as a connection closed through its statement
+    private static Connection createConnection(boolean[] closed) {
+        return (Connection) Proxy.newProxyInstance(PriorityLanesTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("isClosed".equals(method.getName())) return closed[0];
+                    if ("close".equals(method.getName())) closed[0] = true;
+                    if ("equals".equals(method.getName())) return proxy == args[0];
+                    if ("hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+                    return null;
+                });
+    }
+
+    private static Connection borrowAtLowPriority(PriorityLanes lanes, Connection con) throws Throwable {
+        return (Connection) BorrowPriority.callAtLowPriority(() -> lanes.borrow(() -> con));
+    }
+
+    @Test
+    public void testConnectionNotWrapped() throws Throwable {
+        PriorityLanes lanes = new PriorityLanes("ds1", 1, 50L, () -> false);
+        Connection con = createConnection(new boolean[1]);
+        Assertions.assertSame(con, borrowAtLowPriority(lanes, con));
+        Assertions.assertEquals(1, lanes.getLowLaneBorrowedSize());
+    }
+
+    @Test
+    public void testPermitHeldUntilClosed() throws Throwable {
+        PriorityLanes lanes = new PriorityLanes("ds1", 1, 50L, () -> false);
+        boolean[] closed = new boolean[1];
+        borrowAtLowPriority(lanes, createConnection(closed));
+        Assertions.assertThrows(SQLTimeoutException.class, () -> borrowAtLowPriority(lanes, createConnection(new boolean[1])));
+
+        closed[0] = true;//closed without calling close() on borrowed connection
+        Assertions.assertEquals(0, lanes.getLowLaneBorrowedSize());
+        Assertions.assertNotNull(borrowAtLowPriority(lanes, createConnection(new boolean[1])));
+    }
+
+    @Test
+    public void testWaitingBorrowerReclaimsPermit() throws Throwable {
+        PriorityLanes lanes = new PriorityLanes("ds1", 1, 2000L, () -> false);
+        boolean[] closed = new boolean[1];
+        Connection con = borrowAtLowPriority(lanes, createConnection(closed));
+
+        Thread closeThread = new Thread(() -> {
+            try {
+                Thread.sleep(100L);
+                con.close();
+            } catch (Exception e) {
+                //do nothing
+            }
+        });
+        closeThread.start();
+        Assertions.assertNotNull(borrowAtLowPriority(lanes, createConnection(new boolean[1])));
+        closeThread.join();
+    }
+}
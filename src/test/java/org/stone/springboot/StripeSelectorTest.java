@@ -0,0 +1,69 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class StripeSelectorTest {
+
+    @Test
+    public void testSkipExhaustedStripe() {
+        int[] availableSizes = {0, 5, 5};
+        StripeSelector selector = new StripeSelector(3, index -> availableSizes[index]);
+        for (int i = 0; i < 50; i++)
+            Assertions.assertNotEquals(0, selector.select());
+    }
+
+    @Test
+    public void testSkipStripeWithBorrowers() {
+        StripeSelector selector = new StripeSelector(2, index -> 5);
+        selector.beginBorrow(0);
+        for (int i = 0; i < 50; i++)
+            Assertions.assertEquals(1, selector.select());
+        selector.endBorrow(0, true);
+    }
+
+    @Test
+    public void testAllExhausted() {
+        StripeSelector selector = new StripeSelector(2, index -> 0);
+        selector.beginBorrow(1);
+        for (int i = 0; i < 50; i++)
+            Assertions.assertEquals(0, selector.select());//stripe without borrowers
+        selector.endBorrow(1, false);
+    }
+
+    @Test
+    public void testBorrowsCountedBetweenSamples() {
+        int[] sampledCount = new int[2];
+        StripeSelector selector = new StripeSelector(2, index -> {
+            sampledCount[index]++;
+            return 1;
+        }, TimeUnit.HOURS.toNanos(1L));
+        selector.beginBorrow(1);
+        Assertions.assertEquals(0, selector.select());
+        selector.beginBorrow(0);
+        selector.endBorrow(0, true);//last available one of stripe 0 is borrowed
+        selector.endBorrow(1, false);
+
+        for (int i = 0; i < 50; i++)
+            Assertions.assertEquals(1, selector.select());
+        Assertions.assertEquals(1, sampledCount[0]);//sampled once in interval
+        Assertions.assertEquals(1, sampledCount[1]);
+    }
+}
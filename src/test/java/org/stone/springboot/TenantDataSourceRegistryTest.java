@@ -0,0 +1,153 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stone.springboot.exception.DataSourceException;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TenantDataSourceRegistryTest {
+
+    private static TenantDataSourceRegistry createRegistry(MockStore store, int maxOpenSize) {
+        Map<String, String> template = new HashMap<>();
+        template.put("jdbcUrl", "jdbc:test://localhost/{tenant}");
+        template.put("maxActive", "5");
+        return new TenantDataSourceRegistry("tenant", template,
+                tenantId -> tenantId.equals("t9") ? Collections.singletonMap("maxActive", "10") : null,
+                maxOpenSize, 0L, store);
+    }
+
+    @Test
+    public void testSingleFlightCreation() throws Exception {
+        MockStore store = new MockStore();
+        store.createLatch = new CountDownLatch(1);
+        TenantDataSourceRegistry registry = createRegistry(store, 10);
+
+        int threadSize = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadSize);
+        try {
+            List<Future<DataSourceBean>> futureList = new ArrayList<>(threadSize);
+            for (int i = 0; i < threadSize; i++)
+                futureList.add(executor.submit(() -> registry.getDataSource("t1")));
+            Thread.sleep(100L);
+            store.createLatch.countDown();
+
+            DataSourceBean ds = futureList.get(0).get(5L, TimeUnit.SECONDS);
+            for (Future<DataSourceBean> future : futureList)
+                Assertions.assertSame(ds, future.get(5L, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(List.of("tenant_t1"), store.addedIds);
+        Assertions.assertEquals(1L, registry.getMissCount());
+        Assertions.assertEquals(threadSize - 1, registry.getHitCount());
+        Assertions.assertEquals(1, registry.getOpenSize());
+    }
+
+    @Test
+    public void testLruEviction() throws Exception {
+        MockStore store = new MockStore();
+        TenantDataSourceRegistry registry = createRegistry(store, 2);
+        registry.getDataSource("t1");
+        Thread.sleep(2L);
+        registry.getDataSource("t2");
+        Thread.sleep(2L);
+        registry.getDataSource("t1");//t2 is least recently used
+        Thread.sleep(2L);
+        registry.getDataSource("t3");
+
+        Assertions.assertEquals(List.of("tenant_t2"), store.removedIds);
+        Assertions.assertEquals(2, registry.getOpenSize());
+        Assertions.assertEquals(1L, registry.getEvictionCount());
+        Assertions.assertEquals(3L, registry.getMissCount());
+        Assertions.assertEquals(1L, registry.getHitCount());
+
+        registry.getDataSource("t2");//created again
+        Assertions.assertEquals(4L, registry.getMissCount());
+        Assertions.assertEquals(List.of("tenant_t2", "tenant_t1"), store.removedIds);
+    }
+
+    @Test
+    public void testEvictAndClose() throws Exception {
+        MockStore store = new MockStore();
+        TenantDataSourceRegistry registry = createRegistry(store, 10);
+        registry.getDataSource("t1");
+        registry.getDataSource("t2");
+
+        Assertions.assertTrue(registry.evict("t1"));
+        Assertions.assertFalse(registry.evict("t1"));
+        registry.close();
+        Assertions.assertEquals(List.of("tenant_t1", "tenant_t2"), store.removedIds);
+        Assertions.assertEquals(0, registry.getOpenSize());
+        Assertions.assertEquals(2L, registry.getEvictionCount());
+    }
+
+    @Test
+    public void testFailedCreationNotCached() throws Exception {
+        MockStore store = new MockStore();
+        store.failure = new SQLException("Database unreachable");
+        TenantDataSourceRegistry registry = createRegistry(store, 10);
+        Assertions.assertThrows(SQLException.class, () -> registry.getDataSource("t1"));
+        Assertions.assertEquals(0, registry.getOpenSize());
+
+        store.failure = null;
+        Assertions.assertNotNull(registry.getDataSource("t1"));
+        Assertions.assertEquals(2L, registry.getMissCount());
+    }
+
+    @Test
+    public void testTenantProperties() throws Exception {
+        MockStore store = new MockStore();
+        TenantDataSourceRegistry registry = createRegistry(store, 10);
+        registry.getDataSource("t9");
+
+        Map<String, String> properties = store.addedProperties.get(0);
+        Assertions.assertEquals("jdbc:test://localhost/t9", properties.get("jdbcUrl"));
+        Assertions.assertEquals("10", properties.get("maxActive"));
+        Assertions.assertThrows(DataSourceException.class, () -> registry.getDataSource("t/1"));
+    }
+
+    private static final class MockStore implements TenantDataSourceRegistry.TenantDataSourceStore {
+        private final List<String> addedIds = new CopyOnWriteArrayList<>();
+        private final List<Map<String, String>> addedProperties = new CopyOnWriteArrayList<>();
+        private final List<String> removedIds = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch createLatch;
+        private volatile SQLException failure;
+
+        public DataSourceBean add(String dsId, Map<String, String> properties) throws SQLException {
+            addedIds.add(dsId);
+            addedProperties.add(properties);
+            if (failure != null) throw failure;
+            if (createLatch != null) {
+                try {
+                    createLatch.await();
+                } catch (InterruptedException e) {
+                    throw new SQLException(e);
+                }
+            }
+            return new DataSourceBean(dsId, false, false, null);
+        }
+
+        public void remove(String dsId, long drainTimeout) {
+            removedIds.add(dsId);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stone.springboot.DataSourceBean;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConsistentHashRingTest {
+    private static final int Key_Size = 30000;
+
+    private static DataSourceBean[] shards(String... dsIds) {
+        DataSourceBean[] shards = new DataSourceBean[dsIds.length];
+        for (int i = 0; i < dsIds.length; i++)
+            shards[i] = new DataSourceBean(dsIds[i], false, false, null);
+        return shards;
+    }
+
+    @Test
+    public void testStableMapping() {
+        DataSourceBean[] shards = shards("ds1", "ds2", "ds3");
+        ConsistentHashRing ring1 = new ConsistentHashRing(shards, 100);
+        ConsistentHashRing ring2 = new ConsistentHashRing(shards, 100);
+        for (int i = 0; i < Key_Size; i++)
+            Assertions.assertSame(ring1.get("key" + i), ring2.get("key" + i));
+    }
+
+    @Test
+    public void testBalancedDistribution() {
+        ConsistentHashRing ring = new ConsistentHashRing(shards("ds1", "ds2", "ds3"), 160);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < Key_Size; i++)
+            counts.merge(ring.get(i).getDsId(), 1, Integer::sum);
+
+        Assertions.assertEquals(3, counts.size());
+        for (int count : counts.values())
+            Assertions.assertTrue(count > Key_Size / 5 && count < Key_Size / 2, "Unbalanced shard count:" + count);
+    }
+
+    @Test
+    public void testAddShardRemapsToNewShardOnly() {
+        ConsistentHashRing ring = new ConsistentHashRing(shards("ds1", "ds2", "ds3"), 160);
+        DataSourceBean ds4 = shards("ds4")[0];
+        ConsistentHashRing newRing = ring.add(ds4);
+        Assertions.assertEquals(4, newRing.getShards().length);
+        Assertions.assertEquals(3, ring.getShards().length);//old ring is not changed
+
+        int movedSize = 0;
+        for (int i = 0; i < Key_Size; i++) {
+            DataSourceBean oldOwner = ring.get(i);
+            DataSourceBean newOwner = newRing.get(i);
+            if (oldOwner != newOwner) {
+                Assertions.assertSame(ds4, newOwner);
+                movedSize++;
+            }
+        }
+        Assertions.assertTrue(movedSize > Key_Size / 10 && movedSize < Key_Size * 2 / 5, "Moved keys:" + movedSize);
+    }
+
+    @Test
+    public void testRemoveShardRemapsItsKeysOnly() {
+        ConsistentHashRing ring = new ConsistentHashRing(shards("ds1", "ds2", "ds3"), 160);
+        ConsistentHashRing newRing = ring.remove("ds2");
+        Assertions.assertEquals(2, newRing.getShards().length);
+
+        for (int i = 0; i < Key_Size; i++) {
+            DataSourceBean oldOwner = ring.get(i);
+            DataSourceBean newOwner = newRing.get(i);
+            Assertions.assertNotEquals("ds2", newOwner.getDsId());
+            if (!"ds2".equals(oldOwner.getDsId())) Assertions.assertSame(oldOwner, newOwner);
+        }
+    }
+
+    @Test
+    public void testInvalidShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(shards("ds1", "ds2"), 10);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ring.add(shards("ds1")[0]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ring.remove("ds3"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ring.remove("ds1").remove("ds2"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(new DataSourceBean[0], 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(shards("ds1"), 0));
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.dynamic;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stone.springboot.DataSourceBean;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class LeastBorrowedSelectorTest {
+
+    @Test
+    public void testTiesSpread() {
+        DataSourceBean[] group = new DataSourceBean[3];
+        for (int i = 0; i < group.length; i++)//no pool monitor,treated as idle
+            group[i] = new DataSourceBean("ds" + i, false, false, null);
+
+        LeastBorrowedSelector selector = new LeastBorrowedSelector();
+        Set<DataSourceBean> selectedSet = new HashSet<>();
+        for (int i = 0; i < 300; i++)
+            selectedSet.add(selector.select(group));
+        Assertions.assertEquals(group.length, selectedSet.size());
+    }
+}
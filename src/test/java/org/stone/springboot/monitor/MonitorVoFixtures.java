@@ -0,0 +1,39 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor;
+
+import java.lang.reflect.Proxy;
+
+//monitor vo fixtures shared by tests of metrics writer and pusher
+public final class MonitorVoFixtures {
+
+    private MonitorVoFixtures() {
+    }
+
+    //monitor vo returning given name on string getters(except "fair" mode),ready state and given value on all number getters
+    public static <T> T vo(Class<T> voType, String poolName, int value) {
+        return voType.cast(Proxy.newProxyInstance(MonitorVoFixtures.class.getClassLoader(), new Class<?>[]{voType},
+                (proxy, method, args) -> {
+                    Class<?> type = method.getReturnType();
+                    if (type == String.class) return method.getName().equals("getPoolMode") ? "fair" : poolName;
+                    if (type == boolean.class) return method.getName().equals("isReady");
+                    if (type == int.class) return value;
+                    if (type == long.class) return (long) value;
+                    if (type == double.class) return (double) value;
+                    return null;
+                }));
+    }
+}
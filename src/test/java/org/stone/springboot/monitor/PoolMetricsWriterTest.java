@@ -0,0 +1,87 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+import org.stone.beeop.BeeObjectPoolMonitorVo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.stone.springboot.monitor.MonitorVoFixtures.vo;
+
+public class PoolMetricsWriterTest {
+
+    private static String write(List<BeeConnectionPoolMonitorVo> dsVoList, List<BeeObjectPoolMonitorVo> osVoList, boolean openMetrics) {
+        PoolMetricsWriter writer = new PoolMetricsWriter();
+        writer.write(dsVoList, osVoList, openMetrics);
+        Assertions.assertEquals(writer.size(), writer.toByteArray().length);
+        return new String(writer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPrometheusText() {
+        String text = write(List.of(vo(BeeConnectionPoolMonitorVo.class, "pool1", 10)), Collections.emptyList(), false);
+
+        Assertions.assertTrue(text.startsWith("# HELP beecp_pool_closed beecp pool closed flag(1:closed).\n# TYPE beecp_pool_closed gauge\n" +
+                "beecp_pool_closed{ds_id=\"pool1\",pool_name=\"pool1\",pool_mode=\"fair\"} 0\n"));
+        Assertions.assertTrue(text.contains("beecp_pool_ready{ds_id=\"pool1\",pool_name=\"pool1\",pool_mode=\"fair\"} 1\n"));
+        Assertions.assertTrue(text.contains("# TYPE beecp_pool_max_size gauge\nbeecp_pool_max_size{ds_id=\"pool1\",pool_name=\"pool1\",pool_mode=\"fair\"} 10\n"));
+        //family name of counter is same to its sample name in prometheus text
+        Assertions.assertTrue(text.contains("# HELP beecp_pool_shed_total beecp pool count of shed borrows.\n# TYPE beecp_pool_shed_total counter\n"));
+        Assertions.assertFalse(text.contains("# EOF"));
+        Assertions.assertTrue(text.endsWith("\n"));
+    }
+
+    @Test
+    public void testOpenMetricsText() {
+        String text = write(Collections.emptyList(), List.of(vo(BeeObjectPoolMonitorVo.class, "pool2", 3)), true);
+
+        Assertions.assertTrue(text.contains("# TYPE beeop_pool_idle_size gauge\nbeeop_pool_idle_size{os_id=\"pool2\",pool_name=\"pool2\",pool_mode=\"fair\"} 3\n"));
+        //counter family is named without suffix,its samples carry '_total' suffix
+        Assertions.assertTrue(text.contains("# TYPE beeop_pool_shed counter\nbeeop_pool_shed_total{os_id=\"pool2\",pool_name=\"pool2\",pool_mode=\"fair\"} 0\n"));
+        Assertions.assertTrue(text.endsWith("# EOF\n"));
+    }
+
+    @Test
+    public void testLabelValueEscaping() {
+        String text = write(List.of(vo(BeeConnectionPoolMonitorVo.class, "a\"b\\c\nd池😀", 1)), Collections.emptyList(), false);
+        Assertions.assertTrue(text.contains("{ds_id=\"a\\\"b\\\\c\\nd池😀\",pool_name=\"a\\\"b\\\\c\\nd池😀\",pool_mode=\"fair\"} 1\n"));
+    }
+
+    @Test
+    public void testNegativeAndLargeValues() {
+        String text = write(List.of(vo(BeeConnectionPoolMonitorVo.class, "pool1", -25)), List.of(vo(BeeObjectPoolMonitorVo.class, "pool2", Integer.MAX_VALUE)), false);
+        Assertions.assertTrue(text.contains("beecp_pool_idle_size{ds_id=\"pool1\",pool_name=\"pool1\",pool_mode=\"fair\"} -25\n"));
+        Assertions.assertTrue(text.contains("beeop_pool_idle_size{os_id=\"pool2\",pool_name=\"pool2\",pool_mode=\"fair\"} 2147483647\n"));
+    }
+
+    @Test
+    public void testResetForReuse() {
+        PoolMetricsWriter writer = new PoolMetricsWriter();
+        List<BeeConnectionPoolMonitorVo> dsVoList = List.of(vo(BeeConnectionPoolMonitorVo.class, "pool1", 10));
+        writer.write(dsVoList, Collections.emptyList(), false);
+        byte[] first = writer.toByteArray();
+
+        writer.reset();
+        Assertions.assertEquals(0, writer.size());
+        writer.write(dsVoList, Collections.emptyList(), false);
+        Assertions.assertArrayEquals(first, writer.toByteArray());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor.snapshot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+public class PoolSnapshotPushTaskTest {
+
+    @Test
+    public void testDiffPoolsOfChangedProperties() {
+        Map<String, Map<String, Object>> lastPools = pools("ds1", pool(10, 2, "READY"));
+        Map<String, Map<String, Object>> pools = pools("ds1", pool(10, 5, "READY"));
+
+        Map<String, Map<String, Object>> changedPools = PoolSnapshotPushTask.diffPools(lastPools, pools);
+        Assertions.assertEquals(1, changedPools.size());
+        Assertions.assertEquals(Collections.singletonMap("borrowedSize", 5), changedPools.get("ds1"));
+    }
+
+    @Test
+    public void testDiffPoolsOfUnchangedPool() {
+        Map<String, Map<String, Object>> lastPools = pools("ds1", pool(10, 2, "READY"));
+        Map<String, Map<String, Object>> pools = pools("ds1", pool(10, 2, "READY"));
+        Assertions.assertTrue(PoolSnapshotPushTask.diffPools(lastPools, pools).isEmpty());
+    }
+
+    @Test
+    public void testDiffPoolsOfNewPool() {
+        Map<String, Object> newPool = pool(20, 0, "STARTING");
+        Map<String, Map<String, Object>> lastPools = pools("ds1", pool(10, 2, "READY"));
+        Map<String, Map<String, Object>> pools = pools("ds1", pool(10, 2, "READY"));
+        pools.put("ds2", newPool);
+
+        Map<String, Map<String, Object>> changedPools = PoolSnapshotPushTask.diffPools(lastPools, pools);
+        Assertions.assertEquals(1, changedPools.size());
+        Assertions.assertEquals(newPool, changedPools.get("ds2"));
+    }
+
+    @Test
+    public void testDiffPoolsOfAbsentProperty() {
+        Map<String, Object> lastPool = pool(10, 2, "READY");
+        lastPool.put("lowLaneSize", 3);
+        Map<String, Map<String, Object>> changedPools = PoolSnapshotPushTask.diffPools(pools("ds1", lastPool), pools("ds1", pool(10, 2, "READY")));
+
+        Map<String, Object> changedProperties = changedPools.get("ds1");
+        Assertions.assertEquals(1, changedProperties.size());
+        Assertions.assertTrue(changedProperties.containsKey("lowLaneSize"));
+        Assertions.assertNull(changedProperties.get("lowLaneSize"));
+    }
+
+    @Test
+    public void testRemovedPools() {
+        Map<String, Map<String, Object>> lastPools = pools("ds1", pool(10, 2, "READY"));
+        lastPools.put("ds2", pool(10, 0, "READY"));
+        Map<String, Map<String, Object>> pools = pools("ds1", pool(10, 2, "READY"));
+
+        Assertions.assertEquals(Collections.singletonList("ds2"), PoolSnapshotPushTask.removedPools(lastPools, pools));
+        Assertions.assertTrue(PoolSnapshotPushTask.removedPools(pools, pools).isEmpty());
+    }
+
+    private static Map<String, Map<String, Object>> pools(String poolId, Map<String, Object> pool) {
+        Map<String, Map<String, Object>> pools = new LinkedHashMap<>();
+        pools.put(poolId, pool);
+        return pools;
+    }
+
+    private static Map<String, Object> pool(int maxSize, int borrowedSize, String state) {
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("maxSize", maxSize);
+        pool.put("borrowedSize", borrowedSize);
+        pool.put("poolState", state);
+        return pool;
+    }
+}
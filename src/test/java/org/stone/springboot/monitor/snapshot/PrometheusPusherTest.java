@@ -0,0 +1,171 @@
+/*
+ * Copyright Chris2018998
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.stone.springboot.monitor.snapshot;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.stone.beecp.BeeConnectionPoolMonitorVo;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.stone.springboot.monitor.MonitorVoFixtures.vo;
+
+public class PrometheusPusherTest {
+    private final BlockingQueue<Integer> statusQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String[]> requestQueue = new LinkedBlockingQueue<>();
+    private HttpServer server;
+    private String gatewayUrl;
+
+    private static LocalSnapshotPackage snapshot() {
+        LocalSnapshotPackage snapshot = new LocalSnapshotPackage("app1");
+        snapshot.setDsPoolList(Collections.singletonList(vo(BeeConnectionPoolMonitorVo.class, "pool1", 1)));
+        snapshot.setOsPoolList(Collections.emptyList());
+        return snapshot;
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            requestQueue.add(new String[]{exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    contentType, new String(body, StandardCharsets.UTF_8)});
+            Integer status = statusQueue.poll();
+            exchange.sendResponseHeaders(status != null ? status : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        gatewayUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    //pusher filled with snapshot fixture instead of registered pools
+    private PrometheusPusher createPusher() {
+        return new PrometheusPusher(gatewayUrl, "bee", "app1", null, 2000L, 3, 1L, 5L) {
+            protected LocalSnapshotPackage fillSnapshot() {
+                return snapshot();
+            }
+        };
+    }
+
+    private String[] takeRequest() throws Exception {
+        String[] request = requestQueue.poll(5L, TimeUnit.SECONDS);
+        Assertions.assertNotNull(request, "No request received by gateway");
+        return request;
+    }
+
+    @Test
+    public void testPutToGroupingPath() throws Exception {
+        PrometheusPusher pusher = createPusher();
+        pusher.push(snapshot());
+
+        String[] request = takeRequest();
+        Assertions.assertEquals("PUT", request[0]);
+        Assertions.assertEquals("/metrics/job/bee/instance/app1", request[1]);
+        Assertions.assertTrue(request[2].startsWith("text/plain; version=0.0.4"));
+        Assertions.assertTrue(request[3].contains("pool_name=\"pool1\",pool_mode=\"fair\""));
+    }
+
+    @Test
+    public void testBase64GroupingSegment() {
+        PrometheusPusher pusher = new PrometheusPusher(gatewayUrl, "bee", "host/app1", null);
+        Assertions.assertTrue(pusher.getPushUri().getRawPath().endsWith("/metrics/job/bee/instance@base64/aG9zdC9hcHAx"));
+    }
+
+    @Test
+    public void testRetryOn5xx() throws Exception {
+        statusQueue.add(503);
+        statusQueue.add(502);
+        createPusher().push(snapshot());
+
+        Assertions.assertEquals("PUT", takeRequest()[0]);
+        Assertions.assertEquals("PUT", takeRequest()[0]);
+        Assertions.assertEquals("PUT", takeRequest()[0]);
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRetryOn429() throws Exception {
+        statusQueue.add(429);
+        createPusher().push(snapshot());
+
+        takeRequest();
+        takeRequest();
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testNoRetryOn4xx() throws Exception {
+        statusQueue.add(400);
+        createPusher().push(snapshot());
+
+        takeRequest();
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRetriesLimited() throws Exception {
+        for (int i = 0; i < 10; i++)
+            statusQueue.add(500);
+        createPusher().push(snapshot());
+
+        for (int i = 0; i < 4; i++)//first attempt and three retries
+            takeRequest();
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCloseSendsFinalPush() throws Exception {
+        PrometheusPusher pusher = createPusher();
+        pusher.push(snapshot());
+        Assertions.assertEquals("PUT", takeRequest()[0]);
+
+        pusher.close();
+        String[] request = takeRequest();
+        Assertions.assertEquals("PUT", request[0]);
+        Assertions.assertEquals("/metrics/job/bee/instance/app1", request[1]);
+        Assertions.assertTrue(request[3].contains("pool_name=\"pool1\""));
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+
+        pusher.close();//closed already
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCloseDeletesGroupIfEnabled() throws Exception {
+        PrometheusPusher pusher = createPusher();
+        pusher.setDeleteOnClose(true);
+        pusher.close();
+
+        String[] request = takeRequest();
+        Assertions.assertEquals("DELETE", request[0]);
+        Assertions.assertEquals("/metrics/job/bee/instance/app1", request[1]);
+        Assertions.assertNull(requestQueue.poll(200L, TimeUnit.MILLISECONDS));
+    }
+}